@@ -1,26 +1,42 @@
 package com.myorg;
 
+import software.amazon.awscdk.Duration;
 import software.amazon.awscdk.services.apigateway.*;
 import software.amazon.awscdk.services.cognito.IUserPool;
 import software.constructs.Construct;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class ApiGateway {
+  private static final int THROTTLING_BURST_LIMIT = 1;
+  private static final int THROTTLING_RATE_LIMIT = 1;
+  // Settlement flushes the stage cache, but the views read eventually consistent indexes, so a
+  // request right after the flush can cache the previous state. Balances on the ranking also move
+  // with every typing, flushing the whole stage for each one would empty the cache before kickoffs.
+  private static final Duration SETTLED_VIEW_CACHE_TTL = Duration.minutes(5);
+  private static final Duration SHORT_CACHE_TTL = Duration.minutes(1);
+
   private ApiGateway() {}
 
   public static RestApi createRestApi(Construct scope, IUserPool userPool) {
     return RestApi.Builder.create(scope, "worldcup-api")
         .deployOptions(
             StageOptions.builder()
-                .throttlingBurstLimit(1)
-                .throttlingRateLimit(1)
+                .throttlingBurstLimit(THROTTLING_BURST_LIMIT)
+                .throttlingRateLimit(THROTTLING_RATE_LIMIT)
                 .loggingLevel(MethodLoggingLevel.ERROR)
+                .cacheClusterEnabled(true)
+                .cacheClusterSize("0.5")
+                .cachingEnabled(false)
+                .methodOptions(cachedRoutes())
                 .build())
         .cloudWatchRole(true)
         .defaultCorsPreflightOptions(
             CorsOptions.builder()
                 .allowOrigins(List.of("http://localhost:5173", "https://www.mtjeuro24.pl"))
+                .allowHeaders(allowedHeaders())
                 .build())
         .defaultMethodOptions(
             MethodOptions.builder()
@@ -33,4 +49,34 @@ public class ApiGateway {
                 .build())
         .build();
   }
+
+  // clients send Idempotency-Key with typings so that retries are not applied twice
+  private static List<String> allowedHeaders() {
+    List<String> headers = new ArrayList<>(Cors.DEFAULT_HEADERS);
+    headers.add("Idempotency-Key");
+    return headers;
+  }
+
+  // Only routes returning the same body for every user are cached, user specific routes
+  // (typings, user-profile, user-history, tokens) fall back to the stage default of no caching. The
+  // cache key holds no Authorization header, a cached route that starts reading the caller's claims
+  // must add it to the cache key parameters of its integration.
+  private static Map<String, MethodDeploymentOptions> cachedRoutes() {
+    return Map.of(
+        "/api/results/GET", cached(SETTLED_VIEW_CACHE_TTL),
+        "/api/all-typings/GET", cached(SETTLED_VIEW_CACHE_TTL),
+        "/api/typers/GET", cached(SETTLED_VIEW_CACHE_TTL),
+        "/api/today-pool/GET", cached(SHORT_CACHE_TTL),
+        "/api/matches/{date}/GET", cached(SHORT_CACHE_TTL));
+  }
+
+  private static MethodDeploymentOptions cached(Duration ttl) {
+    return MethodDeploymentOptions.builder()
+        .cachingEnabled(true)
+        .cacheTtl(ttl)
+        .throttlingBurstLimit(THROTTLING_BURST_LIMIT)
+        .throttlingRateLimit(THROTTLING_RATE_LIMIT)
+        .loggingLevel(MethodLoggingLevel.ERROR)
+        .build();
+  }
 }
@@ -0,0 +1,23 @@
+package com.myorg;
+
+import java.util.Locale;
+import software.constructs.Construct;
+
+// How the matches table pays for throughput, picked per deployment with
+// `cdk deploy -c capacityProfile=on_demand`.
+public enum CapacityProfile {
+  // pay per request, nothing to scale and nothing to throttle below the account limits
+  ON_DEMAND,
+  // provisioned capacity with target tracking between the per index min and max, the floor is
+  // raised around known kickoffs by getMatchesFromApi
+  AUTOSCALED;
+
+  static final String CONTEXT_KEY = "capacityProfile";
+
+  public static CapacityProfile fromContext(Construct scope) {
+    Object profile = scope.getNode().tryGetContext(CONTEXT_KEY);
+    return profile == null
+        ? AUTOSCALED
+        : CapacityProfile.valueOf(profile.toString().toUpperCase(Locale.ROOT));
+  }
+}
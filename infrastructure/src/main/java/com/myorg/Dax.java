@@ -0,0 +1,104 @@
+package com.myorg;
+
+import java.util.List;
+import java.util.Map;
+import software.amazon.awscdk.services.dax.CfnCluster;
+import software.amazon.awscdk.services.dax.CfnSubnetGroup;
+import software.amazon.awscdk.services.dynamodb.TableV2;
+import software.amazon.awscdk.services.ec2.GatewayVpcEndpointAwsService;
+import software.amazon.awscdk.services.ec2.GatewayVpcEndpointOptions;
+import software.amazon.awscdk.services.ec2.ISecurityGroup;
+import software.amazon.awscdk.services.ec2.IVpc;
+import software.amazon.awscdk.services.ec2.Port;
+import software.amazon.awscdk.services.ec2.SecurityGroup;
+import software.amazon.awscdk.services.ec2.SubnetConfiguration;
+import software.amazon.awscdk.services.ec2.SubnetSelection;
+import software.amazon.awscdk.services.ec2.SubnetType;
+import software.amazon.awscdk.services.ec2.Vpc;
+import software.amazon.awscdk.services.iam.PolicyStatement;
+import software.amazon.awscdk.services.iam.Role;
+import software.amazon.awscdk.services.iam.ServicePrincipal;
+import software.amazon.awscdk.services.lambda.Function;
+import software.constructs.Construct;
+
+// Optional DAX cluster in front of the matches table, deployed with `cdk deploy -c daxCluster=true`.
+// Functions reading through it run in the isolated subnets of its vpc, without internet access.
+public class Dax {
+
+  static final String CONTEXT_KEY = "daxCluster";
+  private static final int TLS_PORT = 9111;
+
+  private Dax() {}
+
+  public static boolean isEnabled(Construct scope) {
+    return Boolean.parseBoolean(String.valueOf(scope.getNode().tryGetContext(CONTEXT_KEY)));
+  }
+
+  public static Vpc createVpc(Construct scope) {
+    return Vpc.Builder.create(scope, "dax-vpc")
+        .maxAzs(2)
+        .natGateways(0)
+        .subnetConfiguration(
+            List.of(
+                SubnetConfiguration.builder()
+                    .name("isolated")
+                    .subnetType(SubnetType.PRIVATE_ISOLATED)
+                    .build()))
+        .gatewayEndpoints(
+            Map.of(
+                "dynamodb",
+                GatewayVpcEndpointOptions.builder()
+                    .service(GatewayVpcEndpointAwsService.DYNAMODB)
+                    .build()))
+        .build();
+  }
+
+  public static SecurityGroup createClientSecurityGroup(Construct scope, IVpc vpc) {
+    return SecurityGroup.Builder.create(scope, "dax-clients").vpc(vpc).build();
+  }
+
+  // Two nodes in different zones, so a node failure or maintenance does not take the reads down.
+  // Item and query caches keep results for the default five minutes.
+  public static CfnCluster createCluster(
+      Construct scope, TableV2 table, IVpc vpc, ISecurityGroup clients) {
+    Role daxRole =
+        Role.Builder.create(scope, "dax-role")
+            .assumedBy(new ServicePrincipal("dax.amazonaws.com"))
+            .build();
+    table.grantReadWriteData(daxRole);
+
+    SecurityGroup clusterSecurityGroup =
+        SecurityGroup.Builder.create(scope, "dax-cluster").vpc(vpc).build();
+    clusterSecurityGroup.addIngressRule(clients, Port.tcp(TLS_PORT));
+
+    CfnSubnetGroup subnetGroup =
+        CfnSubnetGroup.Builder.create(scope, "dax-subnet-group")
+            .subnetGroupName("matches-dax")
+            .subnetIds(
+                vpc.selectSubnets(
+                        SubnetSelection.builder().subnetType(SubnetType.PRIVATE_ISOLATED).build())
+                    .getSubnetIds())
+            .build();
+
+    CfnCluster cluster =
+        CfnCluster.Builder.create(scope, "dax-cluster-matches")
+            .clusterName("matches")
+            .nodeType("dax.t3.small")
+            .replicationFactor(2)
+            .iamRoleArn(daxRole.getRoleArn())
+            .subnetGroupName(subnetGroup.getSubnetGroupName())
+            .securityGroupIds(List.of(clusterSecurityGroup.getSecurityGroupId()))
+            .clusterEndpointEncryptionType("TLS")
+            .sseSpecification(CfnCluster.SSESpecificationProperty.builder().sseEnabled(true).build())
+            .build();
+    cluster.addDependency(subnetGroup);
+    return cluster;
+  }
+
+  public static void grantRead(CfnCluster cluster, Function function) {
+    PolicyStatement readThroughCluster = new PolicyStatement();
+    readThroughCluster.addActions("dax:GetItem", "dax:BatchGetItem", "dax:Query", "dax:Scan");
+    readThroughCluster.addResources(cluster.getAttrArn());
+    function.addToRolePolicy(readThroughCluster);
+  }
+}
@@ -3,58 +3,219 @@ package com.myorg;
 import software.amazon.awscdk.services.dynamodb.*;
 import software.constructs.Construct;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class DynamoDb {
 
+  static final int TARGET_UTILIZATION_PERCENT = 70;
+  // What the list views read by record type: ranking, all typings and pools, plus the attributes the
+  // index backfills filter on. Push tokens and arns of users stay in the table only. Must cover the
+  // attributes MatchRecord, TypingRecord and UserRecord map.
+  static final List<String> RECORD_TYPE_INDEX_ATTRIBUTES =
+      List.of(
+          "date",
+          "start_time",
+          "kickoff",
+          "home_team",
+          "away_team",
+          "home_score",
+          "away_score",
+          "typing_user_id",
+          "typing_status",
+          "correct_typings",
+          "pool");
+
+  // A table update can create or delete only one index. Indexes added to an existing table are
+  // created one per deploy, in the order of newIndexes: `cdk deploy -c newIndexesCreated=<n>` keeps
+  // the first n of them. Without the key all of them are in the template, as a new table needs.
+  static final String NEW_INDEXES_CREATED_KEY = "newIndexesCreated";
+  // Indexes no deployed code reads any more are kept here and dropped one per deploy, in this order:
+  // `cdk deploy -c retiredIndexesDropped=<n>` leaves out the first n of them. Only once every new
+  // index exists, the code that read a retired index reads its replacement.
+  static final String RETIRED_INDEXES_DROPPED_KEY = "retiredIndexesDropped";
+  // A retired index is still written with every item it covers, a throttled index write throttles the
+  // table write, so it scales as far as the table does. Reads come only from the previous release.
+  private static final int RETIRED_INDEX_MAX_READ_CAPACITY = 5;
+  private static final int RETIRED_INDEX_MAX_WRITE_CAPACITY = 10;
+
   private DynamoDb() {}
 
   public static TableV2 createTable(Construct scope) {
+    return createTable(scope, CapacityProfile.fromContext(scope));
+  }
+
+  // Max capacities follow the match day load: typings are written right before kickoffs, the
+  // settlement of a match reads its typings by match and writes every typer's pool in one go,
+  // today's matches and pools are read by every open app.
+  public static TableV2 createTable(Construct scope, CapacityProfile profile) {
+    List<GlobalSecondaryIndexPropsV2> newIndexes = newIndexes(profile);
+    int created = newIndexesCreated(scope, newIndexes.size());
+    long dropped = retiredIndexesDropped(scope);
+    if (dropped > 0 && created < newIndexes.size()) {
+      throw new IllegalArgumentException(
+          "Retired indexes can be dropped only after all "
+              + newIndexes.size()
+              + " new indexes are created, "
+              + NEW_INDEXES_CREATED_KEY
+              + " is "
+              + created);
+    }
+    List<GlobalSecondaryIndexPropsV2> indexes = new ArrayList<>(newIndexes.subList(0, created));
+    retiredIndexes().stream()
+        .skip(dropped)
+        .forEach(
+            index ->
+                indexes.add(
+                    withCapacity(
+                        index,
+                        profile,
+                        RETIRED_INDEX_MAX_READ_CAPACITY,
+                        RETIRED_INDEX_MAX_WRITE_CAPACITY)));
     return TableV2.Builder.create(scope, "matches")
         .partitionKey(Attribute.builder().name("primary_id").type(AttributeType.STRING).build())
         .sortKey(Attribute.builder().name("secondary_id").type(AttributeType.STRING).build())
-        .globalSecondaryIndexes(
-            List.of(
-                GlobalSecondaryIndexPropsV2.builder()
-                    .partitionKey(
-                        Attribute.builder().name("secondary_id").type(AttributeType.STRING).build())
-                    .sortKey(
-                        Attribute.builder().name("primary_id").type(AttributeType.STRING).build())
-                    .indexName("getBySecondaryId")
-                    .readCapacity(Capacity.fixed(1))
-                    .writeCapacity(
-                        Capacity.autoscaled(
-                            AutoscaledCapacityOptions.builder().maxCapacity(1).build()))
-                    .build(),
-                GlobalSecondaryIndexPropsV2.builder()
-                    .partitionKey(
-                        Attribute.builder().name("date").type(AttributeType.STRING).build())
-                    .indexName("getByDate")
-                    .projectionType(ProjectionType.ALL)
-                    .readCapacity(Capacity.fixed(1))
-                    .writeCapacity(
-                        Capacity.autoscaled(
-                            AutoscaledCapacityOptions.builder().maxCapacity(1).build()))
-                    .build(),
-                GlobalSecondaryIndexPropsV2.builder()
-                    .partitionKey(
-                        Attribute.builder().name("record_type").type(AttributeType.STRING).build())
-                    .indexName("getByRecordType")
-                    .projectionType(ProjectionType.ALL)
-                    .readCapacity(Capacity.fixed(1))
-                    .writeCapacity(
-                        Capacity.autoscaled(
-                            AutoscaledCapacityOptions.builder().maxCapacity(1).build()))
-                    .build()))
-        .billing(
-            Billing.provisioned(
-                ThroughputProps.builder()
-                    .readCapacity(Capacity.fixed(1))
-                    .writeCapacity(
-                        Capacity.autoscaled(
-                            AutoscaledCapacityOptions.builder().maxCapacity(1).build()))
-                    .build()))
+        .globalSecondaryIndexes(indexes)
+        .billing(billing(profile))
         .dynamoStream(StreamViewType.NEW_IMAGE)
+        .timeToLiveAttribute("expires_at")
         .build();
   }
+
+  // in the order they are created
+  private static List<GlobalSecondaryIndexPropsV2> newIndexes(CapacityProfile profile) {
+    return List.of(
+        withCapacity(
+            GlobalSecondaryIndexPropsV2.builder()
+                .partitionKey(
+                    Attribute.builder()
+                        .name("typing_user_id")
+                        .type(AttributeType.STRING)
+                        .build())
+                .sortKey(
+                    Attribute.builder()
+                        .name("primary_id")
+                        .type(AttributeType.STRING)
+                        .build())
+                .indexName("getTypingsByUser"),
+            profile,
+            5,
+            10),
+        withCapacity(
+            GlobalSecondaryIndexPropsV2.builder()
+                .partitionKey(
+                    Attribute.builder().name("date").type(AttributeType.STRING).build())
+                .sortKey(
+                    Attribute.builder()
+                        .name("record_type")
+                        .type(AttributeType.STRING)
+                        .build())
+                .indexName("getByDateAndType")
+                .projectionType(ProjectionType.ALL),
+            profile,
+            10,
+            5),
+        withCapacity(
+            GlobalSecondaryIndexPropsV2.builder()
+                .partitionKey(
+                    Attribute.builder()
+                        .name("match_status")
+                        .type(AttributeType.STRING)
+                        .build())
+                .sortKey(
+                    Attribute.builder().name("kickoff").type(AttributeType.STRING).build())
+                .indexName("getByStatusAndKickoff")
+                .projectionType(ProjectionType.ALL),
+            profile,
+            5,
+            5),
+        withCapacity(
+            GlobalSecondaryIndexPropsV2.builder()
+                .partitionKey(
+                    Attribute.builder()
+                        .name("record_type")
+                        .type(AttributeType.STRING)
+                        .build())
+                .indexName("getByRecordTypeV2")
+                .projectionType(ProjectionType.INCLUDE)
+                .nonKeyAttributes(RECORD_TYPE_INDEX_ATTRIBUTES),
+            profile,
+            5,
+            10));
+  }
+
+  // in the order they are dropped
+  private static List<GlobalSecondaryIndexPropsV2.Builder> retiredIndexes() {
+    return List.of(
+        // replaced by getByDateAndType
+        GlobalSecondaryIndexPropsV2.builder()
+            .partitionKey(Attribute.builder().name("date").type(AttributeType.STRING).build())
+            .indexName("getByDate")
+            .projectionType(ProjectionType.ALL),
+        // replaced by the sparse getTypingsByUser
+        GlobalSecondaryIndexPropsV2.builder()
+            .partitionKey(
+                Attribute.builder().name("secondary_id").type(AttributeType.STRING).build())
+            .sortKey(Attribute.builder().name("primary_id").type(AttributeType.STRING).build())
+            .indexName("getBySecondaryId")
+            .projectionType(ProjectionType.ALL),
+        // replaced by getByRecordTypeV2, the projection of an index cannot be changed
+        GlobalSecondaryIndexPropsV2.builder()
+            .partitionKey(
+                Attribute.builder().name("record_type").type(AttributeType.STRING).build())
+            .indexName("getByRecordType")
+            .projectionType(ProjectionType.ALL));
+  }
+
+  private static int newIndexesCreated(Construct scope, int all) {
+    Object created = scope.getNode().tryGetContext(NEW_INDEXES_CREATED_KEY);
+    if (created == null) {
+      return all;
+    }
+    int count = Integer.parseInt(created.toString());
+    if (count < 0 || count > all) {
+      throw new IllegalArgumentException(
+          NEW_INDEXES_CREATED_KEY + " must be between 0 and " + all + ", is " + count);
+    }
+    return count;
+  }
+
+  private static long retiredIndexesDropped(Construct scope) {
+    Object dropped = scope.getNode().tryGetContext(RETIRED_INDEXES_DROPPED_KEY);
+    return dropped == null ? 0 : Long.parseLong(dropped.toString());
+  }
+
+  private static Billing billing(CapacityProfile profile) {
+    if (profile == CapacityProfile.ON_DEMAND) {
+      return Billing.onDemand();
+    }
+    return Billing.provisioned(
+        ThroughputProps.builder()
+            .readCapacity(autoscaled(10))
+            .writeCapacity(autoscaled(10))
+            .build());
+  }
+
+  // on demand indexes take the billing of the table and must not set any capacity
+  private static GlobalSecondaryIndexPropsV2 withCapacity(
+      GlobalSecondaryIndexPropsV2.Builder index,
+      CapacityProfile profile,
+      int maxReadCapacity,
+      int maxWriteCapacity) {
+    if (profile == CapacityProfile.AUTOSCALED) {
+      index
+          .readCapacity(autoscaled(maxReadCapacity))
+          .writeCapacity(autoscaled(maxWriteCapacity));
+    }
+    return index.build();
+  }
+
+  private static Capacity autoscaled(int maxCapacity) {
+    return Capacity.autoscaled(
+        AutoscaledCapacityOptions.builder()
+            .minCapacity(1)
+            .maxCapacity(maxCapacity)
+            .targetUtilizationPercent(TARGET_UTILIZATION_PERCENT)
+            .build());
+  }
 }
@@ -1,5 +1,6 @@
 package com.myorg;
 
+import software.amazon.awscdk.services.events.EventPattern;
 import software.amazon.awscdk.services.events.Rule;
 import software.amazon.awscdk.services.events.Schedule;
 import software.amazon.awscdk.services.events.targets.LambdaFunction;
@@ -17,4 +18,11 @@ public class EventBridgeRule {
                 .targets(List.of(LambdaFunction.Builder.create(handler).build()))
                 .build();
     }
+
+    public static Rule createRule(Construct scope, IFunction handler, EventPattern eventPattern, String name) {
+        return Rule.Builder.create(scope, name)
+                .eventPattern(eventPattern)
+                .targets(List.of(LambdaFunction.Builder.create(handler).build()))
+                .build();
+    }
 }
@@ -9,16 +9,25 @@ import software.amazon.awscdk.services.apigateway.MethodOptions;
 import software.amazon.awscdk.services.apigateway.RestApi;
 import software.amazon.awscdk.services.cognito.IUserPool;
 import software.amazon.awscdk.services.cognito.UserPool;
+import software.amazon.awscdk.services.dax.CfnCluster;
 import software.amazon.awscdk.services.dynamodb.TableV2;
+import software.amazon.awscdk.services.ec2.SecurityGroup;
+import software.amazon.awscdk.services.ec2.Vpc;
 import software.amazon.awscdk.services.events.CronOptions;
+import software.amazon.awscdk.services.events.EventBus;
+import software.amazon.awscdk.services.events.EventPattern;
 import software.amazon.awscdk.services.events.Schedule;
 import software.amazon.awscdk.services.iam.PolicyStatement;
+import software.amazon.awscdk.services.iam.Role;
+import software.amazon.awscdk.services.iam.ServicePrincipal;
 import software.amazon.awscdk.services.lambda.FilterCriteria;
 import software.amazon.awscdk.services.lambda.FilterRule;
 import software.amazon.awscdk.services.lambda.Function;
 import software.amazon.awscdk.services.lambda.LayerVersion;
 import software.amazon.awscdk.services.lambda.StartingPosition;
 import software.amazon.awscdk.services.lambda.eventsources.DynamoEventSource;
+import software.amazon.awscdk.services.lambda.eventsources.SqsEventSource;
+import software.amazon.awscdk.services.sqs.Queue;
 import software.amazon.awscdk.services.ssm.StringParameter;
 import software.constructs.Construct;
 
@@ -39,9 +48,24 @@ public class InfrastructureStack extends Stack {
         Lambda.createLambda(
             this, "getMatchesFromApi", "getfromapi", dynamoDbLayer, worldcupCommonLayer);
 
+    // match days and today's pool are read by every open app, with -c daxCluster=true they are
+    // read through a DAX cluster
+    boolean daxEnabled = Dax.isEnabled(this);
+    Vpc daxVpc = daxEnabled ? Dax.createVpc(this) : null;
+    SecurityGroup daxClients = daxEnabled ? Dax.createClientSecurityGroup(this, daxVpc) : null;
+
     Function getMatchesByDate =
-        Lambda.createLambda(
-            this, "getMatchesByDate", "getbydate", dynamoDbLayer, worldcupCommonLayer);
+        daxEnabled
+            ? Lambda.createLambda(
+                this,
+                "getMatchesByDate",
+                "getbydate",
+                daxVpc,
+                daxClients,
+                dynamoDbLayer,
+                worldcupCommonLayer)
+            : Lambda.createLambda(
+                this, "getMatchesByDate", "getbydate", dynamoDbLayer, worldcupCommonLayer);
 
     Function postTypes =
         Lambda.createLambda(
@@ -59,8 +83,17 @@ public class InfrastructureStack extends Stack {
             this, "getAllTypings", "getalltypings", dynamoDbLayer, worldcupCommonLayer);
 
     Function getTodayPool =
-        Lambda.createLambda(
-            this, "getTodayPool", "gettodaypool", dynamoDbLayer, worldcupCommonLayer);
+        daxEnabled
+            ? Lambda.createLambda(
+                this,
+                "getTodayPool",
+                "gettodaypool",
+                daxVpc,
+                daxClients,
+                dynamoDbLayer,
+                worldcupCommonLayer)
+            : Lambda.createLambda(
+                this, "getTodayPool", "gettodaypool", dynamoDbLayer, worldcupCommonLayer);
 
     Function getUserProfile =
         Lambda.createLambda(
@@ -86,6 +119,9 @@ public class InfrastructureStack extends Stack {
         Lambda.createLambda(
             this, "handleFinishedMatch", "handlefinishedmatch", dynamoDbLayer, worldcupCommonLayer, snsLayer);
 
+    Function applyTypings =
+        Lambda.createLambda(this, "applyTypings", "applytypings", dynamoDbLayer, worldcupCommonLayer);
+
     Function getTypersRank =
         Lambda.createLambda(
             this, "getTypersRank", "gettypersrank", dynamoDbLayer, worldcupCommonLayer);
@@ -122,7 +158,7 @@ public class InfrastructureStack extends Stack {
     TableV2 matchesTable = DynamoDb.createTable(this);
 
     matchesTable.grantReadWriteData(getMatchesFromApi);
-    matchesTable.grantReadData(getMatchesByDate);
+    matchesTable.grantReadWriteData(getMatchesByDate);
     matchesTable.grantReadWriteData(postTypes);
     matchesTable.grantReadData(getResults);
     matchesTable.grantReadData(getMyTypings);
@@ -132,12 +168,21 @@ public class InfrastructureStack extends Stack {
     matchesTable.grantReadWriteData(getCurrentStateFromApi);
     matchesTable.grantReadWriteData(dividePool);
     matchesTable.grantReadWriteData(handleFinishedMatch);
+    matchesTable.grantReadWriteData(applyTypings);
     matchesTable.grantStreamRead(handleFinishedMatch);
     matchesTable.grantReadData(getTypersRank);
     matchesTable.grantReadData(getUserHistory);
     matchesTable.grantReadWriteData(updateUserToken);
     matchesTable.grantReadWriteData(deleteRegistrationToken);
 
+    if (daxEnabled) {
+      CfnCluster daxCluster = Dax.createCluster(this, matchesTable, daxVpc, daxClients);
+      for (Function daxReader : List.of(getMatchesByDate, getTodayPool)) {
+        Dax.grantRead(daxCluster, daxReader);
+        daxReader.addEnvironment("DAX_ENDPOINT", daxCluster.getAttrClusterDiscoveryEndpointUrl());
+      }
+    }
+
     String userPoolId = "USER_POOL_ID";
     String userPoolIdFromSsm = StringParameter.valueForStringParameter(this, userPoolId);
 
@@ -202,6 +247,14 @@ public class InfrastructureStack extends Stack {
     getMatchesFromApi.addEnvironment(baseUrl, baseMatchApiUrlFromSsm);
     getMatchesFromApi.addEnvironment(leagueId, leagueIdFromSsm);
 
+    // moves the autoscaling floor of the table around kickoffs of the imported fixtures
+    PolicyStatement scheduleTableCapacity = new PolicyStatement();
+    scheduleTableCapacity.addActions(
+        "application-autoscaling:DescribeScalableTargets",
+        "application-autoscaling:PutScheduledAction");
+    scheduleTableCapacity.addResources("*");
+    getMatchesFromApi.addToRolePolicy(scheduleTableCapacity);
+
     getMatchesByDate.addEnvironment(matchesTableName, matchesTable.getTableName());
 
     postTypes.addEnvironment(matchesTableName, matchesTable.getTableName());
@@ -229,6 +282,8 @@ public class InfrastructureStack extends Stack {
 
     dividePool.addEnvironment(matchesTableName, matchesTable.getTableName());
 
+    applyTypings.addEnvironment(matchesTableName, matchesTable.getTableName());
+
     handleFinishedMatch.addEnvironment(matchesTableName, matchesTable.getTableName());
     handleFinishedMatch.addEnvironment(
             snsPlatformApplicationArn, platformApplicationArnFromSsm);
@@ -268,14 +323,61 @@ public class InfrastructureStack extends Stack {
             .batchSize(1)
             .build());
 
+    // postTypes only checks kickoff times and queues typings, applyTypings writes them in grouped
+    // transactions, so a burst before kickoff is spread over time instead of being throttled
+    Queue typingsQueue = Sqs.createFifoQueue(this, "typings-queue", Lambda.TIMEOUT);
+    typingsQueue.grantSendMessages(postTypes);
+    postTypes.addEnvironment("TYPINGS_QUEUE_URL", typingsQueue.getQueueUrl());
+    applyTypings.addEventSource(
+        SqsEventSource.Builder.create(typingsQueue)
+            .batchSize(10)
+            .reportBatchItemFailures(true)
+            .build());
+
     Schedule onceADay = Schedule.cron(CronOptions.builder().hour("0").minute("30").build());
     EventBridgeRule.createRule(this, getMatchesFromApi, onceADay, "getMatchesCron");
 
-    Schedule everyHour = Schedule.cron(CronOptions.builder().minute("15").build());
-    EventBridgeRule.createRule(this, getCurrentStateFromApi, everyHour, "getCurrentStateCron");
-
-    onceADay = Schedule.cron(CronOptions.builder().hour("0").minute("45").build());
-    EventBridgeRule.createRule(this, dividePool, onceADay, "dividePoolCron");
+    // Every poll schedules the next one for itself. The 01:00 run, after the matches import, starts
+    // the day's chain. The other runs restart it within the hour when a poll failed before it could
+    // schedule the next one, while the chain is alive they only upsert the same one-off schedule.
+    Schedule everyHour = Schedule.cron(CronOptions.builder().minute("0").build());
+    EventBridgeRule.createRule(
+        this, getCurrentStateFromApi, everyHour, "getCurrentStateHourlyCron");
+
+    Role pollSchedulerRole =
+        Role.Builder.create(this, "poll-scheduler-role")
+            .assumedBy(new ServicePrincipal("scheduler.amazonaws.com"))
+            .build();
+    getCurrentStateFromApi.grantInvoke(pollSchedulerRole);
+
+    PolicyStatement upsertPollSchedule = new PolicyStatement();
+    upsertPollSchedule.addActions("scheduler:CreateSchedule", "scheduler:UpdateSchedule");
+    upsertPollSchedule.addResources(
+        String.format(
+            "arn:aws:scheduler:%s:%s:schedule/default/getCurrentStateFromApi-next-poll",
+            getRegion(), getAccount()));
+
+    PolicyStatement passPollSchedulerRole = new PolicyStatement();
+    passPollSchedulerRole.addActions("iam:PassRole");
+    passPollSchedulerRole.addResources(pollSchedulerRole.getRoleArn());
+
+    getCurrentStateFromApi.addToRolePolicy(upsertPollSchedule);
+    getCurrentStateFromApi.addToRolePolicy(passPollSchedulerRole);
+    getCurrentStateFromApi.addEnvironment("SCHEDULER_ROLE_ARN", pollSchedulerRole.getRoleArn());
+
+    // handleFinishedMatch publishes MatchDayFinished once the last match of a day is settled
+    EventPattern matchDayFinished =
+        EventPattern.builder()
+            .source(List.of("mtjworldcup.matches"))
+            .detailType(List.of("MatchDayFinished"))
+            .build();
+    EventBridgeRule.createRule(this, dividePool, matchDayFinished, "dividePoolOnMatchDayFinished");
+    // A day with a match that never finishes never publishes MatchDayFinished. The sweep divides the
+    // pool after yesterday at 04:00 UTC, when the last matches of the day are long over and the next
+    // ones have not kicked off yet.
+    Schedule beforeMatchDay = Schedule.cron(CronOptions.builder().hour("4").minute("0").build());
+    EventBridgeRule.createRule(this, dividePool, beforeMatchDay, "dividePoolDailySweep");
+    EventBus.grantAllPutEvents(handleFinishedMatch);
 
     RestApi api = ApiGateway.createRestApi(this, worldcupUserPool);
     api.getRoot()
@@ -320,7 +422,9 @@ public class InfrastructureStack extends Stack {
         .addResource("{date}")
         .addMethod(
             "GET",
-            LambdaIntegration.Builder.create(getMatchesByDate).build(),
+            LambdaIntegration.Builder.create(getMatchesByDate)
+                .cacheKeyParameters(List.of("method.request.path.date"))
+                .build(),
             MethodOptions.builder()
                 .requestParameters(Map.of("method.request.path.date", true))
                 .build())
@@ -331,5 +435,24 @@ public class InfrastructureStack extends Stack {
             MethodOptions.builder()
                 .requestParameters(Map.of("method.request.path.date", true))
                 .build());
+
+    String restApiId = "REST_API_ID";
+    String restApiStageName = "REST_API_STAGE_NAME";
+    String stageName = api.getDeploymentStage().getStageName();
+
+    PolicyStatement flushStageCache = new PolicyStatement();
+    flushStageCache.addActions("apigateway:DELETE");
+    flushStageCache.addResources(
+        String.format(
+            "arn:aws:apigateway:%s::/restapis/%s/stages/%s/cache/data",
+            getRegion(), api.getRestApiId(), stageName));
+
+    dividePool.addToRolePolicy(flushStageCache);
+    dividePool.addEnvironment(restApiId, api.getRestApiId());
+    dividePool.addEnvironment(restApiStageName, stageName);
+
+    handleFinishedMatch.addToRolePolicy(flushStageCache);
+    handleFinishedMatch.addEnvironment(restApiId, api.getRestApiId());
+    handleFinishedMatch.addEnvironment(restApiStageName, stageName);
   }
 }
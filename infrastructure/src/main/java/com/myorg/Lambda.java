@@ -1,6 +1,10 @@
 package com.myorg;
 
 import software.amazon.awscdk.Duration;
+import software.amazon.awscdk.services.ec2.ISecurityGroup;
+import software.amazon.awscdk.services.ec2.IVpc;
+import software.amazon.awscdk.services.ec2.SubnetSelection;
+import software.amazon.awscdk.services.ec2.SubnetType;
 import software.amazon.awscdk.services.lambda.Code;
 import software.amazon.awscdk.services.lambda.Function;
 import software.amazon.awscdk.services.lambda.FunctionProps;
@@ -15,18 +19,33 @@ import java.util.List;
 import static software.amazon.awscdk.services.lambda.Runtime.JAVA_17;
 
 public class Lambda {
+    public static final Duration TIMEOUT = Duration.seconds(30);
+
     private Lambda() {}
 
     public static Function createLambda(Construct scope, String lambdaName, String packageName,  LayerVersion... layers) {
-        return new Function(scope, lambdaName, FunctionProps.builder()
+        return new Function(scope, lambdaName, props(lambdaName, packageName, layers).build());
+    }
+
+    // Placed in the isolated subnets of the vpc, reaching DynamoDB through its gateway endpoint only.
+    public static Function createLambda(Construct scope, String lambdaName, String packageName, IVpc vpc,
+                                        ISecurityGroup securityGroup, LayerVersion... layers) {
+        return new Function(scope, lambdaName, props(lambdaName, packageName, layers)
+                .vpc(vpc)
+                .vpcSubnets(SubnetSelection.builder().subnetType(SubnetType.PRIVATE_ISOLATED).build())
+                .securityGroups(List.of(securityGroup))
+                .build());
+    }
+
+    private static FunctionProps.Builder props(String lambdaName, String packageName, LayerVersion... layers) {
+        return FunctionProps.builder()
                 .runtime(JAVA_17)
                 .code(Code.fromAsset(MessageFormat.format("../software/{0}/target/{0}.jar", lambdaName)))
                 .handler(MessageFormat.format("com.mtjworldcup.{0}.Handler", packageName))
                 .memorySize(1024)
-                .timeout(Duration.seconds(30))
+                .timeout(TIMEOUT)
                 .logRetention(RetentionDays.ONE_WEEK)
-                .layers(Arrays.asList(layers))
-                .build());
+                .layers(Arrays.asList(layers));
     }
 
     public static LayerVersion createLayer(Construct scope, String layerName) {
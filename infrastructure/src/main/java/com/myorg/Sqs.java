@@ -0,0 +1,32 @@
+package com.myorg;
+
+import software.amazon.awscdk.Duration;
+import software.amazon.awscdk.services.sqs.DeadLetterQueue;
+import software.amazon.awscdk.services.sqs.Queue;
+import software.constructs.Construct;
+
+public class Sqs {
+  private static final int MAX_RECEIVE_COUNT = 3;
+
+  private Sqs() {}
+
+  // Visibility timeout is six times the lambda timeout, as advised for lambda consumers. Messages
+  // failing MAX_RECEIVE_COUNT times are moved to a dead letter queue kept for two weeks. Senders set
+  // the deduplication id, equal bodies sent within five minutes are separate messages.
+  public static Queue createFifoQueue(Construct scope, String queueName, Duration consumerTimeout) {
+    Queue deadLetterQueue =
+        Queue.Builder.create(scope, queueName + "-dlq")
+            .queueName(queueName + "-dlq.fifo")
+            .fifo(true)
+            .retentionPeriod(Duration.days(14))
+            .build();
+    return Queue.Builder.create(scope, queueName)
+        .queueName(queueName + ".fifo")
+        .fifo(true)
+        .contentBasedDeduplication(false)
+        .visibilityTimeout(Duration.seconds(consumerTimeout.toSeconds().intValue() * 6))
+        .deadLetterQueue(
+            DeadLetterQueue.builder().queue(deadLetterQueue).maxReceiveCount(MAX_RECEIVE_COUNT).build())
+        .build();
+  }
+}
@@ -0,0 +1,56 @@
+package com.myorg;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awscdk.App;
+import software.amazon.awscdk.AppProps;
+import software.amazon.awscdk.Stack;
+import software.amazon.awscdk.assertions.Template;
+import software.amazon.awscdk.services.dynamodb.TableV2;
+import software.amazon.awscdk.services.ec2.SecurityGroup;
+import software.amazon.awscdk.services.ec2.Vpc;
+
+class DaxTest {
+
+  @Test
+  void shouldCreateEncryptedClusterInIsolatedVpc_WhenCreatingCluster() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    TableV2 table = DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    Vpc vpc = Dax.createVpc(stack);
+    SecurityGroup clients = Dax.createClientSecurityGroup(stack, vpc);
+    // when
+    Dax.createCluster(stack, table, vpc, clients);
+    // then
+    Template template = Template.fromStack(stack);
+    template.hasResourceProperties(
+        "AWS::DAX::Cluster",
+        Map.of(
+            "ReplicationFactor", 2,
+            "ClusterEndpointEncryptionType", "TLS",
+            "SSESpecification", Map.of("SSEEnabled", true)));
+    template.resourceCountIs("AWS::EC2::NatGateway", 0);
+    template.resourceCountIs("AWS::EC2::VPCEndpoint", 1);
+    template.hasResourceProperties(
+        "AWS::EC2::SecurityGroupIngress", Map.of("FromPort", 9111, "ToPort", 9111));
+  }
+
+  @Test
+  void shouldBeDisabled_WhenNoContextPassed() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when, then
+    assertFalse(Dax.isEnabled(stack));
+  }
+
+  @Test
+  void shouldBeEnabled_WhenContextPassedOnDeploy() {
+    // given
+    App app = new App(AppProps.builder().context(Map.of("daxCluster", "true")).build());
+    // when, then
+    assertTrue(Dax.isEnabled(new Stack(app, "test")));
+  }
+}
@@ -0,0 +1,247 @@
+package com.myorg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awscdk.App;
+import software.amazon.awscdk.AppProps;
+import software.amazon.awscdk.Stack;
+import software.amazon.awscdk.assertions.Match;
+import software.amazon.awscdk.assertions.Template;
+
+class DynamoDbTest {
+
+  private static final String GLOBAL_TABLE = "AWS::DynamoDB::GlobalTable";
+
+  @Test
+  void shouldPayPerRequest_WhenOnDemandProfile() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    // then
+    Template template = Template.fromStack(stack);
+    template.hasResourceProperties(
+        GLOBAL_TABLE,
+        Map.of(
+            "BillingMode", "PAY_PER_REQUEST",
+            "WriteProvisionedThroughputSettings", Match.absent()));
+    template.hasResourceProperties(
+        GLOBAL_TABLE,
+        Map.of(
+            "GlobalSecondaryIndexes",
+            Match.arrayWith(
+                List.of(
+                    Match.objectLike(
+                        Map.of(
+                            "IndexName",
+                            "getTypingsByUser",
+                            "WriteProvisionedThroughputSettings",
+                            Match.absent()))))));
+  }
+
+  @Test
+  void shouldAutoscaleTableAndIndexes_WhenAutoscaledProfile() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.AUTOSCALED);
+    // then
+    Template template = Template.fromStack(stack);
+    template.hasResourceProperties(
+        GLOBAL_TABLE,
+        Map.of(
+            "BillingMode",
+            "PROVISIONED",
+            "WriteProvisionedThroughputSettings",
+            Map.of("WriteCapacityAutoScalingSettings", autoscaling(10)),
+            "GlobalSecondaryIndexes",
+            Match.arrayWith(
+                List.of(
+                    Match.objectLike(
+                        Map.of(
+                            "IndexName",
+                            "getTypingsByUser",
+                            "WriteProvisionedThroughputSettings",
+                            Map.of("WriteCapacityAutoScalingSettings", autoscaling(10)))),
+                    Match.objectLike(
+                        Map.of(
+                            "IndexName",
+                            "getByDateAndType",
+                            "WriteProvisionedThroughputSettings",
+                            Map.of("WriteCapacityAutoScalingSettings", autoscaling(5))))))));
+    template.hasResourceProperties(
+        GLOBAL_TABLE,
+        Map.of(
+            "Replicas",
+            List.of(
+                Match.objectLike(
+                    Map.of(
+                        "ReadProvisionedThroughputSettings",
+                        Map.of("ReadCapacityAutoScalingSettings", autoscaling(10)),
+                        "GlobalSecondaryIndexes",
+                        Match.arrayWith(
+                            List.of(
+                                Map.of(
+                                    "IndexName",
+                                    "getByDateAndType",
+                                    "ReadProvisionedThroughputSettings",
+                                    Map.of(
+                                        "ReadCapacityAutoScalingSettings",
+                                        autoscaling(10))))))))));
+  }
+
+  @Test
+  void shouldProjectListAttributesOnly_WhenCreatingRecordTypeIndex() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    // then
+    Template.fromStack(stack)
+        .hasResourceProperties(
+            GLOBAL_TABLE,
+            Map.of(
+                "GlobalSecondaryIndexes",
+                Match.arrayWith(
+                    List.of(
+                        Match.objectLike(
+                            Map.of(
+                                "IndexName",
+                                "getByRecordTypeV2",
+                                "Projection",
+                                Map.of(
+                                    "ProjectionType",
+                                    "INCLUDE",
+                                    "NonKeyAttributes",
+                                    DynamoDb.RECORD_TYPE_INDEX_ATTRIBUTES)))))));
+  }
+
+  @Test
+  void shouldKeepRetiredIndexes_WhenNoneDroppedYet() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    // then
+    List<String> indexes = indexNames(stack);
+    assertTrue(indexes.contains("getByDate"));
+    assertTrue(indexes.contains("getBySecondaryId"));
+    assertTrue(indexes.contains("getByRecordType"));
+  }
+
+  @Test
+  void shouldDropOneRetiredIndexPerDeploy_WhenDroppedCountRaised() {
+    // given
+    App app = new App(AppProps.builder().context(Map.of("retiredIndexesDropped", "1")).build());
+    Stack stack = new Stack(app, "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    // then
+    List<String> indexes = indexNames(stack);
+    assertFalse(indexes.contains("getByDate"));
+    assertTrue(indexes.contains("getBySecondaryId"));
+    assertTrue(indexes.contains("getByDateAndType"));
+  }
+
+  @Test
+  void shouldCreateOneNewIndexPerDeploy_WhenCreatedCountRaised() {
+    // given
+    App app = new App(AppProps.builder().context(Map.of("newIndexesCreated", "2")).build());
+    Stack stack = new Stack(app, "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND);
+    // then
+    List<String> indexes = indexNames(stack);
+    assertTrue(indexes.contains("getTypingsByUser"));
+    assertTrue(indexes.contains("getByDateAndType"));
+    assertFalse(indexes.contains("getByStatusAndKickoff"));
+    assertFalse(indexes.contains("getByRecordTypeV2"));
+    assertTrue(indexes.contains("getByDate"));
+  }
+
+  @Test
+  void shouldRefuseToDropRetiredIndex_WhenNewIndexesNotAllCreated() {
+    // given
+    App app =
+        new App(
+            AppProps.builder()
+                .context(Map.of("newIndexesCreated", "3", "retiredIndexesDropped", "1"))
+                .build());
+    Stack stack = new Stack(app, "test");
+    // when, then
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> DynamoDb.createTable(stack, CapacityProfile.ON_DEMAND));
+  }
+
+  @Test
+  void shouldScaleRetiredIndexWritesWithTable_WhenAutoscaledProfile() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    DynamoDb.createTable(stack, CapacityProfile.AUTOSCALED);
+    // then
+    Template.fromStack(stack)
+        .hasResourceProperties(
+            GLOBAL_TABLE,
+            Map.of(
+                "GlobalSecondaryIndexes",
+                Match.arrayWith(
+                    List.of(
+                        Match.objectLike(
+                            Map.of(
+                                "IndexName",
+                                "getBySecondaryId",
+                                "WriteProvisionedThroughputSettings",
+                                Map.of(
+                                    "WriteCapacityAutoScalingSettings", autoscaling(10))))))));
+  }
+
+  @Test
+  void shouldAutoscale_WhenNoProfileInContext() {
+    // given
+    Stack stack = new Stack(new App(), "test");
+    // when
+    CapacityProfile profile = CapacityProfile.fromContext(stack);
+    // then
+    assertEquals(CapacityProfile.AUTOSCALED, profile);
+  }
+
+  @Test
+  void shouldReadProfileFromContext_WhenPassedOnDeploy() {
+    // given
+    App app =
+        new App(AppProps.builder().context(Map.of("capacityProfile", "on_demand")).build());
+    Stack stack = new Stack(app, "test");
+    // when
+    DynamoDb.createTable(stack);
+    // then
+    Template.fromStack(stack)
+        .hasResourceProperties(GLOBAL_TABLE, Map.of("BillingMode", "PAY_PER_REQUEST"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> indexNames(Stack stack) {
+    Map<String, Object> table =
+        Template.fromStack(stack).findResources(GLOBAL_TABLE).values().iterator().next();
+    Map<String, Object> properties = (Map<String, Object>) table.get("Properties");
+    return ((List<Map<String, Object>>) properties.get("GlobalSecondaryIndexes"))
+        .stream().map(index -> (String) index.get("IndexName")).toList();
+  }
+
+  private static Map<String, Object> autoscaling(int maxCapacity) {
+    return Map.of(
+        "MinCapacity",
+        1,
+        "MaxCapacity",
+        maxCapacity,
+        "TargetTrackingScalingPolicyConfiguration",
+        Map.of("TargetValue", DynamoDb.TARGET_UTILIZATION_PERCENT));
+  }
+}
@@ -0,0 +1,149 @@
+package com.mtjworldcup.applytypings;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.model.QueuedTypings;
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Consumer of the typings queue filled by postTypes. Typings of every submission in the batch are
+// applied together in grouped transactions. Within a user's message group the batch keeps the sending
+// order, so a later typing of the same match replaces the earlier one. A typing that waited in the queue
+// past the kickoff of its match, or until the match started or finished, is dropped.
+public class Handler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private static final Logger log = LoggerFactory.getLogger(Handler.class);
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+
+    private final MatchesDao matchesDao;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    public Handler() {
+        this(new MatchesDao(), new ObjectMapper());
+    }
+
+    public Handler(MatchesDao matchesDao, ObjectMapper objectMapper) {
+        this(matchesDao, objectMapper, Clock.system(WARSAW));
+    }
+
+    public Handler(MatchesDao matchesDao, ObjectMapper objectMapper, Clock clock) {
+        this.matchesDao = matchesDao;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
+        List<SQSEvent.SQSMessage> messages = input.getRecords();
+        try {
+            apply(parse(messages));
+            return new SQSBatchResponse(List.of());
+        } catch (NoSuchElementException e) {
+            log.warn("Typings of {} messages reference a missing record, applying them one by one. Cause: {}",
+                    messages.size(), e.getMessage());
+            return applyOneByOne(messages);
+        } catch (Exception e) {
+            log.error("Applying typings of {} messages failed. Cause: {}", messages.size(), e.getMessage());
+            // messages of a FIFO group must not be applied past a failed one, so the whole batch is retried
+            return new SQSBatchResponse(messages.stream()
+                    .map(message -> new SQSBatchResponse.BatchItemFailure(message.getMessageId()))
+                    .toList());
+        }
+    }
+
+    // Typings already written by the grouped attempt are written again unchanged. A message whose match or user
+    // does not exist would fail every retry, it is dropped. After any other failure that message and all the
+    // following ones are retried, so none is applied past it.
+    private SQSBatchResponse applyOneByOne(List<SQSEvent.SQSMessage> messages) {
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : messages) {
+            if (!failures.isEmpty()) {
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                continue;
+            }
+            try {
+                apply(parse(List.of(message)));
+            } catch (NoSuchElementException e) {
+                log.error("Dropping message: {} with typings of a missing record. Cause: {}",
+                        message.getMessageId(), e.getMessage());
+            } catch (Exception e) {
+                log.error("Applying typings of message: {} failed. Cause: {}", message.getMessageId(), e.getMessage());
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+        return new SQSBatchResponse(failures);
+    }
+
+    private void apply(List<QueuedTypings> submissions) {
+        List<String> matchIds = submissions.stream()
+                .flatMap(submission -> submission.typings().stream())
+                .map(QueuedTypings.Typing::matchId)
+                .distinct()
+                .toList();
+        Map<String, Match> matches = matchesDao.getByIds(matchIds);
+        LocalDateTime now = LocalDateTime.now(clock.withZone(WARSAW));
+        List<Match> typings = submissions.stream()
+                .flatMap(submission -> submission.typings().stream()
+                        .map(typing -> toTyping(submission.userId(), typing, matches, now)))
+                .filter(Objects::nonNull)
+                .toList();
+        log.info("Applying {} typings from {} submissions", typings.size(), submissions.size());
+        matchesDao.saveTypingsGrouped(typings);
+    }
+
+    // a message that cannot be read would fail every retry, it is dropped
+    private List<QueuedTypings> parse(List<SQSEvent.SQSMessage> messages) {
+        List<QueuedTypings> submissions = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : messages) {
+            try {
+                submissions.add(objectMapper.readValue(message.getBody(), QueuedTypings.class));
+            } catch (JsonProcessingException e) {
+                log.error("Dropping message: {} that is not a typing submission. Cause: {}",
+                        message.getMessageId(), e.getMessage());
+            }
+        }
+        return submissions;
+    }
+
+    private static Match toTyping(String userId, QueuedTypings.Typing typing, Map<String, Match> matches,
+                                  LocalDateTime now) {
+        Match match = matches.get(typing.matchId());
+        if (match == null) {
+            log.warn("Match: {} of typing by user: {} not found", typing.matchId(), userId);
+            return null;
+        }
+        if (!isOpen(match, now)) {
+            log.warn("Match: {} of typing by user: {} already kicked off, typing dropped", typing.matchId(), userId);
+            return null;
+        }
+        return Match.typing(match, userId, typing.homeScore(), typing.awayScore());
+    }
+
+    // the same kickoff check postTypes made, repeated with the current state of the match
+    private static boolean isOpen(Match match, LocalDateTime now) {
+        if (match.getMatchStatus() != null && match.getMatchStatus() != MatchStatus.SCHEDULED) {
+            return false;
+        }
+        if (match.getDate() == null || match.getStartTime() == null) {
+            return false;
+        }
+        return LocalDateTime.of(match.getDate(), match.getStartTime()).isAfter(now);
+    }
+}
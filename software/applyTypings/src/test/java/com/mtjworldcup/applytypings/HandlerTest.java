@@ -0,0 +1,209 @@
+package com.mtjworldcup.applytypings;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.model.QueuedTypings;
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.RecordType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HandlerTest {
+
+    private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 12:00 in Warsaw on the match day, the matches kick off at 21:00
+    private final Clock clock = Clock.fixed(Instant.parse("2024-06-14T10:00:00Z"), ZoneId.of("Europe/Warsaw"));
+    private final Handler handler = new Handler(mockMatchesDao, objectMapper, clock);
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<List<Match>> typingsCaptor = ArgumentCaptor.forClass(List.class);
+
+    @Test
+    void shouldApplyTypingsOfAllMessagesTogether_WhenBatchReceived() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(List.of("match-1", "match-2")))
+                .thenReturn(Map.of("match-1", prepareMatch("match-1"), "match-2", prepareMatch("match-2")));
+        SQSEvent event = prepareEvent(
+                new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))),
+                new QueuedTypings("user-2", List.of(
+                        new QueuedTypings.Typing("match-1", 2, 2),
+                        new QueuedTypings.Typing("match-2", 0, 3))));
+        //when
+        SQSBatchResponse response = handler.handleRequest(event, null);
+        //then
+        assertEquals(0, response.getBatchItemFailures().size());
+        verify(mockMatchesDao).saveTypingsGrouped(typingsCaptor.capture());
+        List<Match> typings = typingsCaptor.getValue();
+        assertEquals(3, typings.size());
+        assertEquals("user-2", typings.get(2).getSecondaryId());
+        assertEquals(3, typings.get(2).getAwayScore());
+        assertEquals(RecordType.TYPING, typings.get(2).getRecordType());
+    }
+
+    @Test
+    void shouldSkipTyping_WhenMatchNotFound() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        SQSEvent event = prepareEvent(new QueuedTypings("user-1", List.of(
+                new QueuedTypings.Typing("match-1", 1, 0),
+                new QueuedTypings.Typing("unknown", 1, 0))));
+        //when
+        handler.handleRequest(event, null);
+        //then
+        verify(mockMatchesDao).saveTypingsGrouped(typingsCaptor.capture());
+        assertEquals(List.of("match-1"), typingsCaptor.getValue().stream().map(Match::getPrimaryId).toList());
+    }
+
+    @Test
+    void shouldDropTyping_WhenMatchKickedOffWhileQueued() throws Exception {
+        //given
+        Handler lateHandler = new Handler(mockMatchesDao, objectMapper,
+                Clock.fixed(Instant.parse("2024-06-14T19:05:00Z"), ZoneId.of("Europe/Warsaw")));
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        SQSEvent event = prepareEvent(new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))));
+        //when
+        SQSBatchResponse response = lateHandler.handleRequest(event, null);
+        //then
+        assertEquals(0, response.getBatchItemFailures().size());
+        verify(mockMatchesDao).saveTypingsGrouped(typingsCaptor.capture());
+        assertEquals(List.of(), typingsCaptor.getValue());
+    }
+
+    @Test
+    void shouldDropTyping_WhenMatchAlreadyFinished() throws Exception {
+        //given
+        Match finished = prepareMatch("match-2");
+        finished.setMatchStatus(MatchStatus.FINISHED);
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1"), "match-2", finished));
+        SQSEvent event = prepareEvent(new QueuedTypings("user-1", List.of(
+                new QueuedTypings.Typing("match-1", 1, 0),
+                new QueuedTypings.Typing("match-2", 1, 0))));
+        //when
+        handler.handleRequest(event, null);
+        //then
+        verify(mockMatchesDao).saveTypingsGrouped(typingsCaptor.capture());
+        assertEquals(List.of("match-1"), typingsCaptor.getValue().stream().map(Match::getPrimaryId).toList());
+    }
+
+    @Test
+    void shouldDropMessage_WhenBodyIsNotATypingSubmission() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        SQSEvent event = prepareEvent(new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))));
+        SQSEvent.SQSMessage malformed = new SQSEvent.SQSMessage();
+        malformed.setMessageId("malformed");
+        malformed.setBody("not json");
+        event.setRecords(List.of(malformed, event.getRecords().get(0)));
+        //when
+        SQSBatchResponse response = handler.handleRequest(event, null);
+        //then
+        assertEquals(0, response.getBatchItemFailures().size());
+        verify(mockMatchesDao).saveTypingsGrouped(typingsCaptor.capture());
+        assertEquals(1, typingsCaptor.getValue().size());
+    }
+
+    @Test
+    void shouldReportWholeBatchAsFailed_WhenSavingFailed() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        doThrow(new RuntimeException("Throttled")).when(mockMatchesDao).saveTypingsGrouped(any());
+        SQSEvent event = prepareEvent(
+                new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))),
+                new QueuedTypings("user-2", List.of(new QueuedTypings.Typing("match-1", 0, 0))));
+        //when
+        SQSBatchResponse response = handler.handleRequest(event, null);
+        //then
+        assertEquals(List.of("message-0", "message-1"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                .toList());
+    }
+
+    @Test
+    void shouldDropOnlyMessageOfMissingUser_WhenUserNotFound() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        doAnswer(invocation -> {
+            List<Match> typings = invocation.getArgument(0);
+            if (typings.stream().anyMatch(typing -> typing.getSecondaryId().equals("deleted-user"))) {
+                throw new NoSuchElementException("User not found for id: deleted-user");
+            }
+            return null;
+        }).when(mockMatchesDao).saveTypingsGrouped(any());
+        SQSEvent event = prepareEvent(
+                new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))),
+                new QueuedTypings("deleted-user", List.of(new QueuedTypings.Typing("match-1", 0, 0))),
+                new QueuedTypings("user-2", List.of(new QueuedTypings.Typing("match-1", 2, 1))));
+        //when
+        SQSBatchResponse response = handler.handleRequest(event, null);
+        //then
+        assertEquals(0, response.getBatchItemFailures().size());
+        verify(mockMatchesDao, times(4)).saveTypingsGrouped(typingsCaptor.capture());
+        assertEquals(List.of("user-1", "deleted-user", "user-2"), typingsCaptor.getAllValues().subList(1, 4).stream()
+                .map(typings -> typings.get(0).getSecondaryId())
+                .toList());
+    }
+
+    @Test
+    void shouldRetryFailedAndFollowingMessages_WhenSavingFailedAfterMissingUser() throws Exception {
+        //given
+        when(mockMatchesDao.getByIds(any())).thenReturn(Map.of("match-1", prepareMatch("match-1")));
+        doThrow(new NoSuchElementException("User not found for id: deleted-user"))
+                .doNothing()
+                .doThrow(new RuntimeException("Throttled"))
+                .when(mockMatchesDao).saveTypingsGrouped(any());
+        SQSEvent event = prepareEvent(
+                new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 1, 0))),
+                new QueuedTypings("user-2", List.of(new QueuedTypings.Typing("match-1", 0, 0))),
+                new QueuedTypings("user-3", List.of(new QueuedTypings.Typing("match-1", 2, 1))));
+        //when
+        SQSBatchResponse response = handler.handleRequest(event, null);
+        //then
+        assertEquals(List.of("message-1", "message-2"), response.getBatchItemFailures().stream()
+                .map(SQSBatchResponse.BatchItemFailure::getItemIdentifier)
+                .toList());
+    }
+
+    private SQSEvent prepareEvent(QueuedTypings... submissions) throws Exception {
+        SQSEvent event = new SQSEvent();
+        List<SQSEvent.SQSMessage> messages = new ArrayList<>();
+        for (int i = 0; i < submissions.length; i++) {
+            SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+            message.setMessageId("message-" + i);
+            message.setBody(objectMapper.writeValueAsString(submissions[i]));
+            messages.add(message);
+        }
+        event.setRecords(messages);
+        return event;
+    }
+
+    private static Match prepareMatch(String id) {
+        Match match = new Match();
+        match.setPrimaryId(id);
+        match.setSecondaryId(id);
+        match.setDate(LocalDate.of(2024, 6, 14));
+        match.setStartTime(LocalTime.of(21, 0));
+        return match;
+    }
+}
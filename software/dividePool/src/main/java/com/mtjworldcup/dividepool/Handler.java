@@ -2,72 +2,87 @@ package com.mtjworldcup.dividepool;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.mtjworldcup.common.service.ApiCacheService;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
-import com.mtjworldcup.dynamo.model.RecordType;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+// Triggered by the MatchDayFinished event once the last match of a day is settled. Divides the pool
+// carried over to the next match day among its matches. A daily sweep without a date divides the pool
+// after yesterday as well, so a day with a postponed or abandoned match does not keep its pool forever.
+// When the event came first the divided-<day> marker makes the sweep a no-op.
+public class Handler implements RequestHandler<ScheduledEvent, APIGatewayProxyResponseEvent> {
 
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
+    // match dates are stored in polish local time
+    private static final ZoneId MATCH_ZONE = ZoneId.of("Europe/Warsaw");
 
     private final MatchesDao matchesDao;
+    private final ApiCacheService apiCacheService;
+    private final Clock clock;
 
     public Handler() {
-        this.matchesDao = new MatchesDao();
+        this(new MatchesDao(), new ApiCacheService(), Clock.system(MATCH_ZONE));
     }
 
-    public Handler(MatchesDao matchesDao) {
+    public Handler(MatchesDao matchesDao, ApiCacheService apiCacheService) {
+        this(matchesDao, apiCacheService, Clock.system(MATCH_ZONE));
+    }
+
+    public Handler(MatchesDao matchesDao, ApiCacheService apiCacheService, Clock clock) {
         this.matchesDao = matchesDao;
+        this.apiCacheService = apiCacheService;
+        this.clock = clock;
     }
 
     @Override
-    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+    public APIGatewayProxyResponseEvent handleRequest(ScheduledEvent input, Context context) {
         try {
-
-            LocalDate today = LocalDate.now();
-            LocalDate tomorrow = today.plusDays(1);
-            Match tomorrowPool = createTomorrowPool(tomorrow);
-            matchesDao.saveIfNotExists(List.of(tomorrowPool));
-            Optional<Match> todayPool = matchesDao.getPool(today);
-            if (todayPool.isEmpty()) {
-                log.info("No pool to divide");
+            LocalDate finishedDay = finishedDay(input);
+            log.info("Match day: {} finished", finishedDay);
+            Optional<Match> nextPool = matchesDao.getNextPool(finishedDay);
+            if (nextPool.isEmpty()) {
+                log.info("No match day after: {}, no pool to divide", finishedDay);
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(200)
                         .withBody("No pool to divide");
             }
-            BigDecimal pool = todayPool.get().getPool();
-            if(pool.compareTo(BigDecimal.ZERO) == 0) {
+            LocalDate matchDay = nextPool.get().getDate();
+            Money pool = Money.of(nextPool.get().getPool());
+            if(pool.isZero()) {
                 log.info("No pool from previous matches to divide.");
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(200)
                         .withBody("No pool from previous matches to divide.");
             }
-            List<Match> todayMatches = matchesDao.getByDate(today);
-            if(todayMatches.isEmpty()) {
-                log.info("No matches to divide the pool. Adding pool to the next day pool.");
-                matchesDao.getPool(today.plusDays(1)).ifPresent(nextDayPool -> {
-                    nextDayPool.setPool(nextDayPool.getPool().add(pool));
-                    matchesDao.update(nextDayPool);
-                });
+            // only the ids are needed to split the pool
+            List<Match> matches = matchesDao.getByDate(matchDay, List.of("primary_id"));
+            if(matches.isEmpty()) {
+                log.info("No matches on: {} to divide the pool. Keeping it.", matchDay);
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(200)
                         .withBody("No matches to divide the pool.");
             }
-            BigDecimal poolPerMatch = pool.divide(new BigDecimal(todayMatches.size()), 2, RoundingMode.DOWN);
-            todayMatches.forEach(match -> {
-                match.setPool(match.getPool().add(poolPerMatch));
-                matchesDao.update(match);
-            });
+            Optional<String> followingPoolId = matchesDao.getNextPool(matchDay).map(Match::getPrimaryId);
+            List<PoolIncrement> increments = divide(pool, matches, followingPoolId);
+            if (!matchesDao.dividePool(matchDay, pool, increments)) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(200)
+                        .withBody("Pool already divided");
+            }
+            apiCacheService.flushStageCache();
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
                     .withBody("Pool divided successfully");
@@ -79,13 +94,32 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
         }
     }
 
-    private Match createTomorrowPool(LocalDate tomorrow) {
-        Match pool = new Match();
-        pool.setDate(tomorrow);
-        pool.setPool(BigDecimal.ZERO);
-        pool.setPrimaryId("pool-" + tomorrow);
-        pool.setSecondaryId("pool-" + tomorrow);
-        pool.setRecordType(RecordType.POOL);
-        return pool;
+    private LocalDate finishedDay(ScheduledEvent input) {
+        Object date = Optional.ofNullable(input.getDetail()).map(detail -> detail.get("date")).orElse(null);
+        if (date == null) {
+            log.info("Daily sweep, dividing the pool after yesterday");
+            return LocalDate.now(clock.withZone(MATCH_ZONE)).minusDays(1);
+        }
+        return LocalDate.parse(String.valueOf(date));
+    }
+
+    // What is left after rounding down the share of each match is carried forward to the following match day,
+    // on the last match day it goes to the first match.
+    private List<PoolIncrement> divide(Money pool, List<Match> matches, Optional<String> followingPoolId) {
+        Money.Split split = pool.split(matches.size());
+        Money poolPerMatch = split.share();
+        Money remainder = split.remainder();
+        List<PoolIncrement> increments = new ArrayList<>(matches.stream()
+                .map(match -> PoolIncrement.of(match.getPrimaryId(), poolPerMatch))
+                .toList());
+        if (remainder.isPositive()) {
+            log.info("Carrying remainder: {} forward", remainder);
+            if (followingPoolId.isPresent()) {
+                increments.add(PoolIncrement.of(followingPoolId.get(), remainder));
+            } else {
+                increments.set(0, PoolIncrement.of(matches.get(0).getPrimaryId(), poolPerMatch.plus(remainder)));
+            }
+        }
+        return increments;
     }
 }
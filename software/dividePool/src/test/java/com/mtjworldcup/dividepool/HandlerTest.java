@@ -1,8 +1,12 @@
 package com.mtjworldcup.dividepool;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.mtjworldcup.common.service.ApiCacheService;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +15,17 @@ import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,17 +33,28 @@ import static org.mockito.Mockito.when;
 
 class HandlerTest {
 
+    private static final LocalDate FINISHED_DAY = LocalDate.of(2024, 6, 14);
+    private static final LocalDate NEXT_MATCH_DAY = LocalDate.of(2024, 6, 15);
+    private static final LocalDate FOLLOWING_MATCH_DAY = LocalDate.of(2024, 6, 17);
+
     @Captor
-    private ArgumentCaptor<Match> matchCaptor;
+    private ArgumentCaptor<List<PoolIncrement>> incrementsCaptor;
     private AutoCloseable closeable;
 
     private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
+    private final ApiCacheService mockApiCacheService = mock(ApiCacheService.class);
+    private final ScheduledEvent matchDayFinished = new ScheduledEvent()
+            .withDetailType("MatchDayFinished")
+            .withDetail(Map.of("date", FINISHED_DAY.toString()));
     private Handler handler;
 
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
-        handler = new Handler(mockMatchesDao);
+        handler = new Handler(mockMatchesDao, mockApiCacheService);
+        when(mockMatchesDao.dividePool(any(), any(), any())).thenReturn(true);
+        when(mockMatchesDao.getNextPool(NEXT_MATCH_DAY))
+                .thenReturn(Optional.of(preparePool(FOLLOWING_MATCH_DAY, BigDecimal.ZERO)));
     }
 
     @AfterEach
@@ -46,103 +65,143 @@ class HandlerTest {
     @Test
     void shouldSplitThePoolEvenly_WhenThereAreMatchesToBePlayed() {
         //given
-        Match todayPool = new Match();
-        todayPool.setPool(new BigDecimal(100));
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.of(todayPool));
-        Match match1 = new Match();
-        match1.setPool(new BigDecimal(0));
-        Match match2 = new Match();
-        match2.setPool(new BigDecimal(0));
-        when(mockMatchesDao.getByDate(any(LocalDate.class))).thenReturn(List.of(match1, match2));
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(100))));
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id"))).thenReturn(List.of(prepareMatch("match-1"), prepareMatch("match-2")));
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao, times(2)).update(matchCaptor.capture());
-        List<Match> matches = matchCaptor.getAllValues();
-        assertEquals(50, matches.get(0).getPool().intValue());
-        assertEquals(50, matches.get(1).getPool().intValue());
+        verify(mockMatchesDao).dividePool(eq(NEXT_MATCH_DAY), eq(Money.ofZloty(100)), incrementsCaptor.capture());
+        assertEquals(List.of(
+                PoolIncrement.of("match-1", new Money(5000)),
+                PoolIncrement.of("match-2", new Money(5000))), incrementsCaptor.getValue());
+        verify(mockMatchesDao, times(0)).update(any(Match.class));
+        verify(mockApiCacheService).flushStageCache();
     }
 
     @Test
-    void shouldNotInvokeGetByDate_WhenTodayPoolIsEmpty() {
+    void shouldDividePoolAfterYesterday_WhenDailySweepHasNoDate() {
         //given
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.empty());
+        // 06:00 in Warsaw on the day after the finished one
+        Clock clock = Clock.fixed(Instant.parse("2024-06-15T04:00:00Z"), ZoneId.of("Europe/Warsaw"));
+        Handler sweepHandler = new Handler(mockMatchesDao, mockApiCacheService, clock);
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(100))));
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id"))).thenReturn(List.of(prepareMatch("match-1")));
+        ScheduledEvent dailySweep = new ScheduledEvent().withDetailType("Scheduled Event").withDetail(Map.of());
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = sweepHandler.handleRequest(dailySweep, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao, times(0)).getByDate(any(LocalDate.class));
-        verify(mockMatchesDao, times(0)).update(any(Match.class));
+        verify(mockMatchesDao).dividePool(eq(NEXT_MATCH_DAY), eq(Money.ofZloty(100)), any());
     }
 
     @Test
-    void shouldNotInvokeGetByDate_WhenTodayPoolIsZero() {
+    void shouldNotInvokeGetByDate_WhenNoMatchDayAfterFinishedDay() {
         //given
-        Match todayPool = new Match();
-        todayPool.setPool(new BigDecimal(0));
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.of(todayPool));
+        when(mockMatchesDao.getNextPool(FINISHED_DAY)).thenReturn(Optional.empty());
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao, times(0)).getByDate(any(LocalDate.class));
-        verify(mockMatchesDao, times(0)).update(any(Match.class));
+        verify(mockMatchesDao, times(0)).getByDate(any(LocalDate.class), any());
+        verify(mockMatchesDao, times(0)).dividePool(any(), any(), any());
+        verify(mockApiCacheService, times(0)).flushStageCache();
     }
 
     @Test
-    void shouldNotInvokeUpdate_WhenTodayMatchesIsEmpty() {
+    void shouldNotInvokeGetByDate_WhenNextPoolIsZero() {
         //given
-        Match todayPool = new Match();
-        todayPool.setPool(new BigDecimal(100));
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.of(todayPool));
-        when(mockMatchesDao.getByDate(LocalDate.now())).thenReturn(List.of());
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, BigDecimal.ZERO)));
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao, times(0)).update(any(Match.class));
+        verify(mockMatchesDao, times(0)).getByDate(any(LocalDate.class), any());
+        verify(mockMatchesDao, times(0)).dividePool(any(), any(), any());
     }
 
     @Test
-    void shouldRoundPoolPerMatchDown_WhenPoolIsNotEvenlyDivided() {
+    void shouldCarryRemainderToFollowingMatchDay_WhenPoolIsNotEvenlyDivided() {
         //given
-        Match todayPool = new Match();
-        todayPool.setPool(new BigDecimal(200));
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.of(todayPool));
-        Match match1 = new Match();
-        match1.setPool(new BigDecimal(0));
-        Match match2 = new Match();
-        match2.setPool(new BigDecimal(0));
-        Match match3 = new Match();
-        match3.setPool(new BigDecimal(0));
-        when(mockMatchesDao.getByDate(any(LocalDate.class))).thenReturn(List.of(match1, match2, match3));
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(200))));
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id")))
+                .thenReturn(List.of(prepareMatch("match-1"), prepareMatch("match-2"), prepareMatch("match-3")));
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao, times(3)).update(matchCaptor.capture());
-        List<Match> matches = matchCaptor.getAllValues();
-        assertEquals(new BigDecimal(66.66, new MathContext(4)), matches.get(0).getPool());
-        assertEquals(new BigDecimal(66.66, new MathContext(4)), matches.get(1).getPool());
-        assertEquals(new BigDecimal(66.66, new MathContext(4)), matches.get(2).getPool());
+        verify(mockMatchesDao).dividePool(eq(NEXT_MATCH_DAY), eq(Money.ofZloty(200)), incrementsCaptor.capture());
+        assertEquals(List.of(
+                PoolIncrement.of("match-1", new Money(6666)),
+                PoolIncrement.of("match-2", new Money(6666)),
+                PoolIncrement.of("match-3", new Money(6666)),
+                PoolIncrement.of("pool-2024-06-17", new Money(2))),
+                incrementsCaptor.getValue());
+    }
+
+    @Test
+    void shouldGiveRemainderToFirstMatch_WhenNoFollowingMatchDay() {
+        //given
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(100))));
+        when(mockMatchesDao.getNextPool(NEXT_MATCH_DAY)).thenReturn(Optional.empty());
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id")))
+                .thenReturn(List.of(prepareMatch("match-1"), prepareMatch("match-2"), prepareMatch("match-3")));
+        //when
+        handler.handleRequest(matchDayFinished, null);
+        //then
+        verify(mockMatchesDao).dividePool(eq(NEXT_MATCH_DAY), eq(Money.ofZloty(100)), incrementsCaptor.capture());
+        assertEquals(List.of(
+                PoolIncrement.of("match-1", new Money(3334)),
+                PoolIncrement.of("match-2", new Money(3333)),
+                PoolIncrement.of("match-3", new Money(3333))),
+                incrementsCaptor.getValue());
     }
 
     @Test
-    void shouldAddPoolToNextDayPool_WhenNoMatchesToday() {
+    void shouldNotFlushCache_WhenPoolAlreadyDivided() {
         //given
-        Match todayPool = new Match();
-        todayPool.setPool(new BigDecimal(100));
-        when(mockMatchesDao.getPool(LocalDate.now())).thenReturn(Optional.of(todayPool));
-        when(mockMatchesDao.getByDate(LocalDate.now())).thenReturn(List.of());
-        Match nextDayPool = new Match();
-        nextDayPool.setPool(new BigDecimal(0));
-        when(mockMatchesDao.getPool(LocalDate.now().plusDays(1))).thenReturn(Optional.of(nextDayPool));
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(100))));
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id"))).thenReturn(List.of(prepareMatch("match-1")));
+        when(mockMatchesDao.dividePool(any(), any(), any())).thenReturn(false);
         //when
-        APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
         //then
         assertEquals(200, response.getStatusCode());
-        verify(mockMatchesDao).update(nextDayPool);
-        assertEquals(100, nextDayPool.getPool().intValue());
+        assertEquals("Pool already divided", response.getBody());
+        verify(mockApiCacheService, times(0)).flushStageCache();
+    }
+
+    @Test
+    void shouldReturn500_WhenDivisionTransactionFails() {
+        //given
+        when(mockMatchesDao.getNextPool(FINISHED_DAY))
+                .thenReturn(Optional.of(preparePool(NEXT_MATCH_DAY, new BigDecimal(100))));
+        when(mockMatchesDao.getByDate(NEXT_MATCH_DAY, List.of("primary_id"))).thenReturn(List.of(prepareMatch("match-1")));
+        when(mockMatchesDao.dividePool(any(), any(), any())).thenThrow(new RuntimeException("Transaction cancelled"));
+        //when
+        APIGatewayProxyResponseEvent response = handler.handleRequest(matchDayFinished, null);
+        //then
+        assertEquals(500, response.getStatusCode());
+        verify(mockApiCacheService, times(0)).flushStageCache();
+    }
+
+    private static Match preparePool(LocalDate date, BigDecimal amount) {
+        Match pool = Match.emptyPool(date);
+        pool.setPool(amount);
+        return pool;
+    }
+
+    private static Match prepareMatch(String id) {
+        Match match = new Match();
+        match.setPrimaryId(id);
+        match.setSecondaryId(id);
+        match.setPool(new BigDecimal(0));
+        return match;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.mtjworldcup.dynamo.cache;
+
+import java.time.Duration;
+
+public record CachePolicy(
+    int maxSize,
+    Duration byIdTtl,
+    Duration byDateTtl,
+    Duration poolTtl,
+    Duration finishedMatchesTtl) {
+
+  public static CachePolicy defaults() {
+    return new CachePolicy(
+        500,
+        Duration.ofSeconds(30),
+        Duration.ofSeconds(30),
+        Duration.ofSeconds(30),
+        Duration.ofMinutes(5));
+  }
+}
@@ -0,0 +1,83 @@
+package com.mtjworldcup.dynamo.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class LruCache<K, V> {
+
+  private final int maxSize;
+  private final Clock clock;
+  private final Map<K, Entry<V>> entries;
+  private long hits;
+  private long misses;
+
+  public LruCache(int maxSize) {
+    this(maxSize, Clock.systemUTC());
+  }
+
+  public LruCache(int maxSize, Clock clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Cache size has to be positive, was: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > LruCache.this.maxSize;
+          }
+        };
+  }
+
+  public synchronized Optional<V> get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null || entry.isExpired(clock.instant())) {
+      if (entry != null) {
+        entries.remove(key);
+      }
+      misses++;
+      return Optional.empty();
+    }
+    hits++;
+    return Optional.of(entry.value());
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, new Entry<>(value, null));
+  }
+
+  public synchronized void put(K key, V value, Duration ttl) {
+    entries.put(key, new Entry<>(value, clock.instant().plus(ttl)));
+  }
+
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  private record Entry<V>(V value, Instant expiresAt) {
+    boolean isExpired(Instant now) {
+      return expiresAt != null && !now.isBefore(expiresAt);
+    }
+  }
+}
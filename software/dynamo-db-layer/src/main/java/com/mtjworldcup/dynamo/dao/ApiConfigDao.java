@@ -0,0 +1,228 @@
+package com.mtjworldcup.dynamo.dao;
+
+import static software.amazon.awssdk.regions.Region.EU_CENTRAL_1;
+
+import com.mtjworldcup.common.client.RateLimit;
+import com.mtjworldcup.common.client.RequestBudget;
+import com.mtjworldcup.common.client.RequestPriority;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+// Football api settings kept in the matches table: the cached current season and token buckets for
+// the api quota, one item per UTC day and one per minute. Items expire through the table TTL on
+// expires_at. Quota resets at midnight UTC on RapidAPI side.
+public class ApiConfigDao implements RequestBudget {
+
+  private static final Logger log = LoggerFactory.getLogger(ApiConfigDao.class);
+
+  private static final String QUOTA_PREFIX = "quota-football-api-";
+  private static final String SEASON_PREFIX = "config-current-season-";
+  private static final Duration SEASON_TTL = Duration.ofDays(30);
+  private static final DateTimeFormatter DAY_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+  private static final DateTimeFormatter MINUTE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm").withZone(ZoneOffset.UTC);
+  private static final int DEFAULT_DAILY_LIMIT = 100;
+  private static final int DEFAULT_MINUTE_LIMIT = 10;
+  private static final int DEFAULT_FIXTURES_RESERVE = 20;
+
+  private final DynamoDbClient dynamoClient;
+  private final Clock clock;
+
+  public ApiConfigDao() {
+    boolean isLocal = System.getenv("AWS_SAM_LOCAL") != null;
+    this.dynamoClient = prepareClient(isLocal);
+    this.clock = Clock.systemUTC();
+  }
+
+  public ApiConfigDao(DynamoDbClient dynamoClient, Clock clock) {
+    this.dynamoClient = dynamoClient;
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean tryAcquire(RequestPriority priority) {
+    Instant now = clock.instant();
+    int dailyReserve =
+        priority == RequestPriority.LIVE
+            ? 0
+            : envInt("FOOTBALL_API_FIXTURES_RESERVE", DEFAULT_FIXTURES_RESERVE);
+    try {
+      dynamoClient.transactWriteItems(
+          builder ->
+              builder.transactItems(
+                  TransactWriteItem.builder()
+                      .update(
+                          take(
+                              dayBucket(now),
+                              envInt("FOOTBALL_API_DAILY_LIMIT", DEFAULT_DAILY_LIMIT),
+                              dailyReserve,
+                              dayExpiry(now)))
+                      .build(),
+                  TransactWriteItem.builder()
+                      .update(
+                          take(
+                              minuteBucket(now),
+                              envInt("FOOTBALL_API_MINUTE_LIMIT", DEFAULT_MINUTE_LIMIT),
+                              0,
+                              minuteExpiry(now)))
+                      .build()));
+      return true;
+    } catch (TransactionCanceledException e) {
+      boolean quotaExhausted =
+          e.cancellationReasons().stream()
+              .map(CancellationReason::code)
+              .anyMatch("ConditionalCheckFailed"::equals);
+      if (!quotaExhausted) {
+        throw e;
+      }
+      log.warn("Football api quota exhausted for priority: {}", priority);
+      return false;
+    }
+  }
+
+  // Remaining counts reported by the api win over the local count, they include calls made
+  // outside of this application and quota resets.
+  @Override
+  public void sync(RateLimit rateLimit) {
+    Instant now = clock.instant();
+    Optional.ofNullable(rateLimit.dailyRemaining())
+        .ifPresent(remaining -> set(dayBucket(now), remaining, dayExpiry(now)));
+    Optional.ofNullable(rateLimit.minuteRemaining())
+        .ifPresent(remaining -> set(minuteBucket(now), remaining, minuteExpiry(now)));
+  }
+
+  public Optional<Integer> getRemainingDailyRequests() {
+    Map<String, AttributeValue> item =
+        dynamoClient
+            .getItem(
+                builder ->
+                    builder
+                        .tableName(tableName())
+                        .key(key(dayBucket(clock.instant())))
+                        .consistentRead(true))
+            .item();
+    return Optional.ofNullable(item)
+        .map(attributes -> attributes.get("tokens"))
+        .map(tokens -> Integer.parseInt(tokens.n()));
+  }
+
+  public Optional<Integer> getCurrentSeason(int leagueId) {
+    Map<String, AttributeValue> item =
+        dynamoClient
+            .getItem(builder -> builder.tableName(tableName()).key(key(seasonConfig(leagueId))))
+            .item();
+    long now = clock.instant().getEpochSecond();
+    // the TTL sweeper removes expired items up to a couple of days late
+    return Optional.ofNullable(item)
+        .filter(attributes -> attributes.containsKey("season"))
+        .filter(attributes -> Long.parseLong(attributes.get("expires_at").n()) > now)
+        .map(attributes -> Integer.parseInt(attributes.get("season").n()));
+  }
+
+  public void saveCurrentSeason(int leagueId, int season) {
+    long expiresAt = clock.instant().plus(SEASON_TTL).getEpochSecond();
+    dynamoClient.putItem(
+        builder ->
+            builder
+                .tableName(tableName())
+                .item(
+                    Map.of(
+                        "primary_id", AttributeValue.builder().s(seasonConfig(leagueId)).build(),
+                        "secondary_id", AttributeValue.builder().s(seasonConfig(leagueId)).build(),
+                        "season", number(season),
+                        "expires_at", number(expiresAt))));
+    log.info("Current season: {} cached for league: {}", season, leagueId);
+  }
+
+  private Update take(String bucket, int limit, int reserve, long expiresAt) {
+    return Update.builder()
+        .tableName(tableName())
+        .key(key(bucket))
+        .updateExpression(
+            "SET tokens = if_not_exists(tokens, :limit) - :one,"
+                + " expires_at = if_not_exists(expires_at, :expiresAt)")
+        .conditionExpression("attribute_not_exists(tokens) OR tokens > :reserve")
+        .expressionAttributeValues(
+            Map.of(
+                ":limit", number(limit),
+                ":one", number(1),
+                ":reserve", number(reserve),
+                ":expiresAt", number(expiresAt)))
+        .build();
+  }
+
+  private void set(String bucket, int remaining, long expiresAt) {
+    dynamoClient.updateItem(
+        UpdateItemRequest.builder()
+            .tableName(tableName())
+            .key(key(bucket))
+            .updateExpression(
+                "SET tokens = :remaining, expires_at = if_not_exists(expires_at, :expiresAt)")
+            .expressionAttributeValues(
+                Map.of(":remaining", number(remaining), ":expiresAt", number(expiresAt)))
+            .build());
+  }
+
+  private static String seasonConfig(int leagueId) {
+    return SEASON_PREFIX + leagueId;
+  }
+
+  private static String dayBucket(Instant now) {
+    return QUOTA_PREFIX + DAY_FORMATTER.format(now);
+  }
+
+  private static String minuteBucket(Instant now) {
+    return QUOTA_PREFIX + MINUTE_FORMATTER.format(now);
+  }
+
+  private static long dayExpiry(Instant now) {
+    return now.truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(2)).getEpochSecond();
+  }
+
+  private static long minuteExpiry(Instant now) {
+    return now.truncatedTo(ChronoUnit.MINUTES).plus(Duration.ofMinutes(2)).getEpochSecond();
+  }
+
+  private static Map<String, AttributeValue> key(String id) {
+    return Map.of(
+        "primary_id", AttributeValue.builder().s(id).build(),
+        "secondary_id", AttributeValue.builder().s(id).build());
+  }
+
+  private static AttributeValue number(long value) {
+    return AttributeValue.builder().n(Long.toString(value)).build();
+  }
+
+  private static int envInt(String name, int defaultValue) {
+    return Optional.ofNullable(System.getenv(name)).map(Integer::parseInt).orElse(defaultValue);
+  }
+
+  private static String tableName() {
+    return System.getenv("MATCHES_TABLE_NAME");
+  }
+
+  private DynamoDbClient prepareClient(boolean isLocal) {
+    DynamoDbClientBuilder builder = DynamoDbClient.builder().region(EU_CENTRAL_1);
+    return isLocal
+        ? builder.endpointOverride(URI.create("http://local-ddb:8000")).build()
+        : builder.build();
+  }
+}
@@ -0,0 +1,332 @@
+package com.mtjworldcup.dynamo.dao;
+
+import com.mtjworldcup.dynamo.cache.CachePolicy;
+import com.mtjworldcup.dynamo.cache.LruCache;
+import com.mtjworldcup.dynamo.model.BulkWriteResult;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
+import com.mtjworldcup.dynamo.model.SyncResult;
+import com.mtjworldcup.dynamo.model.TypingRecord;
+import com.mtjworldcup.dynamo.model.UserRecord;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
+
+// Returned records are shared between invocations, callers must not modify them.
+@SuppressWarnings("unchecked")
+public class CachingMatchesDao implements MatchesRepository {
+
+  private static final String FINISHED_MATCHES_KEY = "getFinishedMatches";
+
+  private final MatchesRepository delegate;
+  private final CachePolicy policy;
+  private final Clock clock;
+  private final LruCache<String, Object> cache;
+
+  public CachingMatchesDao(MatchesRepository delegate) {
+    this(delegate, CachePolicy.defaults(), Clock.systemDefaultZone());
+  }
+
+  public CachingMatchesDao(MatchesRepository delegate, CachePolicy policy, Clock clock) {
+    this.delegate = delegate;
+    this.policy = policy;
+    this.clock = clock;
+    this.cache = new LruCache<>(policy.maxSize(), clock);
+  }
+
+  @Override
+  public List<Match> getFinishedMatches() {
+    Optional<Object> hit = cache.get(FINISHED_MATCHES_KEY);
+    if (hit.isPresent()) {
+      return (List<Match>) hit.get();
+    }
+    List<Match> finishedMatches = delegate.getFinishedMatches();
+    cache.put(FINISHED_MATCHES_KEY, finishedMatches, policy.finishedMatchesTtl());
+    return finishedMatches;
+  }
+
+  // polled to detect state changes, so never served from the cache
+  @Override
+  public List<Match> getUnfinishedMatchesBetween(LocalDateTime from, LocalDateTime to) {
+    return delegate.getUnfinishedMatchesBetween(from, to);
+  }
+
+  @Override
+  public List<Match> getByDate(LocalDate matchDay) {
+    String key = byDateKey(matchDay);
+    Optional<Object> hit = cache.get(key);
+    if (hit.isPresent()) {
+      return (List<Match>) hit.get();
+    }
+    List<Match> matches = delegate.getByDate(matchDay);
+    boolean allFinished =
+        matches.stream().allMatch(match -> match.getMatchStatus() == MatchStatus.FINISHED);
+    if (isPast(matchDay) && allFinished) {
+      cache.put(key, matches);
+    } else {
+      cache.put(key, matches, policy.byDateTtl());
+    }
+    return matches;
+  }
+
+  // partial matches are not cached, they would be served to callers expecting full ones
+  @Override
+  public List<Match> getByDate(LocalDate matchDay, Collection<String> attributes) {
+    return delegate.getByDate(matchDay, attributes);
+  }
+
+  @Override
+  public Optional<Match> getPool(LocalDate poolDate) {
+    String key = poolKey(poolDate);
+    Optional<Object> hit = cache.get(key);
+    if (hit.isPresent()) {
+      return (Optional<Match>) hit.get();
+    }
+    Optional<Match> pool = delegate.getPool(poolDate);
+    if (isPast(poolDate)) {
+      cache.put(key, pool);
+    } else {
+      cache.put(key, pool, policy.poolTtl());
+    }
+    return pool;
+  }
+
+  @Override
+  public Optional<List<Match>> getSnapshot(LocalDate matchDay) {
+    String key = snapshotKey(matchDay);
+    Optional<Object> hit = cache.get(key);
+    if (hit.isPresent()) {
+      return Optional.of((List<Match>) hit.get());
+    }
+    Optional<List<Match>> snapshot = delegate.getSnapshot(matchDay);
+    snapshot.ifPresent(matches -> cache.put(key, matches));
+    return snapshot;
+  }
+
+  @Override
+  public void saveSnapshot(LocalDate matchDay, List<Match> matches) {
+    delegate.saveSnapshot(matchDay, matches);
+  }
+
+  @Override
+  public Match getById(String id) {
+    String key = byIdKey(id);
+    Optional<Object> hit = cache.get(key);
+    if (hit.isPresent()) {
+      return (Match) hit.get();
+    }
+    Match match = delegate.getById(id);
+    if (match == null) {
+      return null;
+    }
+    if (match.getMatchStatus() == MatchStatus.FINISHED) {
+      cache.put(key, match);
+    } else {
+      cache.put(key, match, policy.byIdTtl());
+    }
+    return match;
+  }
+
+  // only the ids missing in the cache are read, in one batch
+  @Override
+  public Map<String, Match> getByIds(List<String> ids) {
+    Map<String, Match> matches = new HashMap<>();
+    List<String> misses = new ArrayList<>();
+    for (String id : ids) {
+      cache.get(byIdKey(id)).ifPresentOrElse(
+          hit -> matches.put(id, (Match) hit), () -> misses.add(id));
+    }
+    if (misses.isEmpty()) {
+      return matches;
+    }
+    delegate
+        .getByIds(misses)
+        .forEach(
+            (id, match) -> {
+              if (match.getMatchStatus() == MatchStatus.FINISHED) {
+                cache.put(byIdKey(id), match);
+              } else {
+                cache.put(byIdKey(id), match, policy.byIdTtl());
+              }
+              matches.put(id, match);
+            });
+    return matches;
+  }
+
+  @Override
+  public Match getTodayPool() {
+    return getPool(LocalDate.now(clock))
+        .orElseThrow(() -> new NoSuchElementException("Today pool not found!"));
+  }
+
+  @Override
+  public BulkWriteResult saveIfNotExists(List<Match> filteredEntities) {
+    BulkWriteResult result = delegate.saveIfNotExists(filteredEntities);
+    filteredEntities.forEach(this::invalidate);
+    return result;
+  }
+
+  // a rescheduled match leaves a stale entry under its previous date
+  @Override
+  public SyncResult syncFixtures(List<Match> fixtures) {
+    SyncResult result = delegate.syncFixtures(fixtures);
+    cache.invalidateAll();
+    return result;
+  }
+
+  @Override
+  public void saveTypings(List<Match> typings) {
+    delegate.saveTypings(typings);
+    if (typings != null) {
+      typings.forEach(
+          typing -> {
+            invalidate(typing);
+            cache.invalidate(byIdKey(typing.getSecondaryId()));
+          });
+    }
+  }
+
+  @Override
+  public void saveTypingsGrouped(List<Match> typings) {
+    delegate.saveTypingsGrouped(typings);
+    if (typings != null) {
+      typings.forEach(
+          typing -> {
+            invalidate(typing);
+            cache.invalidate(byIdKey(typing.getSecondaryId()));
+          });
+    }
+  }
+
+  @Override
+  public void update(Match entity) {
+    delegate.update(entity);
+    invalidate(entity);
+  }
+
+  @Override
+  public boolean updateLiveState(Match match) {
+    boolean updated = delegate.updateLiveState(match);
+    invalidate(match);
+    return updated;
+  }
+
+  // an increment only carries the id, the date keyed entries holding the record are unknown
+  @Override
+  public void addToPool(String id, Money delta) {
+    delegate.addToPool(id, delta);
+    cache.invalidateAll();
+  }
+
+  @Override
+  public Optional<Match> getNextPool(LocalDate day) {
+    return delegate.getNextPool(day);
+  }
+
+  @Override
+  public Set<String> markSettled(LocalDate day, String matchId) {
+    return delegate.markSettled(day, matchId);
+  }
+
+  @Override
+  public boolean dividePool(LocalDate day, Money pool, List<PoolIncrement> increments) {
+    boolean divided = delegate.dividePool(day, pool, increments);
+    cache.invalidateAll();
+    return divided;
+  }
+
+  @Override
+  public void updateEndpointArn(String userId, String endpointArn) {
+    delegate.updateEndpointArn(userId, endpointArn);
+    cache.invalidate(byIdKey(userId));
+  }
+
+  @Override
+  public boolean transactWriteItems(
+      List<TransactUpdateItemEnhancedRequest<Match>> updateRequests,
+      List<TransactPutItemEnhancedRequest<Match>> putRequests,
+      List<PoolIncrement> increments) {
+    boolean written = delegate.transactWriteItems(updateRequests, putRequests, increments);
+    cache.invalidateAll();
+    return written;
+  }
+
+  @Override
+  public List<Match> getTypingsByUserId(String userId) {
+    return delegate.getTypingsByUserId(userId);
+  }
+
+  @Override
+  public List<Match> getTypingsByMatchId(String matchId) {
+    return delegate.getTypingsByMatchId(matchId);
+  }
+
+  @Override
+  public List<TypingRecord> getTypingRecords() {
+    return delegate.getTypingRecords();
+  }
+
+  @Override
+  public List<UserRecord> getUserRecords() {
+    return delegate.getUserRecords();
+  }
+
+  @Override
+  public List<Match> getMessagesByUserId(String userId) {
+    return delegate.getMessagesByUserId(userId);
+  }
+
+  @Override
+  public Match getByCombinedKey(String primaryId, String secondaryId) {
+    return delegate.getByCombinedKey(primaryId, secondaryId);
+  }
+
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  private boolean isPast(LocalDate date) {
+    return date.isBefore(LocalDate.now(clock));
+  }
+
+  private void invalidate(Match entity) {
+    cache.invalidate(byIdKey(entity.getPrimaryId()));
+    if (entity.getDate() != null) {
+      cache.invalidate(byDateKey(entity.getDate()));
+      cache.invalidate(poolKey(entity.getDate()));
+    }
+    cache.invalidate(FINISHED_MATCHES_KEY);
+  }
+
+  private static String byIdKey(String id) {
+    return "getById:" + id;
+  }
+
+  private static String byDateKey(LocalDate date) {
+    return "getByDate:" + date;
+  }
+
+  private static String poolKey(LocalDate date) {
+    return "getPool:" + date;
+  }
+
+  private static String snapshotKey(LocalDate date) {
+    return "getSnapshot:" + date;
+  }
+}
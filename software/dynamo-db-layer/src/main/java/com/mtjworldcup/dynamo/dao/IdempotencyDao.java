@@ -0,0 +1,112 @@
+package com.mtjworldcup.dynamo.dao;
+
+import static software.amazon.awssdk.regions.Region.EU_CENTRAL_1;
+
+import com.mtjworldcup.dynamo.model.IdempotentResponse;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+// Responses to requests sent with an idempotency key, kept in the matches table so a retried
+// request is answered with a single read. Keys are scoped to the user. Items expire through the
+// table TTL on expires_at.
+public class IdempotencyDao {
+
+  private static final Logger log = LoggerFactory.getLogger(IdempotencyDao.class);
+
+  private static final String IDEMPOTENCY_PREFIX = "idempotency-";
+  private static final Duration RESPONSE_TTL = Duration.ofHours(24);
+
+  private final DynamoDbClient dynamoClient;
+  private final Clock clock;
+
+  public IdempotencyDao() {
+    boolean isLocal = System.getenv("AWS_SAM_LOCAL") != null;
+    this.dynamoClient = prepareClient(isLocal);
+    this.clock = Clock.systemUTC();
+  }
+
+  public IdempotencyDao(DynamoDbClient dynamoClient, Clock clock) {
+    this.dynamoClient = dynamoClient;
+    this.clock = clock;
+  }
+
+  public Optional<IdempotentResponse> getResponse(String userId, String idempotencyKey) {
+    Map<String, AttributeValue> item =
+        dynamoClient
+            .getItem(
+                builder ->
+                    builder
+                        .tableName(tableName())
+                        .key(key(recordId(userId, idempotencyKey)))
+                        .consistentRead(true))
+            .item();
+    long now = clock.instant().getEpochSecond();
+    // the TTL sweeper removes expired items up to a couple of days late
+    return Optional.ofNullable(item)
+        .filter(attributes -> attributes.containsKey("status_code"))
+        .filter(attributes -> Long.parseLong(attributes.get("expires_at").n()) > now)
+        .map(
+            attributes ->
+                new IdempotentResponse(
+                    Integer.parseInt(attributes.get("status_code").n()),
+                    Optional.ofNullable(attributes.get("body")).map(AttributeValue::s).orElse(null),
+                    attributes.get("request_hash").s()));
+  }
+
+  // The first stored response wins, a concurrent request with the same key does not overwrite it.
+  public void saveResponse(String userId, String idempotencyKey, IdempotentResponse response) {
+    String id = recordId(userId, idempotencyKey);
+    Map<String, AttributeValue> item = new HashMap<>(key(id));
+    item.put("status_code", number(response.statusCode()));
+    item.put("request_hash", AttributeValue.builder().s(response.requestHash()).build());
+    item.put("expires_at", number(clock.instant().plus(RESPONSE_TTL).getEpochSecond()));
+    if (response.body() != null) {
+      item.put("body", AttributeValue.builder().s(response.body()).build());
+    }
+    try {
+      dynamoClient.putItem(
+          builder ->
+              builder
+                  .tableName(tableName())
+                  .item(item)
+                  .conditionExpression("attribute_not_exists(primary_id)"));
+    } catch (ConditionalCheckFailedException e) {
+      log.info("Response for: {} already stored", id);
+    }
+  }
+
+  private static String recordId(String userId, String idempotencyKey) {
+    return IDEMPOTENCY_PREFIX + userId + "-" + idempotencyKey;
+  }
+
+  private static Map<String, AttributeValue> key(String id) {
+    return Map.of(
+        "primary_id", AttributeValue.builder().s(id).build(),
+        "secondary_id", AttributeValue.builder().s(id).build());
+  }
+
+  private static AttributeValue number(long value) {
+    return AttributeValue.builder().n(Long.toString(value)).build();
+  }
+
+  private static String tableName() {
+    return System.getenv("MATCHES_TABLE_NAME");
+  }
+
+  private DynamoDbClient prepareClient(boolean isLocal) {
+    DynamoDbClientBuilder builder = DynamoDbClient.builder().region(EU_CENTRAL_1);
+    return isLocal
+        ? builder.endpointOverride(URI.create("http://local-ddb:8000")).build()
+        : builder.build();
+  }
+}
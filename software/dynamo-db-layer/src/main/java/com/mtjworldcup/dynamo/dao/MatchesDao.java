@@ -2,16 +2,40 @@ package com.mtjworldcup.dynamo.dao;
 
 import static software.amazon.awssdk.regions.Region.EU_CENTRAL_1;
 
+import com.mtjworldcup.dynamo.model.BulkWriteResult;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.MatchesSnapshot;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
 import com.mtjworldcup.dynamo.model.RecordType;
+import com.mtjworldcup.dynamo.model.SyncResult;
+import com.mtjworldcup.dynamo.model.TableRecord;
+import com.mtjworldcup.dynamo.model.TypingRecord;
+import com.mtjworldcup.dynamo.model.UserRecord;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.*;
@@ -19,127 +43,285 @@ import software.amazon.awssdk.enhanced.dynamodb.model.*;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
 import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.dax.ClusterDaxClient;
+import software.amazon.dax.Configuration;
 
-public class MatchesDao {
+public class MatchesDao implements MatchesRepository {
 
   private static final Logger log = LoggerFactory.getLogger(MatchesDao.class);
 
-  private static final String GET_BY_SECONDARY_ID_INDEX = "getBySecondaryId";
-  private static final String GET_BY_DATE_INDEX = "getByDate";
-  private static final String GET_BY_RECORD_TYPE_INDEX = "getByRecordType";
+  private static final String GET_TYPINGS_BY_USER_INDEX = "getTypingsByUser";
+  private static final String GET_BY_DATE_AND_TYPE_INDEX = "getByDateAndType";
+  private static final String GET_BY_RECORD_TYPE_INDEX = "getByRecordTypeV2";
+  private static final String GET_BY_STATUS_AND_KICKOFF_INDEX = "getByStatusAndKickoff";
+  private static final String MESSAGE_PREFIX = "message-";
+  private static final String DIVIDED_PREFIX = "divided-";
+  private static final String SETTLED_PREFIX = "settled-";
+  private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+  private static final int BATCH_GET_LIMIT = 100;
+  private static final int BATCH_WRITE_LIMIT = 25;
+  private static final int MAX_BATCH_ATTEMPTS = 5;
+  private static final int MAX_WRITE_CONCURRENCY = 8;
+  private static final int MAX_TRANSACTION_ITEMS = 100;
+  private static final Duration MARKER_TTL = Duration.ofDays(30);
+  private static final Money TYPING_STAKE = Money.ofZloty(1);
+  // well above the longest break between two match days of a tournament
+  private static final int NEXT_POOL_HORIZON_DAYS = 31;
 
   private final DynamoDbClient dynamoClient;
   private final DynamoDbEnhancedClient enhancedClient;
+  // Hot reads of matches, users and pools. Goes through DAX when DAX_ENDPOINT is set, which is
+  // eventually consistent and not invalidated by writes of other functions. Writes, transactions
+  // and every read a write depends on stay on enhancedClient.
+  private final DynamoDbEnhancedClient cachedReadClient;
+  // Kept for the life of the DAO, so warm invocations reuse its threads. They are started on first
+  // use and are daemons, an idle pool never keeps the JVM alive.
+  private final ExecutorService writeExecutor =
+      Executors.newFixedThreadPool(
+          MAX_WRITE_CONCURRENCY,
+          task -> {
+            Thread thread = new Thread(task, "matches-dao-write");
+            thread.setDaemon(true);
+            return thread;
+          });
 
   public MatchesDao() {
     boolean isLocal = System.getenv("AWS_SAM_LOCAL") != null;
     this.dynamoClient = prepareClient(isLocal);
     this.enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoClient).build();
+    String daxEndpoint = System.getenv("DAX_ENDPOINT");
+    this.cachedReadClient =
+        daxEndpoint == null || isLocal
+            ? enhancedClient
+            : DynamoDbEnhancedClient.builder().dynamoDbClient(prepareDaxClient(daxEndpoint)).build();
   }
 
   public MatchesDao(DynamoDbClient dynamoClient, DynamoDbEnhancedClient enhancedClient) {
+    this(dynamoClient, enhancedClient, enhancedClient);
+  }
+
+  public MatchesDao(
+      DynamoDbClient dynamoClient,
+      DynamoDbEnhancedClient enhancedClient,
+      DynamoDbEnhancedClient cachedReadClient) {
     this.dynamoClient = dynamoClient;
     this.enhancedClient = enhancedClient;
+    this.cachedReadClient = cachedReadClient;
   }
 
+  @Override
   public List<Match> getFinishedMatches() {
     DynamoDbTable<Match> matchesTable = getMatchTable();
     return matchesTable
-        .index(GET_BY_RECORD_TYPE_INDEX)
+        .index(GET_BY_STATUS_AND_KICKOFF_INDEX)
         .query(
             QueryEnhancedRequest.builder()
                 .queryConditional(
                     QueryConditional.keyEqualTo(
-                        Key.builder().partitionValue(RecordType.MATCH.name()).build()))
-                .filterExpression(
-                    Expression.builder()
-                        .expression("#matchStatus = :matchStatus")
-                        .putExpressionName("#matchStatus", "match_status")
-                        .putExpressionValue(
-                            ":matchStatus",
-                            AttributeValue.builder().s(MatchStatus.FINISHED.name()).build())
-                        .build())
+                        Key.builder().partitionValue(MatchStatus.FINISHED.name()).build()))
+                .scanIndexForward(false)
                 .build())
         .stream()
         .flatMap(page -> page.items().stream())
         .toList();
   }
 
+  @Override
+  public List<Match> getUnfinishedMatchesBetween(LocalDateTime from, LocalDateTime to) {
+    log.debug("Getting unfinished matches kicking off between: {} and {}", from, to);
+    return Stream.of(MatchStatus.IN_PROGRESS, MatchStatus.SCHEDULED)
+        .flatMap(status -> getByStatusBetween(status, from, to).stream())
+        .toList();
+  }
+
+  @Override
   public List<Match> getByDate(LocalDate matchDay) {
+    return getByDate(matchDay, List.of());
+  }
+
+  // Only the given attributes are read and set on the returned matches, all of them when empty.
+  @Override
+  public List<Match> getByDate(LocalDate matchDay, Collection<String> attributes) {
     log.debug("Getting matches for match date: {}", matchDay);
-    var matches = getMatchTable();
-    return matches
-        .index(GET_BY_DATE_INDEX)
-        .query(
-            QueryEnhancedRequest.builder()
-                .queryConditional(
-                    QueryConditional.keyEqualTo(
-                        Key.builder()
-                            .partitionValue(
-                                matchDay.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")))
-                            .build()))
-                .filterExpression(filterByType(RecordType.MATCH))
-                .build())
-        .stream()
-        .flatMap(page -> page.items().stream())
-        .toList();
+    return getByDateAndType(matchDay, RecordType.MATCH, attributes);
   }
 
+  @Override
   public Optional<Match> getPool(LocalDate poolDate) {
+    return getByDateAndType(poolDate, RecordType.POOL, List.of()).stream().findFirst();
+  }
+
+  // Pools are created by the fixtures import for match days only, so this is the next match day.
+  // Pool ids follow from their date, the days are read by key one after another with consistent
+  // reads, so an amount carried over by a settlement just before is part of the returned pool.
+  @Override
+  public Optional<Match> getNextPool(LocalDate day) {
     DynamoDbTable<Match> matchTable = getMatchTable();
-    return matchTable
-        .index(GET_BY_DATE_INDEX)
-        .query(
-            QueryEnhancedRequest.builder()
-                .queryConditional(
-                    QueryConditional.keyEqualTo(
-                        Key.builder()
-                            .partitionValue(
-                                poolDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")))
-                            .build()))
-                .filterExpression(filterByType(RecordType.POOL))
-                .build())
-        .stream()
-        .flatMap(page -> page.items().stream())
-        .findFirst();
+    for (int offset = 1; offset <= NEXT_POOL_HORIZON_DAYS; offset++) {
+      String poolId = Match.poolId(day.plusDays(offset));
+      Match pool =
+          matchTable.getItem(
+              GetItemEnhancedRequest.builder()
+                  .key(builder -> builder.partitionValue(poolId).sortValue(poolId))
+                  .consistentRead(true)
+                  .build());
+      if (pool != null) {
+        return Optional.of(pool);
+      }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<List<Match>> getSnapshot(LocalDate matchDay) {
+    MatchesSnapshot snapshot =
+        getSnapshotTable()
+            .getItem(
+                GetItemEnhancedRequest.builder()
+                    .key(
+                        builder ->
+                            builder
+                                .partitionValue(snapshotId(matchDay))
+                                .sortValue(snapshotId(matchDay)))
+                    .build());
+    return Optional.ofNullable(snapshot).map(MatchesSnapshot::getMatches);
   }
 
+  @Override
+  public void saveSnapshot(LocalDate matchDay, List<Match> matches) {
+    MatchesSnapshot snapshot = new MatchesSnapshot();
+    snapshot.setPrimaryId(snapshotId(matchDay));
+    snapshot.setSecondaryId(snapshotId(matchDay));
+    snapshot.setDate(matchDay);
+    snapshot.setRecordType(RecordType.SNAPSHOT);
+    snapshot.setMatches(matches);
+    try {
+      getSnapshotTable()
+          .putItem(
+              builder ->
+                  builder
+                      .item(snapshot)
+                      .conditionExpression(
+                          Expression.builder()
+                              .expression("attribute_not_exists(primary_id)")
+                              .build()));
+      log.info("Snapshot of {} matches saved for date: {}", matches.size(), matchDay);
+    } catch (ConditionalCheckFailedException e) {
+      log.info("Snapshot for date: {} already exists", matchDay);
+    }
+  }
+
+  @Override
   public Match getById(String id) {
-    var matches = getMatchTable();
+    var matches = getCachedMatchTable();
     return matches.getItem(
         GetItemEnhancedRequest.builder()
             .key(builder -> builder.partitionValue(id).sortValue(id))
             .build());
   }
 
-  public void saveIfNotExists(List<Match> filteredEntities) {
+  // Missing ids are left out of the returned map.
+  @Override
+  public Map<String, Match> getByIds(List<String> ids) {
+    DynamoDbTable<Match> matchTable = getMatchTable();
+    Map<String, Match> stored = new HashMap<>();
+    for (int from = 0; from < ids.size(); from += BATCH_GET_LIMIT) {
+      ReadBatch.Builder<Match> batch =
+          ReadBatch.builder(Match.class).mappedTableResource(matchTable);
+      ids.subList(from, Math.min(from + BATCH_GET_LIMIT, ids.size()))
+          .forEach(id -> batch.addGetItem(Key.builder().partitionValue(id).sortValue(id).build()));
+      // unprocessed keys are fetched by the following result pages
+      enhancedClient
+          .batchGetItem(builder -> builder.readBatches(batch.build()))
+          .resultsForTable(matchTable)
+          .forEach(match -> stored.put(match.getPrimaryId(), match));
+    }
+    return stored;
+  }
+
+  // Conditional puts run in parallel, at most MAX_WRITE_CONCURRENCY at a time on the shared client.
+  @Override
+  public BulkWriteResult saveIfNotExists(List<Match> filteredEntities) {
     if (filteredEntities == null) {
       throw new IllegalStateException("Attempt to save null list of entities");
     }
     log.info("Saving {} records to DB", filteredEntities.size());
+    List<String> created = new ArrayList<>();
+    List<String> alreadyExisting = new ArrayList<>();
+    Map<String, String> failed = new LinkedHashMap<>();
+    if (filteredEntities.isEmpty()) {
+      return new BulkWriteResult(created, alreadyExisting, failed);
+    }
     DynamoDbTable<Match> matchTable = getMatchTable();
-    filteredEntities.forEach(
-        entity -> {
-          try {
-            matchTable.putItem(
-                builder ->
-                    builder
-                        .item(entity)
-                        .conditionExpression(
-                            Expression.builder()
-                                .expression(
-                                    "attribute_not_exists(primary_id) AND attribute_not_exists(secondary_id)")
-                                .build()));
-          } catch (Exception e) {
-            log.warn(
-                "Entity was not persisted correctly. Entity: {}. Cause: {}",
-                entity,
-                e.getMessage());
-          }
-        });
+    List<CompletableFuture<Void>> writes =
+        filteredEntities.stream()
+            .map(
+                entity ->
+                    CompletableFuture.runAsync(
+                        () -> putIfNotExists(matchTable, entity), writeExecutor))
+            .toList();
+    for (int i = 0; i < writes.size(); i++) {
+      String id = filteredEntities.get(i).getPrimaryId();
+      try {
+        writes.get(i).join();
+        created.add(id);
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof ConditionalCheckFailedException) {
+          alreadyExisting.add(id);
+        } else {
+          failed.put(id, e.getCause().getMessage());
+        }
+      }
+    }
+    BulkWriteResult result = new BulkWriteResult(created, alreadyExisting, failed);
+    log.info(
+        "Created: {}, already existing: {}, failed: {} records",
+        created.size(),
+        alreadyExisting.size(),
+        failed.size());
+    return result;
+  }
+
+  // Diffs fixtures against stored matches by id. New fixtures are batch written, rescheduled or
+  // renamed ones get a partial update of the fixture fields only, so live state is left untouched.
+  @Override
+  public SyncResult syncFixtures(List<Match> fixtures) {
+    if (fixtures == null) {
+      throw new IllegalStateException("Attempt to sync null list of fixtures");
+    }
+    Map<String, Match> fixturesById = new LinkedHashMap<>();
+    fixtures.forEach(fixture -> fixturesById.put(fixture.getPrimaryId(), fixture));
+    Map<String, Match> stored = getByIds(List.copyOf(fixturesById.keySet()));
+    List<Match> inserts = new ArrayList<>();
+    int updated = 0;
+    int unchanged = 0;
+    for (Match fixture : fixturesById.values()) {
+      Match existing = stored.get(fixture.getPrimaryId());
+      if (existing == null) {
+        inserts.add(fixture);
+      } else if (fixtureChanged(existing, fixture) && updateFixture(fixture)) {
+        updated++;
+      } else {
+        unchanged++;
+      }
+    }
+    batchPut(inserts);
+    SyncResult result = new SyncResult(inserts.size(), updated, unchanged);
+    log.info("Fixtures synced: {}", result);
+    return result;
   }
 
+  // A new typing moves one unit from the user pool to the match pool in the same transaction. Both
+  // pools are changed with ADD, so nothing is read up front and concurrent typings are all counted.
+  @Override
   public void saveTypings(List<Match> typings) {
     if (typings == null) {
       throw new IllegalStateException("Attempt to save null list of typings");
@@ -148,57 +330,200 @@ public class MatchesDao {
     DynamoDbTable<Match> matchTable = getMatchTable();
     typings.forEach(
         typing -> {
-          Match existingTyping = getByCombinedKey(typing.getPrimaryId(), typing.getSecondaryId());
-          if (existingTyping != null) {
-            matchTable.putItem(builder -> builder.item(typing));
-          } else {
-            Match match = getById(typing.getPrimaryId());
-            if (match == null)
+          Put putNewTyping = newTypingPut(matchTable, typing);
+          try {
+            dynamoClient.transactWriteItems(
+                builder ->
+                    builder.transactItems(
+                        TransactWriteItem.builder().put(putNewTyping).build(),
+                        TransactWriteItem.builder()
+                            .update(
+                                increment(PoolIncrement.of(typing.getPrimaryId(), TYPING_STAKE)))
+                            .build(),
+                        TransactWriteItem.builder()
+                            .update(
+                                increment(
+                                    PoolIncrement.of(
+                                        typing.getSecondaryId(), TYPING_STAKE.negate())))
+                            .build()));
+          } catch (TransactionCanceledException e) {
+            List<String> reasons =
+                e.cancellationReasons().stream().map(CancellationReason::code).toList();
+            if (CONDITIONAL_CHECK_FAILED.equals(reasons.get(0))) {
+              // typing changed, the balance was already moved with the first one
+              matchTable.putItem(builder -> builder.item(typing));
+            } else if (CONDITIONAL_CHECK_FAILED.equals(reasons.get(1))) {
               throw new NoSuchElementException("Match not found for id: " + typing.getPrimaryId());
-            match.setPool(match.getPool().add(BigDecimal.ONE));
-            Match user = getById(typing.getSecondaryId());
-            if (user == null)
+            } else if (CONDITIONAL_CHECK_FAILED.equals(reasons.get(2))) {
               throw new NoSuchElementException("User not found for id: " + typing.getSecondaryId());
-            user.setPool(user.getPool().subtract(BigDecimal.ONE));
-            var putTypingRequest =
-                TransactPutItemEnhancedRequest.builder(Match.class).item(typing).build();
-            var updateMatchPool =
-                TransactUpdateItemEnhancedRequest.builder(Match.class).item(match).build();
-            var updateUserPool =
-                TransactUpdateItemEnhancedRequest.builder(Match.class).item(user).build();
-            var transactionRequest =
-                TransactWriteItemsEnhancedRequest.builder()
-                    .addPutItem(matchTable, putTypingRequest)
-                    .addUpdateItem(matchTable, updateMatchPool)
-                    .addUpdateItem(matchTable, updateUserPool)
-                    .build();
-            try {
-              enhancedClient.transactWriteItems(transactionRequest);
-            } catch (TransactionCanceledException e) {
-              log.info(
-                  "Transaction cancelled. User: {}. Cause: {}",
-                  user.getSecondaryId(),
-                  e.getMessage());
+            } else {
+              // a conflict or throttling, the caller retries the typing
+              throw e;
             }
           }
         });
   }
 
+  // Applies typings of many users at once. Typings already stored are overwritten in batches. New
+  // ones are written in transactions of up to MAX_TRANSACTION_ITEMS items, each match and user pool
+  // gets one ADD for all of its typings. A transaction cancelled by a typing stored in the meantime
+  // is applied again typing by typing.
+  @Override
+  public void saveTypingsGrouped(List<Match> typings) {
+    if (typings == null) {
+      throw new IllegalStateException("Attempt to save null list of typings");
+    }
+    Map<String, Match> latest = new LinkedHashMap<>();
+    typings.forEach(typing -> latest.put(typingKey(typing), typing));
+    Set<String> stored = getStoredTypingKeys(List.copyOf(latest.values()));
+    List<Match> changed = new ArrayList<>();
+    List<Match> created = new ArrayList<>();
+    latest.forEach((key, typing) -> (stored.contains(key) ? changed : created).add(typing));
+    if (!changed.isEmpty()) {
+      batchPut(changed);
+    }
+    DynamoDbTable<Match> matchTable = getMatchTable();
+    for (List<Match> group : groupForTransaction(created)) {
+      try {
+        dynamoClient.transactWriteItems(
+            builder -> builder.transactItems(newTypingsTransaction(matchTable, group)));
+      } catch (TransactionCanceledException e) {
+        boolean conditionFailed =
+            e.cancellationReasons().stream()
+                .map(CancellationReason::code)
+                .anyMatch(CONDITIONAL_CHECK_FAILED::equals);
+        if (!conditionFailed) {
+          throw e;
+        }
+        log.info("Grouped transaction of {} typings cancelled, saving one by one", group.size());
+        saveTypings(group);
+      }
+    }
+    log.info("Typings applied. Created: {}, changed: {}", created.size(), changed.size());
+  }
+
+  @Override
+  public void addToPool(String id, Money delta) {
+    try {
+      dynamoClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(tableName())
+              .key(key(id, id))
+              .updateExpression("ADD #pool :pool")
+              .conditionExpression("attribute_exists(primary_id)")
+              .expressionAttributeNames(Map.of("#pool", "pool"))
+              .expressionAttributeValues(Map.of(":pool", number(delta)))
+              .build());
+      log.debug("Added: {} to pool of: {}", delta, id);
+    } catch (ConditionalCheckFailedException e) {
+      throw new NoSuchElementException("Record not found for id: " + id);
+    }
+  }
+
+  // The increments and a divided-<day> marker are written in one transaction. The marker records
+  // what was applied, its put is conditional, so a retried division of the same day applies
+  // nothing and returns false.
+  @Override
+  public boolean dividePool(LocalDate day, Money pool, List<PoolIncrement> increments) {
+    if (increments.size() >= MAX_TRANSACTION_ITEMS) {
+      throw new IllegalStateException(
+          "Pool division of " + increments.size() + " increments does not fit one transaction");
+    }
+    Map<String, AttributeValue> applied = new LinkedHashMap<>();
+    increments.forEach(
+        poolIncrement -> applied.put(poolIncrement.id(), number(poolIncrement.pool())));
+    String markerId = DIVIDED_PREFIX + day;
+    Put putMarker =
+        Put.builder()
+            .tableName(tableName())
+            .item(
+                Map.of(
+                    "primary_id", AttributeValue.builder().s(markerId).build(),
+                    "secondary_id", AttributeValue.builder().s(markerId).build(),
+                    "pool", number(pool),
+                    "applied", AttributeValue.builder().m(applied).build(),
+                    "expires_at",
+                    AttributeValue.builder()
+                        .n(Long.toString(Instant.now().plus(MARKER_TTL).getEpochSecond()))
+                        .build()))
+            .conditionExpression("attribute_not_exists(primary_id)")
+            .build();
+    List<TransactWriteItem> items = new ArrayList<>();
+    items.add(TransactWriteItem.builder().put(putMarker).build());
+    increments.forEach(
+        poolIncrement ->
+            items.add(TransactWriteItem.builder().update(increment(poolIncrement)).build()));
+    try {
+      dynamoClient.transactWriteItems(builder -> builder.transactItems(items));
+      log.info("Pool: {} of day: {} divided into: {}", pool, day, increments);
+      return true;
+    } catch (TransactionCanceledException e) {
+      if (CONDITIONAL_CHECK_FAILED.equals(e.cancellationReasons().get(0).code())) {
+        log.info("Pool of day: {} already divided", day);
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  // Adds the match to the settled ones of its day and returns all of them. Kept as a string set, a
+  // settlement retried for the same match is not counted twice.
+  @Override
+  public Set<String> markSettled(LocalDate day, String matchId) {
+    Map<String, AttributeValue> attributes =
+        dynamoClient
+            .updateItem(
+                UpdateItemRequest.builder()
+                    .tableName(tableName())
+                    .key(key(SETTLED_PREFIX + day, SETTLED_PREFIX + day))
+                    .updateExpression(
+                        "ADD #settled :match_id"
+                            + " SET #expires_at = if_not_exists(#expires_at, :expires_at)")
+                    .expressionAttributeNames(
+                        Map.of("#settled", "settled_match_ids", "#expires_at", "expires_at"))
+                    .expressionAttributeValues(
+                        Map.of(
+                            ":match_id", AttributeValue.builder().ss(matchId).build(),
+                            ":expires_at",
+                            AttributeValue.builder()
+                                .n(Long.toString(Instant.now().plus(MARKER_TTL).getEpochSecond()))
+                                .build()))
+                    .returnValues(ReturnValue.UPDATED_NEW)
+                    .build())
+            .attributes();
+    return Set.copyOf(attributes.get("settled_match_ids").ss());
+  }
+
+  // only the endpoint is written, a full update would overwrite pool changes made in the meantime
+  @Override
+  public void updateEndpointArn(String userId, String endpointArn) {
+    dynamoClient.updateItem(
+        UpdateItemRequest.builder()
+            .tableName(tableName())
+            .key(key(userId, userId))
+            .updateExpression("SET #endpoint_arn = :endpoint_arn")
+            .expressionAttributeNames(Map.of("#endpoint_arn", "endpoint_arn"))
+            .expressionAttributeValues(
+                Map.of(":endpoint_arn", AttributeValue.builder().s(endpointArn).build()))
+            .build());
+  }
+
+  @Override
   public List<Match> getTypingsByUserId(String userId) {
     DynamoDbTable<Match> matchTable = getMatchTable();
     return matchTable
-        .index(GET_BY_SECONDARY_ID_INDEX)
+        .index(GET_TYPINGS_BY_USER_INDEX)
         .query(
             QueryEnhancedRequest.builder()
                 .queryConditional(
                     QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
-                .filterExpression(filterByType(RecordType.TYPING))
                 .build())
         .stream()
         .flatMap(page -> page.items().stream())
         .toList();
   }
 
+  @Override
   public List<Match> getTypingsByMatchId(String userId) {
     DynamoDbTable<Match> matchTable = getMatchTable();
     return matchTable
@@ -213,15 +538,18 @@ public class MatchesDao {
         .toList();
   }
 
-  public List<Match> getAllTypings() {
-    return getByType(RecordType.TYPING);
+  @Override
+  public List<TypingRecord> getTypingRecords() {
+    return getRecordsByType(RecordType.TYPING, TypingRecord.SCHEMA);
   }
 
+  @Override
   public Match getTodayPool() {
     return getPool(LocalDate.now())
             .orElseThrow(() -> new NoSuchElementException("Today pool not found!"));
   }
 
+  @Override
   public void update(Match entity) {
     log.debug("Updating entity: {}", entity);
     DynamoDbTable<Match> matchTable = getMatchTable();
@@ -232,49 +560,405 @@ public class MatchesDao {
     }
   }
 
-  public void transactWriteItems(
-          List<TransactUpdateItemEnhancedRequest<Match>> updateRequests,
-          List<TransactPutItemEnhancedRequest<Match>> putRequests) {
+  // Writes only the live fields, guarded by the version the caller has read. Returns false when
+  // the match was changed in the meantime, the caller picks the new state up on its next poll.
+  @Override
+  public boolean updateLiveState(Match match) {
+    Map<String, String> names = new HashMap<>(Map.of("#version", "version"));
+    Map<String, AttributeValue> values =
+        new HashMap<>(
+            Map.of(
+                ":zero", AttributeValue.builder().n("0").build(),
+                ":one", AttributeValue.builder().n("1").build()));
+    List<String> sets = new ArrayList<>(List.of("#version = if_not_exists(#version, :zero) + :one"));
+    List<String> removes = new ArrayList<>();
+    setOrRemove("home_score", match.getHomeScore(), names, values, sets, removes);
+    setOrRemove("away_score", match.getAwayScore(), names, values, sets, removes);
+    setOrRemove("match_status", match.getMatchStatus(), names, values, sets, removes);
+    String condition;
+    if (match.getVersion() == null) {
+      condition = "attribute_exists(primary_id) AND attribute_not_exists(#version)";
+    } else {
+      condition = "attribute_exists(primary_id) AND #version = :expectedVersion";
+      values.put(
+          ":expectedVersion", AttributeValue.builder().n(match.getVersion().toString()).build());
+    }
+    String updateExpression = "SET " + String.join(", ", sets);
+    if (!removes.isEmpty()) {
+      updateExpression += " REMOVE " + String.join(", ", removes);
+    }
+    try {
+      dynamoClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(tableName())
+              .key(
+                  Map.of(
+                      "primary_id", AttributeValue.builder().s(match.getPrimaryId()).build(),
+                      "secondary_id", AttributeValue.builder().s(match.getSecondaryId()).build()))
+              .updateExpression(updateExpression)
+              .conditionExpression(condition)
+              .expressionAttributeNames(names)
+              .expressionAttributeValues(values)
+              .build());
+      log.debug("Live state updated for match: {}", match.getPrimaryId());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      log.info(
+          "Match: {} changed since version: {} was read, skipping update",
+          match.getPrimaryId(),
+          match.getVersion());
+      return false;
+    }
+  }
+
+  // Item writes are mapped by the enhanced client and sent in one low-level transaction together
+  // with the pool increments, which the enhanced client cannot express. Returns false when the
+  // condition of the first update failed, nothing is written then.
+  @Override
+  public boolean transactWriteItems(
+      List<TransactUpdateItemEnhancedRequest<Match>> updateRequests,
+      List<TransactPutItemEnhancedRequest<Match>> putRequests,
+      List<PoolIncrement> increments) {
     DynamoDbTable<Match> matchTable = getMatchTable();
-    var transctionBuilder = TransactWriteItemsEnhancedRequest.builder();
-    updateRequests.forEach(update -> transctionBuilder.addUpdateItem(matchTable, update));
-    putRequests.forEach(put -> transctionBuilder.addPutItem(matchTable, put));
-    enhancedClient.transactWriteItems(transctionBuilder.build());
+    var transactionBuilder = TransactWriteItemsEnhancedRequest.builder();
+    updateRequests.forEach(update -> transactionBuilder.addUpdateItem(matchTable, update));
+    putRequests.forEach(put -> transactionBuilder.addPutItem(matchTable, put));
+    List<TransactWriteItem> items =
+        new ArrayList<>(transactionBuilder.build().transactWriteItems());
+    increments.forEach(
+        poolIncrement ->
+            items.add(TransactWriteItem.builder().update(increment(poolIncrement)).build()));
+    try {
+      dynamoClient.transactWriteItems(builder -> builder.transactItems(items));
+      return true;
+    } catch (TransactionCanceledException e) {
+      if (CONDITIONAL_CHECK_FAILED.equals(e.cancellationReasons().get(0).code())) {
+        return false;
+      }
+      throw e;
+    }
   }
 
-  public List<Match> getUsers() {
-    return getByType(RecordType.USER);
+  @Override
+  public List<UserRecord> getUserRecords() {
+    return getRecordsByType(RecordType.USER, UserRecord.SCHEMA);
   }
 
+  @Override
   public List<Match> getMessagesByUserId(String userId) {
     DynamoDbTable<Match> matchTable = getMatchTable();
     return matchTable
         .query(
             QueryEnhancedRequest.builder()
                 .queryConditional(
-                    QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build()))
-                .filterExpression(filterByType(RecordType.MESSAGE))
+                    QueryConditional.sortBeginsWith(
+                        Key.builder().partitionValue(userId).sortValue(MESSAGE_PREFIX).build()))
                 .build())
         .stream()
         .flatMap(page -> page.items().stream())
         .toList();
   }
 
-  private List<Match> getByType(RecordType recordType) {
-    DynamoDbTable<Match> matchTable = getMatchTable();
-    return matchTable
+  // typed records read only the attributes their schema maps
+  private <T extends TableRecord> List<T> getRecordsByType(
+      RecordType recordType, TableSchema<T> schema) {
+    return enhancedClient
+        .table(tableName(), schema)
         .index(GET_BY_RECORD_TYPE_INDEX)
         .query(
             QueryEnhancedRequest.builder()
                 .queryConditional(
                     QueryConditional.keyEqualTo(
                         Key.builder().partitionValue(recordType.name()).build()))
+                .attributesToProject(schema.attributeNames())
                 .build())
         .stream()
         .flatMap(page -> page.items().stream())
         .toList();
   }
 
+  private List<Match> getByStatusBetween(
+      MatchStatus status, LocalDateTime from, LocalDateTime to) {
+    DynamoDbTable<Match> matchTable = getMatchTable();
+    return matchTable
+        .index(GET_BY_STATUS_AND_KICKOFF_INDEX)
+        .query(
+            QueryEnhancedRequest.builder()
+                .queryConditional(
+                    QueryConditional.sortBetween(
+                        Key.builder()
+                            .partitionValue(status.name())
+                            .sortValue(Match.kickoff(from))
+                            .build(),
+                        Key.builder()
+                            .partitionValue(status.name())
+                            .sortValue(Match.kickoff(to))
+                            .build()))
+                .build())
+        .stream()
+        .flatMap(page -> page.items().stream())
+        .toList();
+  }
+
+  private List<Match> getByDateAndType(
+      LocalDate date, RecordType recordType, Collection<String> attributes) {
+    DynamoDbTable<Match> matchTable = getCachedMatchTable();
+    return matchTable
+        .index(GET_BY_DATE_AND_TYPE_INDEX)
+        .query(
+            QueryEnhancedRequest.builder()
+                .queryConditional(
+                    QueryConditional.keyEqualTo(
+                        Key.builder()
+                            .partitionValue(date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")))
+                            .sortValue(recordType.name())
+                            .build()))
+                .attributesToProject(projection(attributes))
+                .build())
+        .stream()
+        .flatMap(page -> page.items().stream())
+        .toList();
+  }
+
+  // no projection reads every attribute the index holds
+  private static Collection<String> projection(Collection<String> attributes) {
+    return attributes.isEmpty() ? null : attributes;
+  }
+
+  private static Update increment(PoolIncrement increment) {
+    Map<String, String> names = new HashMap<>(Map.of("#pool", "pool"));
+    Map<String, AttributeValue> values = new HashMap<>(Map.of(":pool", number(increment.pool())));
+    String updateExpression = "ADD #pool :pool";
+    if (increment.correctTypings() != 0) {
+      names.put("#correct_typings", "correct_typings");
+      values.put(":correct_typings", number(BigDecimal.valueOf(increment.correctTypings())));
+      updateExpression += ", #correct_typings :correct_typings";
+    }
+    return Update.builder()
+        .tableName(tableName())
+        .key(key(increment.id(), increment.id()))
+        .updateExpression(updateExpression)
+        .conditionExpression("attribute_exists(primary_id)")
+        .expressionAttributeNames(names)
+        .expressionAttributeValues(values)
+        .build();
+  }
+
+  private static Put newTypingPut(DynamoDbTable<Match> matchTable, Match typing) {
+    return Put.builder()
+        .tableName(tableName())
+        .item(matchTable.tableSchema().itemToMap(typing, true))
+        .conditionExpression("attribute_not_exists(primary_id)")
+        .build();
+  }
+
+  private static List<TransactWriteItem> newTypingsTransaction(
+      DynamoDbTable<Match> matchTable, List<Match> typings) {
+    List<TransactWriteItem> items = new ArrayList<>();
+    Map<String, Integer> typingsPerMatch = new LinkedHashMap<>();
+    Map<String, Integer> typingsPerUser = new LinkedHashMap<>();
+    typings.forEach(
+        typing -> {
+          items.add(TransactWriteItem.builder().put(newTypingPut(matchTable, typing)).build());
+          typingsPerMatch.merge(typing.getPrimaryId(), 1, Integer::sum);
+          typingsPerUser.merge(typing.getSecondaryId(), 1, Integer::sum);
+        });
+    typingsPerMatch.forEach(
+        (matchId, count) ->
+            items.add(
+                TransactWriteItem.builder()
+                    .update(increment(PoolIncrement.of(matchId, TYPING_STAKE.times(count))))
+                    .build()));
+    typingsPerUser.forEach(
+        (userId, count) ->
+            items.add(
+                TransactWriteItem.builder()
+                    .update(increment(PoolIncrement.of(userId, TYPING_STAKE.times(-count))))
+                    .build()));
+    return items;
+  }
+
+  // every group holds its typings plus one pool update per distinct match and user
+  private static List<List<Match>> groupForTransaction(List<Match> typings) {
+    List<List<Match>> groups = new ArrayList<>();
+    List<Match> group = new ArrayList<>();
+    Set<String> pools = new HashSet<>();
+    for (Match typing : typings) {
+      int newPools =
+          (pools.contains(typing.getPrimaryId()) ? 0 : 1)
+              + (pools.contains(typing.getSecondaryId()) ? 0 : 1);
+      if (group.size() + pools.size() + 1 + newPools > MAX_TRANSACTION_ITEMS) {
+        groups.add(group);
+        group = new ArrayList<>();
+        pools = new HashSet<>();
+      }
+      group.add(typing);
+      pools.add(typing.getPrimaryId());
+      pools.add(typing.getSecondaryId());
+    }
+    if (!group.isEmpty()) {
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  private Set<String> getStoredTypingKeys(List<Match> typings) {
+    DynamoDbTable<Match> matchTable = getMatchTable();
+    Set<String> stored = new HashSet<>();
+    for (int from = 0; from < typings.size(); from += BATCH_GET_LIMIT) {
+      ReadBatch.Builder<Match> batch =
+          ReadBatch.builder(Match.class).mappedTableResource(matchTable);
+      typings
+          .subList(from, Math.min(from + BATCH_GET_LIMIT, typings.size()))
+          .forEach(
+              typing ->
+                  batch.addGetItem(
+                      Key.builder()
+                          .partitionValue(typing.getPrimaryId())
+                          .sortValue(typing.getSecondaryId())
+                          .build()));
+      enhancedClient
+          .batchGetItem(builder -> builder.readBatches(batch.build()))
+          .resultsForTable(matchTable)
+          .forEach(typing -> stored.add(typingKey(typing)));
+    }
+    return stored;
+  }
+
+  private static String typingKey(Match typing) {
+    return typing.getPrimaryId() + "#" + typing.getSecondaryId();
+  }
+
+  private static Map<String, AttributeValue> key(String primaryId, String secondaryId) {
+    return Map.of(
+        "primary_id", AttributeValue.builder().s(primaryId).build(),
+        "secondary_id", AttributeValue.builder().s(secondaryId).build());
+  }
+
+  private static AttributeValue number(BigDecimal value) {
+    return AttributeValue.builder().n(value.toPlainString()).build();
+  }
+
+  private static AttributeValue number(Money value) {
+    return AttributeValue.builder().n(value.toString()).build();
+  }
+
+  private static String tableName() {
+    return System.getenv("MATCHES_TABLE_NAME");
+  }
+
+  private static void putIfNotExists(DynamoDbTable<Match> matchTable, Match entity) {
+    matchTable.putItem(
+        builder ->
+            builder
+                .item(entity)
+                .conditionExpression(
+                    Expression.builder()
+                        .expression(
+                            "attribute_not_exists(primary_id) AND attribute_not_exists(secondary_id)")
+                        .build()));
+  }
+
+  private void batchPut(List<Match> entities) {
+    DynamoDbTable<Match> matchTable = getMatchTable();
+    for (int from = 0; from < entities.size(); from += BATCH_WRITE_LIMIT) {
+      List<Match> pending =
+          entities.subList(from, Math.min(from + BATCH_WRITE_LIMIT, entities.size()));
+      for (int attempt = 1; !pending.isEmpty(); attempt++) {
+        if (attempt > MAX_BATCH_ATTEMPTS) {
+          throw new IllegalStateException(
+              "Batch write left " + pending.size() + " unprocessed items");
+        }
+        if (attempt > 1) {
+          backoff(attempt);
+        }
+        WriteBatch.Builder<Match> batch =
+            WriteBatch.builder(Match.class).mappedTableResource(matchTable);
+        pending.forEach(batch::addPutItem);
+        pending =
+            enhancedClient
+                .batchWriteItem(builder -> builder.writeBatches(batch.build()))
+                .unprocessedPutItemsForTable(matchTable);
+      }
+    }
+  }
+
+  // Only scheduled matches are moved, a match that kicked off keeps what the live poll wrote.
+  private boolean updateFixture(Match fixture) {
+    Map<String, String> names = new HashMap<>(Map.of("#match_status", "match_status"));
+    Map<String, AttributeValue> values =
+        new HashMap<>(
+            Map.of(":scheduled", AttributeValue.builder().s(MatchStatus.SCHEDULED.name()).build()));
+    List<String> sets = new ArrayList<>();
+    List<String> removes = new ArrayList<>();
+    setOrRemove("date", fixture.getDate(), names, values, sets, removes);
+    setOrRemove("start_time", fixture.getStartTime(), names, values, sets, removes);
+    setOrRemove("kickoff", fixture.getKickoff(), names, values, sets, removes);
+    setOrRemove("home_team", fixture.getHomeTeam(), names, values, sets, removes);
+    setOrRemove("away_team", fixture.getAwayTeam(), names, values, sets, removes);
+    String updateExpression = "SET " + String.join(", ", sets);
+    if (!removes.isEmpty()) {
+      updateExpression += " REMOVE " + String.join(", ", removes);
+    }
+    try {
+      dynamoClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(tableName())
+              .key(
+                  Map.of(
+                      "primary_id", AttributeValue.builder().s(fixture.getPrimaryId()).build(),
+                      "secondary_id", AttributeValue.builder().s(fixture.getSecondaryId()).build()))
+              .updateExpression(updateExpression)
+              .conditionExpression("#match_status = :scheduled")
+              .expressionAttributeNames(names)
+              .expressionAttributeValues(values)
+              .build());
+      log.info("Fixture updated: {}", fixture);
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      log.info("Match: {} is no longer scheduled, skipping fixture update", fixture.getPrimaryId());
+      return false;
+    }
+  }
+
+  private static boolean fixtureChanged(Match stored, Match fixture) {
+    return !Objects.equals(stored.getDate(), fixture.getDate())
+        || !Objects.equals(stored.getStartTime(), fixture.getStartTime())
+        || !Objects.equals(stored.getHomeTeam(), fixture.getHomeTeam())
+        || !Objects.equals(stored.getAwayTeam(), fixture.getAwayTeam());
+  }
+
+  private static void backoff(int attempt) {
+    try {
+      Thread.sleep(50L << attempt);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while retrying batch write", e);
+    }
+  }
+
+  private static void setOrRemove(
+      String attribute,
+      Object value,
+      Map<String, String> names,
+      Map<String, AttributeValue> values,
+      List<String> sets,
+      List<String> removes) {
+    String name = "#" + attribute;
+    names.put(name, attribute);
+    if (value == null) {
+      removes.add(name);
+      return;
+    }
+    String placeholder = ":" + attribute;
+    values.put(
+        placeholder,
+        value instanceof Number
+            ? AttributeValue.builder().n(value.toString()).build()
+            : AttributeValue.builder().s(value.toString()).build());
+    sets.add(name + " = " + placeholder);
+  }
+
   private Expression filterByType(RecordType recordType) {
     return Expression.builder()
         .expression("#recordType = :recordType")
@@ -284,10 +968,22 @@ public class MatchesDao {
   }
 
   private DynamoDbTable<Match> getMatchTable() {
-    String matchesTableName = System.getenv("MATCHES_TABLE_NAME");
-    return enhancedClient.table(matchesTableName, TableSchema.fromBean(Match.class));
+    return enhancedClient.table(tableName(), TableSchema.fromBean(Match.class));
   }
 
+  private DynamoDbTable<Match> getCachedMatchTable() {
+    return cachedReadClient.table(tableName(), TableSchema.fromBean(Match.class));
+  }
+
+  private DynamoDbTable<MatchesSnapshot> getSnapshotTable() {
+    return enhancedClient.table(tableName(), TableSchema.fromBean(MatchesSnapshot.class));
+  }
+
+  private static String snapshotId(LocalDate matchDay) {
+    return "snapshot-" + matchDay;
+  }
+
+  @Override
   public Match getByCombinedKey(String primaryId, String secondaryId) {
     DynamoDbTable<Match> matchTable = getMatchTable();
     return matchTable.getItem(
@@ -302,4 +998,15 @@ public class MatchesDao {
         ? builder.endpointOverride(URI.create("http://local-ddb:8000")).build()
         : builder.build();
   }
+
+  // The discovery endpoint of the cluster, e.g. daxs://matches.abc123.dax-clusters.eu-central-1.amazonaws.com
+  private static DynamoDbClient prepareDaxClient(String endpoint) {
+    try {
+      return ClusterDaxClient.builder()
+          .overrideConfiguration(Configuration.builder().url(endpoint).build())
+          .build();
+    } catch (Exception e) {
+      throw new IllegalStateException("Connecting to DAX cluster: " + endpoint + " failed", e);
+    }
+  }
 }
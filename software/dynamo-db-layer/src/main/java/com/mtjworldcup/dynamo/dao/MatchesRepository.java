@@ -0,0 +1,82 @@
+package com.mtjworldcup.dynamo.dao;
+
+import com.mtjworldcup.dynamo.model.BulkWriteResult;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
+import com.mtjworldcup.dynamo.model.SyncResult;
+import com.mtjworldcup.dynamo.model.TypingRecord;
+import com.mtjworldcup.dynamo.model.UserRecord;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
+
+// Records of the matches table. MatchesDao reads and writes the table, CachingMatchesDao wraps
+// another repository and serves repeated reads from memory.
+public interface MatchesRepository {
+
+  List<Match> getFinishedMatches();
+
+  List<Match> getUnfinishedMatchesBetween(LocalDateTime from, LocalDateTime to);
+
+  List<Match> getByDate(LocalDate matchDay);
+
+  List<Match> getByDate(LocalDate matchDay, Collection<String> attributes);
+
+  Optional<Match> getPool(LocalDate poolDate);
+
+  Optional<Match> getNextPool(LocalDate day);
+
+  Optional<List<Match>> getSnapshot(LocalDate matchDay);
+
+  void saveSnapshot(LocalDate matchDay, List<Match> matches);
+
+  Match getById(String id);
+
+  Map<String, Match> getByIds(List<String> ids);
+
+  BulkWriteResult saveIfNotExists(List<Match> filteredEntities);
+
+  SyncResult syncFixtures(List<Match> fixtures);
+
+  void saveTypings(List<Match> typings);
+
+  void saveTypingsGrouped(List<Match> typings);
+
+  void addToPool(String id, Money delta);
+
+  boolean dividePool(LocalDate day, Money pool, List<PoolIncrement> increments);
+
+  Set<String> markSettled(LocalDate day, String matchId);
+
+  void updateEndpointArn(String userId, String endpointArn);
+
+  List<Match> getTypingsByUserId(String userId);
+
+  List<Match> getTypingsByMatchId(String matchId);
+
+  List<TypingRecord> getTypingRecords();
+
+  Match getTodayPool();
+
+  void update(Match entity);
+
+  boolean updateLiveState(Match match);
+
+  boolean transactWriteItems(
+      List<TransactUpdateItemEnhancedRequest<Match>> updateRequests,
+      List<TransactPutItemEnhancedRequest<Match>> putRequests,
+      List<PoolIncrement> increments);
+
+  List<UserRecord> getUserRecords();
+
+  List<Match> getMessagesByUserId(String userId);
+
+  Match getByCombinedKey(String primaryId, String secondaryId);
+}
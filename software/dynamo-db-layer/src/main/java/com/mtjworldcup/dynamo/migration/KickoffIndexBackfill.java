@@ -0,0 +1,93 @@
+package com.mtjworldcup.dynamo.migration;
+
+import static software.amazon.awssdk.regions.Region.EU_CENTRAL_1;
+
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.RecordType;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+// Writes the kickoff attribute for matches saved before the getByStatusAndKickoff index.
+// Usage: MATCHES_TABLE_NAME=<table> java -cp dynamo-db-layer.jar
+// com.mtjworldcup.dynamo.migration.KickoffIndexBackfill [delay between writes in ms]
+public class KickoffIndexBackfill {
+
+  private static final Logger log = LoggerFactory.getLogger(KickoffIndexBackfill.class);
+
+  private final DynamoDbClient dynamoClient;
+  private final String tableName;
+  private final long delayMillis;
+
+  public KickoffIndexBackfill(DynamoDbClient dynamoClient, String tableName, long delayMillis) {
+    this.dynamoClient = dynamoClient;
+    this.tableName = tableName;
+    this.delayMillis = delayMillis;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    long delayMillis = args.length > 0 ? Long.parseLong(args[0]) : 0;
+    try (DynamoDbClient client = DynamoDbClient.builder().region(EU_CENTRAL_1).build()) {
+      int updated =
+          new KickoffIndexBackfill(client, System.getenv("MATCHES_TABLE_NAME"), delayMillis).run();
+      log.info("Backfill finished, {} matches updated", updated);
+    }
+  }
+
+  public int run() throws InterruptedException {
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(tableName)
+            .indexName("getByRecordTypeV2")
+            .keyConditionExpression("record_type = :recordType")
+            .filterExpression(
+                "attribute_not_exists(kickoff) AND attribute_exists(#date) AND attribute_exists(start_time)")
+            .projectionExpression("primary_id, secondary_id, #date, start_time")
+            .expressionAttributeNames(Map.of("#date", "date"))
+            .expressionAttributeValues(
+                Map.of(":recordType", AttributeValue.builder().s(RecordType.MATCH.name()).build()))
+            .build();
+    int updated = 0;
+    for (Map<String, AttributeValue> item : dynamoClient.queryPaginator(request).items()) {
+      if (backfill(item)) {
+        updated++;
+      }
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+    }
+    return updated;
+  }
+
+  private boolean backfill(Map<String, AttributeValue> item) {
+    Map<String, AttributeValue> key =
+        Map.of("primary_id", item.get("primary_id"), "secondary_id", item.get("secondary_id"));
+    String kickoff =
+        Match.kickoff(
+            LocalDateTime.of(
+                LocalDate.parse(item.get("date").s()), LocalTime.parse(item.get("start_time").s())));
+    try {
+      dynamoClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(tableName)
+              .key(key)
+              .updateExpression("SET kickoff = :kickoff")
+              .conditionExpression("attribute_exists(primary_id) AND attribute_not_exists(kickoff)")
+              .expressionAttributeValues(
+                  Map.of(":kickoff", AttributeValue.builder().s(kickoff).build()))
+              .build());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      log.debug("Match {} already backfilled", key);
+      return false;
+    }
+  }
+}
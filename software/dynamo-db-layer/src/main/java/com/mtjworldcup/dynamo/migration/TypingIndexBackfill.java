@@ -0,0 +1,80 @@
+package com.mtjworldcup.dynamo.migration;
+
+import static software.amazon.awssdk.regions.Region.EU_CENTRAL_1;
+
+import com.mtjworldcup.dynamo.model.RecordType;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+// Copies secondary_id into typing_user_id for typings written before the getTypingsByUser index.
+// Usage: MATCHES_TABLE_NAME=<table> java -cp dynamo-db-layer.jar
+// com.mtjworldcup.dynamo.migration.TypingIndexBackfill [delay between writes in ms]
+public class TypingIndexBackfill {
+
+  private static final Logger log = LoggerFactory.getLogger(TypingIndexBackfill.class);
+
+  private final DynamoDbClient dynamoClient;
+  private final String tableName;
+  private final long delayMillis;
+
+  public TypingIndexBackfill(DynamoDbClient dynamoClient, String tableName, long delayMillis) {
+    this.dynamoClient = dynamoClient;
+    this.tableName = tableName;
+    this.delayMillis = delayMillis;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    long delayMillis = args.length > 0 ? Long.parseLong(args[0]) : 0;
+    try (DynamoDbClient client = DynamoDbClient.builder().region(EU_CENTRAL_1).build()) {
+      int updated =
+          new TypingIndexBackfill(client, System.getenv("MATCHES_TABLE_NAME"), delayMillis).run();
+      log.info("Backfill finished, {} typings updated", updated);
+    }
+  }
+
+  public int run() throws InterruptedException {
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(tableName)
+            .indexName("getByRecordTypeV2")
+            .keyConditionExpression("record_type = :recordType")
+            .filterExpression("attribute_not_exists(typing_user_id)")
+            .projectionExpression("primary_id, secondary_id")
+            .expressionAttributeValues(
+                Map.of(":recordType", AttributeValue.builder().s(RecordType.TYPING.name()).build()))
+            .build();
+    int updated = 0;
+    for (Map<String, AttributeValue> key : dynamoClient.queryPaginator(request).items()) {
+      if (backfill(key)) {
+        updated++;
+      }
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+    }
+    return updated;
+  }
+
+  private boolean backfill(Map<String, AttributeValue> key) {
+    try {
+      dynamoClient.updateItem(
+          UpdateItemRequest.builder()
+              .tableName(tableName)
+              .key(key)
+              .updateExpression("SET typing_user_id = secondary_id")
+              .conditionExpression(
+                  "attribute_exists(primary_id) AND attribute_not_exists(typing_user_id)")
+              .build());
+      return true;
+    } catch (ConditionalCheckFailedException e) {
+      log.debug("Typing {} already backfilled", key);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.mtjworldcup.dynamo.model;
+
+import java.util.List;
+import java.util.Map;
+
+// failed maps the id of every entity that was not written to the cause
+public record BulkWriteResult(
+    List<String> created, List<String> alreadyExisting, Map<String, String> failed) {
+
+  public boolean hasFailures() {
+    return !failed.isEmpty();
+  }
+}
@@ -0,0 +1,4 @@
+package com.mtjworldcup.dynamo.model;
+
+// requestHash tells a retry of the same request from a different request reusing the key
+public record IdempotentResponse(int statusCode, String body, String requestHash) {}
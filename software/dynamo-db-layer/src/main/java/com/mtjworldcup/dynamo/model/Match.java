@@ -5,11 +5,15 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 
 @DynamoDbBean
 public class Match {
+    private static final DateTimeFormatter KICKOFF_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'#'HH:mm");
+
     private String primaryId;
     private String secondaryId;
     private LocalDate date;
@@ -27,8 +31,9 @@ public class Match {
     private String fcmToken;
     private String endpointArn;
     private String subscriptionArn;
+    private Long version;
 
-    @DynamoDbSecondarySortKey(indexNames = {"getBySecondaryId"})
+    @DynamoDbSecondarySortKey(indexNames = {"getTypingsByUser"})
     @DynamoDbPartitionKey
     @DynamoDbAttribute("primary_id")
     public String getPrimaryId() {
@@ -39,7 +44,6 @@ public class Match {
         this.primaryId = primaryId;
     }
 
-    @DynamoDbSecondaryPartitionKey(indexNames = {"getBySecondaryId"})
     @DynamoDbAttribute("secondary_id")
     @DynamoDbSortKey
     public String getSecondaryId() {
@@ -50,7 +54,17 @@ public class Match {
         this.secondaryId = secondaryId;
     }
 
-    @DynamoDbSecondaryPartitionKey(indexNames = {"getByDate"})
+    @DynamoDbSecondaryPartitionKey(indexNames = {"getTypingsByUser"})
+    @DynamoDbAttribute("typing_user_id")
+    public String getTypingUserId() {
+        return recordType == RecordType.TYPING ? secondaryId : null;
+    }
+
+    public void setTypingUserId(String typingUserId) {
+        // derived from record type and secondary id, only typings land in the sparse index
+    }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = {"getByDateAndType"})
     @DynamoDbAttribute("date")
     public LocalDate getDate() {
         return date;
@@ -123,6 +137,7 @@ public class Match {
         this.typingStatus = typingStatus;
     }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = {"getByStatusAndKickoff"})
     @DynamoDbAttribute("match_status")
     public MatchStatus getMatchStatus() {
         return matchStatus;
@@ -132,8 +147,55 @@ public class Match {
         this.matchStatus = matchStatus;
     }
 
+    @DynamoDbSecondarySortKey(indexNames = {"getByStatusAndKickoff"})
+    @DynamoDbAttribute("kickoff")
+    public String getKickoff() {
+        return recordType == RecordType.MATCH && date != null && startTime != null
+                ? kickoff(LocalDateTime.of(date, startTime))
+                : null;
+    }
+
+    public void setKickoff(String kickoff) {
+        // derived from date and start time, only matches land in the sparse index
+    }
+
+    public static String kickoff(LocalDateTime kickoff) {
+        return kickoff.format(KICKOFF_FORMATTER);
+    }
+
+    public static String poolId(LocalDate date) {
+        return "pool-" + date;
+    }
+
+    public static Match emptyPool(LocalDate date) {
+        Match pool = new Match();
+        pool.setPrimaryId(poolId(date));
+        pool.setSecondaryId(poolId(date));
+        pool.setDate(date);
+        pool.setRecordType(RecordType.POOL);
+        pool.setPool(BigDecimal.ZERO);
+        return pool;
+    }
+
+    // Only what the typing views need is copied, the match record itself is left untouched.
+    public static Match typing(Match match, String userId, int homeScore, int awayScore) {
+        Match typing = new Match();
+        typing.setPrimaryId(match.getPrimaryId());
+        typing.setSecondaryId(userId);
+        typing.setDate(match.getDate());
+        typing.setStartTime(match.getStartTime());
+        typing.setHomeTeam(match.getHomeTeam());
+        typing.setAwayTeam(match.getAwayTeam());
+        typing.setHomeScore(homeScore);
+        typing.setAwayScore(awayScore);
+        typing.setRecordType(RecordType.TYPING);
+        typing.setTypingStatus(TypingStatus.UNKNOWN);
+        return typing;
+    }
+
     @DynamoDbAttribute("record_type")
-    @DynamoDbSecondaryPartitionKey(indexNames = {"getByRecordType"})
+    @DynamoDbSecondaryPartitionKey(indexNames = {"getByRecordTypeV2"})
+    @DynamoDbSecondarySortKey(indexNames = {"getByDateAndType"})
     public RecordType getRecordType() {
         return recordType;
     }
@@ -187,6 +249,16 @@ public class Match {
         this.subscriptionArn = subscriptionArn;
     }
 
+    // bumped by every live state update, stays empty for records written by other paths
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Match{" +
@@ -206,6 +278,7 @@ public class Match {
                 ", fcmToken='" + fcmToken + '\'' +
                 ", endpointArn='" + endpointArn + '\'' +
                 ", subscriptionArn='" + subscriptionArn + '\'' +
+                ", version=" + version +
                 '}';
     }
 
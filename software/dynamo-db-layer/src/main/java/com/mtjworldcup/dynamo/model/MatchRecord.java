@@ -0,0 +1,157 @@
+package com.mtjworldcup.dynamo.model;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+
+// List view of a match, keyed by its id twice. The live state and the status are not mapped, the
+// record type index does not project them.
+public record MatchRecord(
+    String matchId,
+    LocalDate date,
+    LocalTime startTime,
+    String homeTeam,
+    String awayTeam,
+    Integer homeScore,
+    Integer awayScore,
+    Money pool)
+    implements TableRecord {
+
+  public static final TableSchema<MatchRecord> SCHEMA =
+      StaticImmutableTableSchema.builder(MatchRecord.class, Builder.class)
+          .newItemBuilder(Builder::new, Builder::build)
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("primary_id")
+                      .getter(MatchRecord::matchId)
+                      .setter(Builder::matchId)
+                      .tags(primaryPartitionKey()))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("secondary_id")
+                      .getter(MatchRecord::matchId)
+                      .setter((builder, secondaryId) -> {})
+                      .tags(primarySortKey()))
+          .addAttribute(
+              RecordType.class,
+              attribute ->
+                  attribute
+                      .name("record_type")
+                      .getter(MatchRecord::recordType)
+                      .setter((builder, recordType) -> {})
+                      .tags(secondaryPartitionKey("getByRecordTypeV2")))
+          .addAttribute(
+              LocalDate.class,
+              attribute -> attribute.name("date").getter(MatchRecord::date).setter(Builder::date))
+          .addAttribute(
+              LocalTime.class,
+              attribute ->
+                  attribute
+                      .name("start_time")
+                      .getter(MatchRecord::startTime)
+                      .setter(Builder::startTime))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("home_team")
+                      .getter(MatchRecord::homeTeam)
+                      .setter(Builder::homeTeam))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("away_team")
+                      .getter(MatchRecord::awayTeam)
+                      .setter(Builder::awayTeam))
+          .addAttribute(
+              Integer.class,
+              attribute ->
+                  attribute
+                      .name("home_score")
+                      .getter(MatchRecord::homeScore)
+                      .setter(Builder::homeScore))
+          .addAttribute(
+              Integer.class,
+              attribute ->
+                  attribute
+                      .name("away_score")
+                      .getter(MatchRecord::awayScore)
+                      .setter(Builder::awayScore))
+          .addAttribute(
+              Money.class,
+              attribute ->
+                  attribute
+                      .name("pool")
+                      .getter(MatchRecord::pool)
+                      .setter(Builder::pool)
+                      .attributeConverter(new MoneyAttributeConverter()))
+          .build();
+
+  @Override
+  public String primaryId() {
+    return matchId;
+  }
+
+  @Override
+  public RecordType recordType() {
+    return RecordType.MATCH;
+  }
+
+  private static final class Builder {
+    private String matchId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private String homeTeam;
+    private String awayTeam;
+    private Integer homeScore;
+    private Integer awayScore;
+    private Money pool;
+
+    private void matchId(String matchId) {
+      this.matchId = matchId;
+    }
+
+    private void date(LocalDate date) {
+      this.date = date;
+    }
+
+    private void startTime(LocalTime startTime) {
+      this.startTime = startTime;
+    }
+
+    private void homeTeam(String homeTeam) {
+      this.homeTeam = homeTeam;
+    }
+
+    private void awayTeam(String awayTeam) {
+      this.awayTeam = awayTeam;
+    }
+
+    private void homeScore(Integer homeScore) {
+      this.homeScore = homeScore;
+    }
+
+    private void awayScore(Integer awayScore) {
+      this.awayScore = awayScore;
+    }
+
+    private void pool(Money pool) {
+      this.pool = pool;
+    }
+
+    private MatchRecord build() {
+      return new MatchRecord(
+          matchId, date, startTime, homeTeam, awayTeam, homeScore, awayScore, pool);
+    }
+  }
+}
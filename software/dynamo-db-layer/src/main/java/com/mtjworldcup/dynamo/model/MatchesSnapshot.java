@@ -0,0 +1,85 @@
+package com.mtjworldcup.dynamo.model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+@DynamoDbBean
+public class MatchesSnapshot {
+    private String primaryId;
+    private String secondaryId;
+    private LocalDate date;
+    private RecordType recordType;
+    private List<Match> matches;
+
+    @DynamoDbPartitionKey
+    @DynamoDbAttribute("primary_id")
+    public String getPrimaryId() {
+        return primaryId;
+    }
+
+    public void setPrimaryId(String primaryId) {
+        this.primaryId = primaryId;
+    }
+
+    @DynamoDbSortKey
+    @DynamoDbAttribute("secondary_id")
+    public String getSecondaryId() {
+        return secondaryId;
+    }
+
+    public void setSecondaryId(String secondaryId) {
+        this.secondaryId = secondaryId;
+    }
+
+    @DynamoDbAttribute("date")
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    @DynamoDbAttribute("record_type")
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    public void setRecordType(RecordType recordType) {
+        this.recordType = recordType;
+    }
+
+    @DynamoDbAttribute("matches")
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<Match> matches) {
+        this.matches = matches;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchesSnapshot{" +
+                "primaryId='" + primaryId + '\'' +
+                ", date=" + date +
+                ", matches=" + matches +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MatchesSnapshot that = (MatchesSnapshot) o;
+        return Objects.equals(primaryId, that.primaryId) && Objects.equals(secondaryId, that.secondaryId) && Objects.equals(date, that.date) && recordType == that.recordType && Objects.equals(matches, that.matches);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(primaryId, secondaryId, date, recordType, matches);
+    }
+}
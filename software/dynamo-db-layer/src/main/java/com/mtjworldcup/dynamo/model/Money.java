@@ -0,0 +1,67 @@
+package com.mtjworldcup.dynamo.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Amount in whole grosze. Sums, shares and comparisons of pools are plain long arithmetic. Stored
+// as a number of zloty with two decimals, the format pool attributes have always had, so Money and
+// the BigDecimal pools of Match read and write the same attributes.
+public record Money(long grosze) implements Comparable<Money> {
+
+  public static final Money ZERO = new Money(0);
+  private static final int SCALE = 2;
+  private static final long GROSZE_PER_ZLOTY = 100;
+
+  // fractions of a grosz are cut off, like every division of a pool does
+  public static Money of(BigDecimal zloty) {
+    return new Money(zloty.setScale(SCALE, RoundingMode.DOWN).unscaledValue().longValueExact());
+  }
+
+  public static Money ofZloty(long zloty) {
+    return new Money(Math.multiplyExact(zloty, GROSZE_PER_ZLOTY));
+  }
+
+  public Money plus(Money other) {
+    return new Money(Math.addExact(grosze, other.grosze));
+  }
+
+  public Money times(long factor) {
+    return new Money(Math.multiplyExact(grosze, factor));
+  }
+
+  public Money negate() {
+    return new Money(Math.negateExact(grosze));
+  }
+
+  public boolean isZero() {
+    return grosze == 0;
+  }
+
+  public boolean isPositive() {
+    return grosze > 0;
+  }
+
+  // Every part gets the same whole grosze, what they do not add up to is kept as the remainder.
+  public Split split(int parts) {
+    if (parts <= 0) {
+      throw new IllegalArgumentException("Cannot split into " + parts + " parts");
+    }
+    return new Split(new Money(grosze / parts), new Money(grosze % parts));
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(grosze, SCALE);
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(grosze, other.grosze);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+
+  public record Split(Money share, Money remainder) {}
+}
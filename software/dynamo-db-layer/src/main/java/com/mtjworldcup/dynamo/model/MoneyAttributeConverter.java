@@ -0,0 +1,30 @@
+package com.mtjworldcup.dynamo.model;
+
+import java.math.BigDecimal;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class MoneyAttributeConverter implements AttributeConverter<Money> {
+
+  @Override
+  public AttributeValue transformFrom(Money input) {
+    return AttributeValue.builder().n(input.toString()).build();
+  }
+
+  @Override
+  public Money transformTo(AttributeValue input) {
+    return Money.of(new BigDecimal(input.n()));
+  }
+
+  @Override
+  public EnhancedType<Money> type() {
+    return EnhancedType.of(Money.class);
+  }
+
+  @Override
+  public AttributeValueType attributeValueType() {
+    return AttributeValueType.N;
+  }
+}
@@ -0,0 +1,9 @@
+package com.mtjworldcup.dynamo.model;
+
+// Applied with an ADD update expression, so concurrent increments of the same item are all kept.
+public record PoolIncrement(String id, Money pool, int correctTypings) {
+
+  public static PoolIncrement of(String id, Money pool) {
+    return new PoolIncrement(id, pool, 0);
+  }
+}
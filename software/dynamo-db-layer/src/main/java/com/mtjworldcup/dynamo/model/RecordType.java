@@ -1,5 +1,5 @@
 package com.mtjworldcup.dynamo.model;
 
 public enum RecordType {
-    MATCH, TYPING, POOL, MESSAGE, USER
+    MATCH, TYPING, POOL, MESSAGE, USER, SNAPSHOT
 }
@@ -0,0 +1,3 @@
+package com.mtjworldcup.dynamo.model;
+
+public record SyncResult(int inserted, int updated, int unchanged) {}
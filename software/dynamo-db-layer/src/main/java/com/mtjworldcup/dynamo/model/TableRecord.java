@@ -0,0 +1,34 @@
+package com.mtjworldcup.dynamo.model;
+
+import java.util.Map;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+// Immutable, typed view of one record of the matches table. Each implementation maps only the
+// attributes of its record type, with a static schema instead of the reflective Match bean.
+// Matches, typings and users have a typed view, the remaining record types are read as Match.
+public sealed interface TableRecord permits MatchRecord, TypingRecord, UserRecord {
+
+  String primaryId();
+
+  RecordType recordType();
+
+  static TableSchema<? extends TableRecord> schema(RecordType recordType) {
+    return switch (recordType) {
+      case MATCH -> MatchRecord.SCHEMA;
+      case TYPING -> TypingRecord.SCHEMA;
+      case USER -> UserRecord.SCHEMA;
+      default ->
+          throw new IllegalArgumentException("No typed record for record type: " + recordType);
+    };
+  }
+
+  // maps a raw item, e.g. of a scan over mixed record types, by its record_type attribute
+  static TableRecord from(Map<String, AttributeValue> item) {
+    AttributeValue recordType = item.get("record_type");
+    if (recordType == null || recordType.s() == null) {
+      throw new IllegalArgumentException("Item without record type: " + item.get("primary_id"));
+    }
+    return schema(RecordType.valueOf(recordType.s())).mapToItem(item);
+  }
+}
@@ -0,0 +1,149 @@
+package com.mtjworldcup.dynamo.model;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+import com.mtjworldcup.common.model.TypingStatus;
+import java.time.LocalDate;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+
+// A typing is stored under the id of its match, sorted by the id of the typing user.
+public record TypingRecord(
+    String matchId,
+    String userId,
+    LocalDate date,
+    String homeTeam,
+    String awayTeam,
+    Integer homeScore,
+    Integer awayScore,
+    TypingStatus typingStatus)
+    implements TableRecord {
+
+  public static final TableSchema<TypingRecord> SCHEMA =
+      StaticImmutableTableSchema.builder(TypingRecord.class, Builder.class)
+          .newItemBuilder(Builder::new, Builder::build)
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("primary_id")
+                      .getter(TypingRecord::matchId)
+                      .setter(Builder::matchId)
+                      .tags(primaryPartitionKey()))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("secondary_id")
+                      .getter(TypingRecord::userId)
+                      .setter(Builder::userId)
+                      .tags(primarySortKey()))
+          .addAttribute(
+              RecordType.class,
+              attribute ->
+                  attribute
+                      .name("record_type")
+                      .getter(TypingRecord::recordType)
+                      .setter((builder, recordType) -> {})
+                      .tags(secondaryPartitionKey("getByRecordTypeV2")))
+          .addAttribute(
+              LocalDate.class,
+              attribute ->
+                  attribute.name("date").getter(TypingRecord::date).setter(Builder::date))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("home_team")
+                      .getter(TypingRecord::homeTeam)
+                      .setter(Builder::homeTeam))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("away_team")
+                      .getter(TypingRecord::awayTeam)
+                      .setter(Builder::awayTeam))
+          .addAttribute(
+              Integer.class,
+              attribute ->
+                  attribute
+                      .name("home_score")
+                      .getter(TypingRecord::homeScore)
+                      .setter(Builder::homeScore))
+          .addAttribute(
+              Integer.class,
+              attribute ->
+                  attribute
+                      .name("away_score")
+                      .getter(TypingRecord::awayScore)
+                      .setter(Builder::awayScore))
+          .addAttribute(
+              TypingStatus.class,
+              attribute ->
+                  attribute
+                      .name("typing_status")
+                      .getter(TypingRecord::typingStatus)
+                      .setter(Builder::typingStatus))
+          .build();
+
+  @Override
+  public String primaryId() {
+    return matchId;
+  }
+
+  @Override
+  public RecordType recordType() {
+    return RecordType.TYPING;
+  }
+
+  private static final class Builder {
+    private String matchId;
+    private String userId;
+    private LocalDate date;
+    private String homeTeam;
+    private String awayTeam;
+    private Integer homeScore;
+    private Integer awayScore;
+    private TypingStatus typingStatus;
+
+    private void matchId(String matchId) {
+      this.matchId = matchId;
+    }
+
+    private void userId(String userId) {
+      this.userId = userId;
+    }
+
+    private void date(LocalDate date) {
+      this.date = date;
+    }
+
+    private void homeTeam(String homeTeam) {
+      this.homeTeam = homeTeam;
+    }
+
+    private void awayTeam(String awayTeam) {
+      this.awayTeam = awayTeam;
+    }
+
+    private void homeScore(Integer homeScore) {
+      this.homeScore = homeScore;
+    }
+
+    private void awayScore(Integer awayScore) {
+      this.awayScore = awayScore;
+    }
+
+    private void typingStatus(TypingStatus typingStatus) {
+      this.typingStatus = typingStatus;
+    }
+
+    private TypingRecord build() {
+      return new TypingRecord(
+          matchId, userId, date, homeTeam, awayTeam, homeScore, awayScore, typingStatus);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.mtjworldcup.dynamo.model;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticImmutableTableSchema;
+
+// Ranking view of a user, push notification tokens and arns are not mapped.
+public record UserRecord(String userId, int correctTypings, Money pool) implements TableRecord {
+
+  public static final TableSchema<UserRecord> SCHEMA =
+      StaticImmutableTableSchema.builder(UserRecord.class, Builder.class)
+          .newItemBuilder(Builder::new, Builder::build)
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("primary_id")
+                      .getter(UserRecord::userId)
+                      .setter(Builder::userId)
+                      .tags(primaryPartitionKey()))
+          .addAttribute(
+              String.class,
+              attribute ->
+                  attribute
+                      .name("secondary_id")
+                      .getter(UserRecord::userId)
+                      .setter((builder, secondaryId) -> {})
+                      .tags(primarySortKey()))
+          .addAttribute(
+              RecordType.class,
+              attribute ->
+                  attribute
+                      .name("record_type")
+                      .getter(UserRecord::recordType)
+                      .setter((builder, recordType) -> {})
+                      .tags(secondaryPartitionKey("getByRecordTypeV2")))
+          .addAttribute(
+              Integer.class,
+              attribute ->
+                  attribute
+                      .name("correct_typings")
+                      .getter(UserRecord::correctTypings)
+                      .setter(Builder::correctTypings))
+          .addAttribute(
+              Money.class,
+              attribute ->
+                  attribute
+                      .name("pool")
+                      .getter(UserRecord::pool)
+                      .setter(Builder::pool)
+                      .attributeConverter(new MoneyAttributeConverter()))
+          .build();
+
+  @Override
+  public String primaryId() {
+    return userId;
+  }
+
+  @Override
+  public RecordType recordType() {
+    return RecordType.USER;
+  }
+
+  private static final class Builder {
+    private String userId;
+    private int correctTypings;
+    private Money pool;
+
+    private void userId(String userId) {
+      this.userId = userId;
+    }
+
+    private void correctTypings(Integer correctTypings) {
+      this.correctTypings = correctTypings;
+    }
+
+    private void pool(Money pool) {
+      this.pool = pool;
+    }
+
+    private UserRecord build() {
+      return new UserRecord(userId, correctTypings, pool);
+    }
+  }
+}
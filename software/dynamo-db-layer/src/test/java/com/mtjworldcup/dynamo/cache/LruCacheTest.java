@@ -0,0 +1,79 @@
+package com.mtjworldcup.dynamo.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LruCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-06-14T12:00:00Z");
+
+  private final Clock mockClock = mock(Clock.class);
+
+  @BeforeEach
+  void setUp() {
+    when(mockClock.instant()).thenReturn(NOW);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntry_WhenMaxSizeExceeded() {
+    //given
+    LruCache<String, String> cache = new LruCache<>(2, mockClock);
+    cache.put("first", "1");
+    cache.put("second", "2");
+    cache.get("first");
+    //when
+    cache.put("third", "3");
+    //then
+    assertEquals(2, cache.size());
+    assertEquals(Optional.of("1"), cache.get("first"));
+    assertTrue(cache.get("second").isEmpty());
+    assertEquals(Optional.of("3"), cache.get("third"));
+  }
+
+  @Test
+  void shouldExpireEntry_WhenTtlPassed() {
+    //given
+    LruCache<String, String> cache = new LruCache<>(2, mockClock);
+    cache.put("key", "value", Duration.ofSeconds(30));
+    //when
+    when(mockClock.instant()).thenReturn(NOW.plusSeconds(30));
+    //then
+    assertTrue(cache.get("key").isEmpty());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void shouldKeepEntry_WhenNoTtlGiven() {
+    //given
+    LruCache<String, String> cache = new LruCache<>(2, mockClock);
+    cache.put("key", "value");
+    //when
+    when(mockClock.instant()).thenReturn(NOW.plus(Duration.ofDays(365)));
+    //then
+    assertEquals(Optional.of("value"), cache.get("key"));
+  }
+
+  @Test
+  void shouldCountHitsAndMisses() {
+    //given
+    LruCache<String, String> cache = new LruCache<>(2, mockClock);
+    cache.put("key", "value");
+    //when
+    cache.get("key");
+    cache.get("key");
+    cache.get("missing");
+    //then
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+}
@@ -0,0 +1,175 @@
+package com.mtjworldcup.dynamo.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mtjworldcup.common.client.RateLimit;
+import com.mtjworldcup.common.client.RequestPriority;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+@ExtendWith(SystemStubsExtension.class)
+@Testcontainers
+class ApiConfigDaoTest {
+
+  private static final String TABLE_NAME = "api-config";
+
+  @SystemStub private EnvironmentVariables environmentVariables;
+
+  @Container
+  private static final LocalStackContainer localStack =
+      new LocalStackContainer(DockerImageName.parse("localstack/localstack:2.0.0"))
+          .withServices(LocalStackContainer.Service.DYNAMODB);
+
+  private static DynamoDbClient localstackDynamoClient;
+
+  private final Clock clock = Clock.fixed(Instant.parse("2024-06-14T19:30:00Z"), ZoneOffset.UTC);
+
+  @BeforeAll
+  static void setUp() {
+    localstackDynamoClient =
+        DynamoDbClient.builder()
+            .endpointOverride(localStack.getEndpoint())
+            .credentialsProvider(
+                StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(
+                        localStack.getAccessKey(), localStack.getSecretKey())))
+            .region(Region.of(localStack.getRegion()))
+            .build();
+  }
+
+  @BeforeEach
+  void recreateTable() {
+    environmentVariables.set("MATCHES_TABLE_NAME", TABLE_NAME);
+    environmentVariables.set("FOOTBALL_API_DAILY_LIMIT", "3");
+    environmentVariables.set("FOOTBALL_API_MINUTE_LIMIT", "10");
+    environmentVariables.set("FOOTBALL_API_FIXTURES_RESERVE", "1");
+    try {
+      localstackDynamoClient.deleteTable(builder -> builder.tableName(TABLE_NAME));
+      localstackDynamoClient
+          .waiter()
+          .waitUntilTableNotExists(builder -> builder.tableName(TABLE_NAME));
+    } catch (ResourceNotFoundException e) {
+      // first run
+    }
+    localstackDynamoClient.createTable(
+        builder ->
+            builder
+                .tableName(TABLE_NAME)
+                .keySchema(
+                    KeySchemaElement.builder()
+                        .attributeName("primary_id")
+                        .keyType(KeyType.HASH)
+                        .build(),
+                    KeySchemaElement.builder()
+                        .attributeName("secondary_id")
+                        .keyType(KeyType.RANGE)
+                        .build())
+                .attributeDefinitions(
+                    AttributeDefinition.builder()
+                        .attributeName("primary_id")
+                        .attributeType(ScalarAttributeType.S)
+                        .build(),
+                    AttributeDefinition.builder()
+                        .attributeName("secondary_id")
+                        .attributeType(ScalarAttributeType.S)
+                        .build())
+                .provisionedThroughput(
+                    throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L)));
+    localstackDynamoClient.waiter().waitUntilTableExists(builder -> builder.tableName(TABLE_NAME));
+  }
+
+  @Test
+  void shouldKeepReserveForLiveMatches_WhenFixturesRequestBudget() {
+    // given
+    ApiConfigDao apiConfigDao = new ApiConfigDao(localstackDynamoClient, clock);
+    // when
+    boolean first = apiConfigDao.tryAcquire(RequestPriority.FIXTURES);
+    boolean second = apiConfigDao.tryAcquire(RequestPriority.FIXTURES);
+    boolean third = apiConfigDao.tryAcquire(RequestPriority.FIXTURES);
+    boolean live = apiConfigDao.tryAcquire(RequestPriority.LIVE);
+    boolean overLimit = apiConfigDao.tryAcquire(RequestPriority.LIVE);
+    // then
+    assertTrue(first);
+    assertTrue(second);
+    assertFalse(third);
+    assertTrue(live);
+    assertFalse(overLimit);
+    assertEquals(Optional.of(0), apiConfigDao.getRemainingDailyRequests());
+  }
+
+  @Test
+  void shouldStopAtMinuteLimit_WhenDailyQuotaLeft() {
+    // given
+    environmentVariables.set("FOOTBALL_API_DAILY_LIMIT", "100");
+    environmentVariables.set("FOOTBALL_API_MINUTE_LIMIT", "2");
+    ApiConfigDao apiConfigDao = new ApiConfigDao(localstackDynamoClient, clock);
+    ApiConfigDao nextMinute =
+        new ApiConfigDao(localstackDynamoClient, Clock.offset(clock, Duration.ofMinutes(1)));
+    // when, then
+    assertTrue(apiConfigDao.tryAcquire(RequestPriority.LIVE));
+    assertTrue(apiConfigDao.tryAcquire(RequestPriority.LIVE));
+    assertFalse(apiConfigDao.tryAcquire(RequestPriority.LIVE));
+    assertTrue(nextMinute.tryAcquire(RequestPriority.LIVE));
+    assertEquals(Optional.of(97), apiConfigDao.getRemainingDailyRequests());
+  }
+
+  @Test
+  void shouldUseRemainingFromApi_WhenRateLimitSynced() {
+    // given
+    ApiConfigDao apiConfigDao = new ApiConfigDao(localstackDynamoClient, clock);
+    apiConfigDao.tryAcquire(RequestPriority.LIVE);
+    // when
+    apiConfigDao.sync(new RateLimit(100, 0, 10, 9));
+    // then
+    assertEquals(Optional.of(0), apiConfigDao.getRemainingDailyRequests());
+    assertFalse(apiConfigDao.tryAcquire(RequestPriority.LIVE));
+  }
+
+  @Test
+  void shouldReturnCachedSeason_WhenSavedForLeague() {
+    // given
+    ApiConfigDao apiConfigDao = new ApiConfigDao(localstackDynamoClient, clock);
+    // when
+    apiConfigDao.saveCurrentSeason(1, 2024);
+    // then
+    assertEquals(Optional.of(2024), apiConfigDao.getCurrentSeason(1));
+    assertEquals(Optional.empty(), apiConfigDao.getCurrentSeason(2));
+  }
+
+  @Test
+  void shouldNotReturnSeason_WhenCachedSeasonExpired() {
+    // given
+    new ApiConfigDao(localstackDynamoClient, clock).saveCurrentSeason(1, 2024);
+    ApiConfigDao later =
+        new ApiConfigDao(localstackDynamoClient, Clock.offset(clock, Duration.ofDays(31)));
+    // when
+    Optional<Integer> season = later.getCurrentSeason(1);
+    // then
+    assertEquals(Optional.empty(), season);
+  }
+}
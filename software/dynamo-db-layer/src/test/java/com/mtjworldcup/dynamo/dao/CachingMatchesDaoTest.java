@@ -0,0 +1,157 @@
+package com.mtjworldcup.dynamo.dao;
+
+import com.mtjworldcup.dynamo.cache.CachePolicy;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingMatchesDaoTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 6, 14);
+
+  private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
+  private final Clock mockClock = mock(Clock.class);
+  private CachingMatchesDao cachingMatchesDao;
+
+  @BeforeEach
+  void setUp() {
+    when(mockClock.getZone()).thenReturn(ZoneId.of("UTC"));
+    when(mockClock.instant()).thenReturn(Instant.parse("2024-06-14T12:00:00Z"));
+    CachePolicy policy =
+        new CachePolicy(
+            10,
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(30),
+            Duration.ofSeconds(30));
+    cachingMatchesDao = new CachingMatchesDao(mockMatchesDao, policy, mockClock);
+  }
+
+  @Test
+  void shouldQueryDelegateOnce_WhenPastDateWithFinishedMatchesRequestedTwice() {
+    //given
+    LocalDate yesterday = TODAY.minusDays(1);
+    when(mockMatchesDao.getByDate(yesterday)).thenReturn(List.of(match("1", MatchStatus.FINISHED)));
+    //when
+    cachingMatchesDao.getByDate(yesterday);
+    when(mockClock.instant()).thenReturn(Instant.parse("2024-06-14T23:00:00Z"));
+    List<Match> matches = cachingMatchesDao.getByDate(yesterday);
+    //then
+    assertEquals(1, matches.size());
+    verify(mockMatchesDao, times(1)).getByDate(yesterday);
+    assertEquals(1, cachingMatchesDao.getHits());
+    assertEquals(1, cachingMatchesDao.getMisses());
+  }
+
+  @Test
+  void shouldQueryDelegateAgain_WhenTodayMatchesTtlPassed() {
+    //given
+    when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of(match("1", MatchStatus.SCHEDULED)));
+    //when
+    cachingMatchesDao.getByDate(TODAY);
+    cachingMatchesDao.getByDate(TODAY);
+    when(mockClock.instant()).thenReturn(Instant.parse("2024-06-14T12:00:31Z"));
+    cachingMatchesDao.getByDate(TODAY);
+    //then
+    verify(mockMatchesDao, times(2)).getByDate(TODAY);
+  }
+
+  @Test
+  void shouldCacheFinishedMatchIndefinitely_WhenGetByIdCalled() {
+    //given
+    when(mockMatchesDao.getById("1")).thenReturn(match("1", MatchStatus.FINISHED));
+    //when
+    cachingMatchesDao.getById("1");
+    when(mockClock.instant()).thenReturn(Instant.parse("2024-06-20T12:00:00Z"));
+    cachingMatchesDao.getById("1");
+    //then
+    verify(mockMatchesDao, times(1)).getById("1");
+  }
+
+  @Test
+  void shouldBatchReadOnlyMissingIds_WhenSomeMatchesCached() {
+    //given
+    when(mockMatchesDao.getById("1")).thenReturn(match("1", MatchStatus.SCHEDULED));
+    when(mockMatchesDao.getByIds(List.of("2", "3")))
+        .thenReturn(Map.of("2", match("2", MatchStatus.SCHEDULED)));
+    cachingMatchesDao.getById("1");
+    //when
+    Map<String, Match> matches = cachingMatchesDao.getByIds(List.of("1", "2", "3"));
+    cachingMatchesDao.getByIds(List.of("1", "2"));
+    //then
+    assertEquals(Set.of("1", "2"), matches.keySet());
+    verify(mockMatchesDao, times(1)).getByIds(List.of("2", "3"));
+    verify(mockMatchesDao, times(1)).getByIds(any());
+  }
+
+  @Test
+  void shouldInvalidateCachedEntries_WhenEntityUpdated() {
+    //given
+    Match match = match("1", MatchStatus.SCHEDULED);
+    when(mockMatchesDao.getById("1")).thenReturn(match);
+    when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of(match));
+    cachingMatchesDao.getById("1");
+    cachingMatchesDao.getByDate(TODAY);
+    //when
+    cachingMatchesDao.update(match);
+    cachingMatchesDao.getById("1");
+    cachingMatchesDao.getByDate(TODAY);
+    //then
+    verify(mockMatchesDao).update(match);
+    verify(mockMatchesDao, times(2)).getById("1");
+    verify(mockMatchesDao, times(2)).getByDate(TODAY);
+  }
+
+  @Test
+  void shouldServeTodayPoolFromCache_WhenRequestedTwice() {
+    //given
+    Match pool = new Match();
+    pool.setDate(TODAY);
+    when(mockMatchesDao.getPool(TODAY)).thenReturn(Optional.of(pool));
+    //when
+    cachingMatchesDao.getTodayPool();
+    Match todayPool = cachingMatchesDao.getTodayPool();
+    //then
+    assertEquals(pool, todayPool);
+    verify(mockMatchesDao, times(1)).getPool(TODAY);
+  }
+
+  @Test
+  void shouldForwardToDelegate_WhenReadNotCached() {
+    //given
+    when(mockMatchesDao.getTypingsByMatchId("1")).thenReturn(List.of(match("1", MatchStatus.FINISHED)));
+    //when
+    cachingMatchesDao.getTypingsByMatchId("1");
+    List<Match> typings = cachingMatchesDao.getTypingsByMatchId("1");
+    //then
+    assertEquals(1, typings.size());
+    verify(mockMatchesDao, times(2)).getTypingsByMatchId("1");
+  }
+
+  private Match match(String id, MatchStatus matchStatus) {
+    Match match = new Match();
+    match.setPrimaryId(id);
+    match.setSecondaryId(id);
+    match.setDate(TODAY);
+    match.setMatchStatus(matchStatus);
+    return match;
+  }
+}
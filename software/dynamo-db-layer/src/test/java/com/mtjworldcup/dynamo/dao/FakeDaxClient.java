@@ -0,0 +1,68 @@
+package com.mtjworldcup.dynamo.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+// In-process stand-in for a DAX cluster: item and query results are cached per request and, like
+// in DAX, not invalidated by writes made through another client. Strongly consistent reads pass
+// through. Every other operation is unsupported, so a write sent here fails the test.
+class FakeDaxClient implements DynamoDbClient {
+
+  private final DynamoDbClient dynamoClient;
+  private final Map<GetItemRequest, GetItemResponse> itemCache = new HashMap<>();
+  private final Map<QueryRequest, QueryResponse> queryCache = new HashMap<>();
+  private int hits;
+  private int misses;
+
+  FakeDaxClient(DynamoDbClient dynamoClient) {
+    this.dynamoClient = dynamoClient;
+  }
+
+  @Override
+  public GetItemResponse getItem(GetItemRequest request) {
+    if (Boolean.TRUE.equals(request.consistentRead())) {
+      misses++;
+      return dynamoClient.getItem(request);
+    }
+    return cached(itemCache, request, dynamoClient::getItem);
+  }
+
+  @Override
+  public QueryResponse query(QueryRequest request) {
+    return cached(queryCache, request, dynamoClient::query);
+  }
+
+  int hits() {
+    return hits;
+  }
+
+  int misses() {
+    return misses;
+  }
+
+  private <K, V> V cached(Map<K, V> cache, K request, Function<K, V> read) {
+    V response = cache.get(request);
+    if (response != null) {
+      hits++;
+      return response;
+    }
+    misses++;
+    response = read.apply(request);
+    cache.put(request, response);
+    return response;
+  }
+
+  @Override
+  public String serviceName() {
+    return "dax";
+  }
+
+  @Override
+  public void close() {}
+}
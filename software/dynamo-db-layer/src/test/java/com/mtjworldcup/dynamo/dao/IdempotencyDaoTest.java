@@ -0,0 +1,137 @@
+package com.mtjworldcup.dynamo.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mtjworldcup.dynamo.model.IdempotentResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+@ExtendWith(SystemStubsExtension.class)
+@Testcontainers
+class IdempotencyDaoTest {
+
+  private static final String TABLE_NAME = "idempotency";
+
+  @SystemStub private EnvironmentVariables environmentVariables;
+
+  @Container
+  private static final LocalStackContainer localStack =
+      new LocalStackContainer(DockerImageName.parse("localstack/localstack:2.0.0"))
+          .withServices(LocalStackContainer.Service.DYNAMODB);
+
+  private static DynamoDbClient localstackDynamoClient;
+
+  private final Clock clock = Clock.fixed(Instant.parse("2024-06-14T19:30:00Z"), ZoneOffset.UTC);
+
+  @BeforeAll
+  static void setUp() {
+    localstackDynamoClient =
+        DynamoDbClient.builder()
+            .endpointOverride(localStack.getEndpoint())
+            .credentialsProvider(
+                StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(
+                        localStack.getAccessKey(), localStack.getSecretKey())))
+            .region(Region.of(localStack.getRegion()))
+            .build();
+  }
+
+  @BeforeEach
+  void recreateTable() {
+    environmentVariables.set("MATCHES_TABLE_NAME", TABLE_NAME);
+    try {
+      localstackDynamoClient.deleteTable(builder -> builder.tableName(TABLE_NAME));
+      localstackDynamoClient
+          .waiter()
+          .waitUntilTableNotExists(builder -> builder.tableName(TABLE_NAME));
+    } catch (ResourceNotFoundException e) {
+      // first run
+    }
+    localstackDynamoClient.createTable(
+        builder ->
+            builder
+                .tableName(TABLE_NAME)
+                .keySchema(
+                    KeySchemaElement.builder()
+                        .attributeName("primary_id")
+                        .keyType(KeyType.HASH)
+                        .build(),
+                    KeySchemaElement.builder()
+                        .attributeName("secondary_id")
+                        .keyType(KeyType.RANGE)
+                        .build())
+                .attributeDefinitions(
+                    AttributeDefinition.builder()
+                        .attributeName("primary_id")
+                        .attributeType(ScalarAttributeType.S)
+                        .build(),
+                    AttributeDefinition.builder()
+                        .attributeName("secondary_id")
+                        .attributeType(ScalarAttributeType.S)
+                        .build())
+                .provisionedThroughput(
+                    throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L)));
+    localstackDynamoClient.waiter().waitUntilTableExists(builder -> builder.tableName(TABLE_NAME));
+  }
+
+  @Test
+  void shouldReturnStoredResponse_WhenSameKeyUsedAgain() {
+    // given
+    IdempotencyDao idempotencyDao = new IdempotencyDao(localstackDynamoClient, clock);
+    idempotencyDao.saveResponse("user-1", "key-1", new IdempotentResponse(201, null, "hash"));
+    // when
+    Optional<IdempotentResponse> response = idempotencyDao.getResponse("user-1", "key-1");
+    // then
+    assertEquals(Optional.of(new IdempotentResponse(201, null, "hash")), response);
+    assertEquals(Optional.empty(), idempotencyDao.getResponse("user-2", "key-1"));
+  }
+
+  @Test
+  void shouldKeepFirstResponse_WhenSavedTwiceForSameKey() {
+    // given
+    IdempotencyDao idempotencyDao = new IdempotencyDao(localstackDynamoClient, clock);
+    idempotencyDao.saveResponse("user-1", "key-1", new IdempotentResponse(201, null, "hash"));
+    // when
+    idempotencyDao.saveResponse("user-1", "key-1", new IdempotentResponse(204, "body", "hash"));
+    // then
+    assertEquals(
+        Optional.of(new IdempotentResponse(201, null, "hash")),
+        idempotencyDao.getResponse("user-1", "key-1"));
+  }
+
+  @Test
+  void shouldNotReturnResponse_WhenStoredResponseExpired() {
+    // given
+    new IdempotencyDao(localstackDynamoClient, clock)
+        .saveResponse("user-1", "key-1", new IdempotentResponse(201, null, "hash"));
+    IdempotencyDao later =
+        new IdempotencyDao(localstackDynamoClient, Clock.offset(clock, Duration.ofHours(25)));
+    // when
+    Optional<IdempotentResponse> response = later.getResponse("user-1", "key-1");
+    // then
+    assertEquals(Optional.empty(), response);
+  }
+}
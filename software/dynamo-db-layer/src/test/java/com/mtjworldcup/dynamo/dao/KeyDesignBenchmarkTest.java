@@ -0,0 +1,250 @@
+package com.mtjworldcup.dynamo.dao;
+
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.RecordType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares the filter based queries with the key conditions that replaced them on the same data.
+@Testcontainers
+class KeyDesignBenchmarkTest {
+
+  private static final Logger log = LoggerFactory.getLogger(KeyDesignBenchmarkTest.class);
+  private static final String TABLE_NAME = "benchmark";
+  private static final LocalDate MATCH_DAY = LocalDate.of(2024, 6, 14);
+  private static final String USER_ID = "user-0";
+  private static final int USERS = 200;
+  private static final int MATCHES = 4;
+
+  @Container
+  private static final LocalStackContainer localStack =
+      new LocalStackContainer(DockerImageName.parse("localstack/localstack:2.0.0"))
+          .withServices(LocalStackContainer.Service.DYNAMODB);
+
+  private static DynamoDbClient dynamoClient;
+
+  @BeforeAll
+  static void setUp() {
+    dynamoClient =
+        DynamoDbClient.builder()
+            .endpointOverride(localStack.getEndpoint())
+            .credentialsProvider(
+                StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(
+                        localStack.getAccessKey(), localStack.getSecretKey())))
+            .region(Region.of(localStack.getRegion()))
+            .build();
+    createTable();
+    seed();
+  }
+
+  @Test
+  void shouldReadOnlyMatches_WhenMatchesForDateQueriedByKey() {
+    QueryResponse filtered =
+        query(
+            QueryRequest.builder()
+                .indexName("getByDate")
+                .keyConditionExpression("#date = :date")
+                .filterExpression("record_type = :recordType")
+                .expressionAttributeNames(Map.of("#date", "date"))
+                .expressionAttributeValues(
+                    Map.of(":date", s(MATCH_DAY.toString()), ":recordType", s("MATCH"))));
+    QueryResponse keyed =
+        query(
+            QueryRequest.builder()
+                .indexName("getByDateAndType")
+                .keyConditionExpression("#date = :date AND record_type = :recordType")
+                .expressionAttributeNames(Map.of("#date", "date"))
+                .expressionAttributeValues(
+                    Map.of(":date", s(MATCH_DAY.toString()), ":recordType", s("MATCH"))));
+    report("getByDate", filtered, keyed);
+    assertEquals(MATCHES, keyed.count());
+    assertEquals(keyed.count(), keyed.scannedCount());
+    assertTrue(filtered.scannedCount() > keyed.scannedCount());
+  }
+
+  @Test
+  void shouldReadOnlyTypings_WhenTypingsForUserQueriedFromSparseIndex() {
+    QueryResponse filtered =
+        query(
+            QueryRequest.builder()
+                .indexName("getBySecondaryId")
+                .keyConditionExpression("secondary_id = :userId")
+                .filterExpression("record_type = :recordType")
+                .expressionAttributeValues(
+                    Map.of(":userId", s(USER_ID), ":recordType", s("TYPING"))));
+    QueryResponse keyed =
+        query(
+            QueryRequest.builder()
+                .indexName("getTypingsByUser")
+                .keyConditionExpression("typing_user_id = :userId")
+                .expressionAttributeValues(Map.of(":userId", s(USER_ID))));
+    report("getTypingsByUserId", filtered, keyed);
+    assertEquals(MATCHES, keyed.count());
+    assertEquals(keyed.count(), keyed.scannedCount());
+    assertTrue(filtered.scannedCount() > keyed.scannedCount());
+  }
+
+  @Test
+  void shouldReadOnlyMessages_WhenMessagesQueriedByPrefix() {
+    QueryResponse filtered =
+        query(
+            QueryRequest.builder()
+                .keyConditionExpression("primary_id = :userId")
+                .filterExpression("record_type = :recordType")
+                .expressionAttributeValues(
+                    Map.of(":userId", s(USER_ID), ":recordType", s("MESSAGE"))));
+    QueryResponse keyed =
+        query(
+            QueryRequest.builder()
+                .keyConditionExpression(
+                    "primary_id = :userId AND begins_with(secondary_id, :prefix)")
+                .expressionAttributeValues(
+                    Map.of(":userId", s(USER_ID), ":prefix", s("message-"))));
+    report("getMessagesByUserId", filtered, keyed);
+    assertEquals(MATCHES, keyed.count());
+    assertEquals(keyed.count(), keyed.scannedCount());
+    assertTrue(filtered.scannedCount() > keyed.scannedCount());
+  }
+
+  private static QueryResponse query(QueryRequest.Builder builder) {
+    return dynamoClient.query(
+        builder.tableName(TABLE_NAME).returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build());
+  }
+
+  private static void report(String query, QueryResponse filtered, QueryResponse keyed) {
+    log.info(
+        "{}: filter scanned {} items for {} results ({} RCU), key condition scanned {} items ({} RCU)",
+        query,
+        filtered.scannedCount(),
+        filtered.count(),
+        capacity(filtered),
+        keyed.scannedCount(),
+        capacity(keyed));
+  }
+
+  private static Double capacity(QueryResponse response) {
+    return response.consumedCapacity() == null ? null : response.consumedCapacity().capacityUnits();
+  }
+
+  private static AttributeValue s(String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+
+  private static void createTable() {
+    ProvisionedThroughput throughput =
+        ProvisionedThroughput.builder().readCapacityUnits(1L).writeCapacityUnits(1L).build();
+    dynamoClient.createTable(
+        builder ->
+            builder
+                .tableName(TABLE_NAME)
+                .keySchema(key("primary_id", KeyType.HASH), key("secondary_id", KeyType.RANGE))
+                .attributeDefinitions(
+                    attribute("primary_id"),
+                    attribute("secondary_id"),
+                    attribute("date"),
+                    attribute("record_type"),
+                    attribute("typing_user_id"))
+                .provisionedThroughput(throughput)
+                .globalSecondaryIndexes(
+                    index("getBySecondaryId", "secondary_id", "primary_id", throughput),
+                    index("getByDate", "date", null, throughput),
+                    index("getByDateAndType", "date", "record_type", throughput),
+                    index("getTypingsByUser", "typing_user_id", "primary_id", throughput)));
+    dynamoClient.waiter().waitUntilTableExists(builder -> builder.tableName(TABLE_NAME));
+  }
+
+  private static void seed() {
+    DynamoDbTable<Match> table =
+        DynamoDbEnhancedClient.builder()
+            .dynamoDbClient(dynamoClient)
+            .build()
+            .table(TABLE_NAME, TableSchema.fromBean(Match.class));
+    table.putItem(item("pool-" + MATCH_DAY, "pool-" + MATCH_DAY, RecordType.POOL));
+    for (int user = 0; user < USERS; user++) {
+      table.putItem(item("user-" + user, "user-" + user, RecordType.USER));
+    }
+    for (int match = 0; match < MATCHES; match++) {
+      String matchId = "match-" + match;
+      table.putItem(item(matchId, matchId, RecordType.MATCH));
+      table.putItem(item(USER_ID, "message-" + matchId, RecordType.MESSAGE));
+      for (int user = 0; user < USERS; user++) {
+        table.putItem(item(matchId, "user-" + user, RecordType.TYPING));
+      }
+    }
+  }
+
+  private static Match item(String primaryId, String secondaryId, RecordType recordType) {
+    Match item = new Match();
+    item.setPrimaryId(primaryId);
+    item.setSecondaryId(secondaryId);
+    item.setRecordType(recordType);
+    item.setDate(MATCH_DAY);
+    item.setStartTime(LocalTime.of(21, 0));
+    item.setHomeTeam("Germany");
+    item.setAwayTeam("Scotland");
+    item.setMatchStatus(MatchStatus.SCHEDULED);
+    item.setPool(BigDecimal.ZERO);
+    return item;
+  }
+
+  private static KeySchemaElement key(String name, KeyType keyType) {
+    return KeySchemaElement.builder().attributeName(name).keyType(keyType).build();
+  }
+
+  private static AttributeDefinition attribute(String name) {
+    return AttributeDefinition.builder()
+        .attributeName(name)
+        .attributeType(ScalarAttributeType.S)
+        .build();
+  }
+
+  private static GlobalSecondaryIndex index(
+      String name, String partitionKey, String sortKey, ProvisionedThroughput throughput) {
+    KeySchemaElement[] keySchema =
+        sortKey == null
+            ? new KeySchemaElement[] {key(partitionKey, KeyType.HASH)}
+            : new KeySchemaElement[] {key(partitionKey, KeyType.HASH), key(sortKey, KeyType.RANGE)};
+    return GlobalSecondaryIndex.builder()
+        .indexName(name)
+        .keySchema(Arrays.asList(keySchema))
+        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+        .provisionedThroughput(throughput)
+        .build();
+  }
+}
@@ -1,13 +1,22 @@
 package com.mtjworldcup.dynamo.dao;
 
 import com.mtjworldcup.common.model.TypingStatus;
+import com.mtjworldcup.dynamo.migration.KickoffIndexBackfill;
+import com.mtjworldcup.dynamo.migration.TypingIndexBackfill;
+import com.mtjworldcup.dynamo.model.BulkWriteResult;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
 import com.mtjworldcup.dynamo.model.RecordType;
+import com.mtjworldcup.dynamo.model.SyncResult;
+import com.mtjworldcup.dynamo.model.TypingRecord;
+import com.mtjworldcup.dynamo.model.UserRecord;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.localstack.LocalStackContainer;
@@ -18,12 +27,18 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStub;
@@ -34,18 +49,47 @@ import java.math.MathContext;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static java.time.Month.OCTOBER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(SystemStubsExtension.class)
 @Testcontainers
 class MatchesDaoTest {
 
   private static final Logger log = LoggerFactory.getLogger(MatchesDaoTest.class);
+  // non-key attributes getByRecordTypeV2 projects in the infrastructure stack
+  private static final List<String> RECORD_TYPE_INDEX_ATTRIBUTES =
+      List.of(
+          "date",
+          "start_time",
+          "kickoff",
+          "home_team",
+          "away_team",
+          "home_score",
+          "away_score",
+          "typing_user_id",
+          "typing_status",
+          "correct_typings",
+          "pool");
   @SystemStub private EnvironmentVariables environmentVariables;
 
   @Container
@@ -88,20 +132,29 @@ class MatchesDaoTest {
         builder ->
             builder.globalSecondaryIndices(
                 gsi ->
-                    gsi.indexName("getBySecondaryId")
+                    gsi.indexName("getTypingsByUser")
                         .provisionedThroughput(
                             throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L))
                         .projection(projection -> projection.projectionType(ProjectionType.ALL)),
                 gsi ->
-                    gsi.indexName("getByDate")
+                    gsi.indexName("getByDateAndType")
                         .provisionedThroughput(
                             throughput -> throughput.writeCapacityUnits(1L).readCapacityUnits(1L))
                         .projection(projection -> projection.projectionType(ProjectionType.ALL)),
                 gsi ->
-                    gsi.indexName("getByRecordType")
+                    gsi.indexName("getByStatusAndKickoff")
                         .provisionedThroughput(
                             throughput -> throughput.writeCapacityUnits(1L).readCapacityUnits(1L))
-                        .projection(projection -> projection.projectionType(ProjectionType.ALL))));
+                        .projection(projection -> projection.projectionType(ProjectionType.ALL)),
+                gsi ->
+                    gsi.indexName("getByRecordTypeV2")
+                        .provisionedThroughput(
+                            throughput -> throughput.writeCapacityUnits(1L).readCapacityUnits(1L))
+                        .projection(
+                            projection ->
+                                projection
+                                    .projectionType(ProjectionType.INCLUDE)
+                                    .nonKeyAttributes(RECORD_TYPE_INDEX_ATTRIBUTES))));
     waitForTableCreated();
   }
 
@@ -189,6 +242,59 @@ class MatchesDaoTest {
     assertEquals(match.getPrimaryId(), matchFromDb.getPrimaryId());
   }
 
+  @Test
+  void shouldServeRepeatedReadsFromCache_WhenCachedReadClientSet() {
+    // given
+    Match match = prepareFixture("match-123", LocalTime.of(21, 0));
+    matches.putItem(match);
+    FakeDaxClient daxClient = new FakeDaxClient(localstackDynamoClient);
+    MatchesDao cachedMatchesDao =
+        new MatchesDao(
+            localstackDynamoClient,
+            localstackEnhancedClient,
+            DynamoDbEnhancedClient.builder().dynamoDbClient(daxClient).build());
+    // when
+    cachedMatchesDao.getById("match-123");
+    Match fromCache = cachedMatchesDao.getById("match-123");
+    cachedMatchesDao.getByDate(LocalDate.of(2024, 6, 14));
+    List<Match> matchDayFromCache = cachedMatchesDao.getByDate(LocalDate.of(2024, 6, 14));
+    // then
+    assertEquals("match-123", fromCache.getPrimaryId());
+    assertEquals(1, matchDayFromCache.size());
+    assertEquals(2, daxClient.hits());
+    assertEquals(2, daxClient.misses());
+  }
+
+  @Test
+  void shouldMoveBalanceBypassingCache_WhenSavingTypingsWithCachedReadClient() {
+    // given
+    Match match = prepareFixture("match-123", LocalTime.of(21, 0));
+    Match user = prepareEntity();
+    user.setPrimaryId("user-123");
+    user.setSecondaryId("user-123");
+    user.setRecordType(RecordType.USER);
+    user.setPool(new BigDecimal(50));
+    matches.putItem(match);
+    matches.putItem(user);
+    FakeDaxClient daxClient = new FakeDaxClient(localstackDynamoClient);
+    MatchesDao cachedMatchesDao =
+        new MatchesDao(
+            localstackDynamoClient,
+            localstackEnhancedClient,
+            DynamoDbEnhancedClient.builder().dynamoDbClient(daxClient).build());
+    cachedMatchesDao.getById("user-123");
+    // when
+    cachedMatchesDao.saveTypings(List.of(Match.typing(match, "user-123", 1, 0)));
+    cachedMatchesDao.saveTypingsGrouped(List.of(Match.typing(match, "user-123", 2, 0)));
+    // then
+    // the cached user keeps the old balance, the transactions checked the stored one
+    assertEquals(50, cachedMatchesDao.getById("user-123").getPool().intValue());
+    assertEquals(1, daxClient.misses());
+    assertEquals(49, matchesDao.getById("user-123").getPool().intValue());
+    assertEquals(1, matchesDao.getById("match-123").getPool().intValue());
+    assertEquals(2, matchesDao.getByCombinedKey("match-123", "user-123").getHomeScore());
+  }
+
   @Test
   void shouldSaveTwoTypes_WhenTwoDifferentMatchesPassed() throws Exception {
     // given
@@ -287,6 +393,55 @@ class MatchesDaoTest {
     assertEquals(1, matches.get(0).getPool().intValue());
   }
 
+  @Test
+  void shouldMoveOneUnitPerNewTyping_WhenTypingsOfManyUsersSavedGrouped() {
+    // given
+    Match match = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    matches.putItem(match);
+    List<Match> typings = new ArrayList<>();
+    for (int i = 1; i <= 60; i++) {
+      Match user = new Match();
+      user.setPrimaryId("user-" + i);
+      user.setSecondaryId("user-" + i);
+      user.setRecordType(RecordType.USER);
+      user.setPool(new BigDecimal(10));
+      matches.putItem(user);
+      typings.add(Match.typing(match, "user-" + i, 1, 0));
+    }
+    matchesDao.saveTypings(List.of(Match.typing(match, "user-1", 0, 0)));
+    // when
+    matchesDao.saveTypingsGrouped(typings);
+    // then
+    assertEquals(60, matchesDao.getById("fixture-1").getPool().intValue());
+    assertEquals(9, matchesDao.getById("user-1").getPool().intValue());
+    assertEquals(9, matchesDao.getById("user-60").getPool().intValue());
+    assertEquals(1, matchesDao.getByCombinedKey("fixture-1", "user-1").getHomeScore());
+    assertEquals(60, matchesDao.getTypingsByMatchId("fixture-1").size());
+  }
+
+  @Test
+  void shouldRethrow_WhenTypingTransactionCancelledByConflict() {
+    // given
+    DynamoDbClient conflictingClient = mock(DynamoDbClient.class);
+    when(conflictingClient.transactWriteItems(
+            ArgumentMatchers.<Consumer<TransactWriteItemsRequest.Builder>>any()))
+        .thenThrow(
+            TransactionCanceledException.builder()
+                .cancellationReasons(
+                    CancellationReason.builder().code("TransactionConflict").build(),
+                    CancellationReason.builder().code("None").build(),
+                    CancellationReason.builder().code("None").build())
+                .build());
+    MatchesDao conflictingDao =
+        new MatchesDao(
+            conflictingClient,
+            DynamoDbEnhancedClient.builder().dynamoDbClient(conflictingClient).build());
+    Match typing = Match.typing(prepareFixture("fixture-1", LocalTime.of(18, 0)), "user-1", 1, 0);
+    // when, then
+    assertThrows(
+        TransactionCanceledException.class, () -> conflictingDao.saveTypings(List.of(typing)));
+  }
+
   @Test
   void shouldReturnOneMatch_WhenOnlyOneMatchFinished() {
     Match match = prepareEntity();
@@ -318,6 +473,72 @@ class MatchesDaoTest {
     assertEquals(0, finishedMatches.size());
   }
 
+  @Test
+  void shouldReturnNewestMatchFirst_WhenTwoMatchesFinished() {
+    // given
+    Match older = prepareEntity();
+    older.setPrimaryId("match-123");
+    older.setDate(LocalDate.of(2024, 6, 14));
+    older.setStartTime(LocalTime.of(21, 0));
+    older.setMatchStatus(MatchStatus.FINISHED);
+    matches.putItem(older);
+    Match newer = prepareEntity();
+    newer.setPrimaryId("match-124");
+    newer.setDate(LocalDate.of(2024, 6, 15));
+    newer.setStartTime(LocalTime.of(15, 0));
+    newer.setMatchStatus(MatchStatus.FINISHED);
+    matches.putItem(newer);
+    // when
+    List<Match> finishedMatches = matchesDao.getFinishedMatches();
+    // then
+    assertEquals(List.of("match-124", "match-123"), finishedMatches.stream().map(Match::getPrimaryId).toList());
+  }
+
+  @Test
+  void shouldReturnOnlyUnfinishedMatchesInWindow_WhenMatchesOnDifferentTimes() {
+    // given
+    LocalDate matchDay = LocalDate.of(2024, 6, 14);
+    Match live = prepareEntity();
+    live.setPrimaryId("match-123");
+    live.setDate(matchDay);
+    live.setStartTime(LocalTime.of(18, 0));
+    live.setMatchStatus(MatchStatus.IN_PROGRESS);
+    matches.putItem(live);
+    Match upcoming = prepareEntity();
+    upcoming.setPrimaryId("match-124");
+    upcoming.setDate(matchDay);
+    upcoming.setStartTime(LocalTime.of(21, 0));
+    matches.putItem(upcoming);
+    Match later = prepareEntity();
+    later.setPrimaryId("match-125");
+    later.setDate(matchDay.plusDays(1));
+    later.setStartTime(LocalTime.of(15, 0));
+    matches.putItem(later);
+    Match finished = prepareEntity();
+    finished.setPrimaryId("match-126");
+    finished.setDate(matchDay);
+    finished.setStartTime(LocalTime.of(18, 0));
+    finished.setMatchStatus(MatchStatus.FINISHED);
+    matches.putItem(finished);
+    Match typing = prepareEntity();
+    typing.setPrimaryId("match-124");
+    typing.setSecondaryId("user-123");
+    typing.setDate(matchDay);
+    typing.setStartTime(LocalTime.of(21, 0));
+    typing.setRecordType(RecordType.TYPING);
+    matches.putItem(typing);
+    // when
+    List<Match> unfinishedMatches =
+        matchesDao.getUnfinishedMatchesBetween(
+            LocalDateTime.of(matchDay, LocalTime.of(17, 0)),
+            LocalDateTime.of(matchDay, LocalTime.of(21, 0)));
+    // then
+    assertEquals(
+        List.of("match-123", "match-124"),
+        unfinishedMatches.stream().map(Match::getPrimaryId).toList());
+    assertTrue(unfinishedMatches.stream().allMatch(match -> match.getRecordType() == RecordType.MATCH));
+  }
+
   @Test
   void shouldReturnNoTypingsForUser_WhenNoTypingsInDb() {
     // given
@@ -364,7 +585,7 @@ class MatchesDaoTest {
   @Test
   void shouldReturnNoTypings_WhenNoTypingsInDb() {
     // when
-    List<Match> typings = matchesDao.getAllTypings();
+    List<TypingRecord> typings = matchesDao.getTypingRecords();
     // then
     assertEquals(0, typings.size());
   }
@@ -383,11 +604,68 @@ class MatchesDaoTest {
     Match match = prepareEntity();
     matches.putItem(match);
     // when
-    List<Match> typings = matchesDao.getAllTypings();
+    List<TypingRecord> typings = matchesDao.getTypingRecords();
     // then
     assertEquals(2, typings.size());
   }
 
+  @Test
+  void shouldReadUserRecordsWithoutPushTokens_WhenUsersListed() {
+    // given
+    Match user = prepareEntity();
+    user.setPrimaryId("user-123");
+    user.setSecondaryId("user-123");
+    user.setRecordType(RecordType.USER);
+    user.setCorrectTypings(3);
+    user.setPool(new BigDecimal("12.50"));
+    user.setFcmToken("fcm-token");
+    user.setEndpointArn("endpoint-arn");
+    matches.putItem(user);
+    // when
+    List<UserRecord> users = matchesDao.getUserRecords();
+    // then
+    assertEquals(1, users.size());
+    UserRecord listed = users.get(0);
+    assertEquals("user-123", listed.userId());
+    assertEquals(3, listed.correctTypings());
+    assertEquals(new Money(1250), listed.pool());
+  }
+
+  @Test
+  void shouldReadOnlyTypingRecords_WhenTypingsListed() {
+    // given
+    Match typing = prepareEntity();
+    typing.setRecordType(RecordType.TYPING);
+    typing.setSecondaryId("user-123");
+    typing.setTypingStatus(TypingStatus.CORRECT);
+    matches.putItem(typing);
+    matches.putItem(prepareEntity());
+    // when
+    List<TypingRecord> typings = matchesDao.getTypingRecords();
+    // then
+    assertEquals(1, typings.size());
+    TypingRecord listed = typings.get(0);
+    assertEquals(typing.getPrimaryId(), listed.matchId());
+    assertEquals("user-123", listed.userId());
+    assertEquals(typing.getDate(), listed.date());
+    assertEquals(typing.getHomeTeam(), listed.homeTeam());
+    assertEquals(typing.getHomeScore(), listed.homeScore());
+    assertEquals(TypingStatus.CORRECT, listed.typingStatus());
+  }
+
+  @Test
+  void shouldProjectEveryMappedAttribute_WhenRecordsListedByType() {
+    // given
+    Set<String> projected = new HashSet<>(RECORD_TYPE_INDEX_ATTRIBUTES);
+    projected.addAll(List.of("primary_id", "secondary_id", "record_type"));
+    // when
+    List<String> typingAttributes = TypingRecord.SCHEMA.attributeNames();
+    List<String> userAttributes = UserRecord.SCHEMA.attributeNames();
+    // then
+    assertTrue(projected.containsAll(typingAttributes));
+    assertTrue(projected.containsAll(userAttributes));
+  }
+
   @Test
   void shouldReturn100TodayPool_When100InDb() {
     // given
@@ -434,6 +712,253 @@ class MatchesDaoTest {
     assertEquals(MatchStatus.FINISHED, matchFromDb.getMatchStatus());
   }
 
+  @Test
+  void shouldWriteOnlyLiveFieldsAndBumpVersion_WhenLiveStateUpdated() {
+    // given
+    Match match = prepareEntity();
+    match.setHomeTeam("Germany");
+    matches.putItem(match);
+    Match liveState = matchesDao.getById(match.getPrimaryId());
+    liveState.setHomeScore(2);
+    liveState.setAwayScore(null);
+    liveState.setMatchStatus(MatchStatus.FINISHED);
+    liveState.setHomeTeam("changed");
+    // when
+    boolean updated = matchesDao.updateLiveState(liveState);
+    // then
+    assertTrue(updated);
+    Match matchFromDb = matchesDao.getById(match.getPrimaryId());
+    assertEquals(2, matchFromDb.getHomeScore());
+    assertNull(matchFromDb.getAwayScore());
+    assertEquals(MatchStatus.FINISHED, matchFromDb.getMatchStatus());
+    assertEquals("Germany", matchFromDb.getHomeTeam());
+    assertEquals(1L, matchFromDb.getVersion());
+  }
+
+  @Test
+  void shouldRejectUpdate_WhenLiveStateReadFromStaleVersion() {
+    // given
+    Match match = prepareEntity();
+    matches.putItem(match);
+    Match first = matchesDao.getById(match.getPrimaryId());
+    Match second = matchesDao.getById(match.getPrimaryId());
+    first.setHomeScore(2);
+    assertTrue(matchesDao.updateLiveState(first));
+    second.setHomeScore(3);
+    // when
+    boolean updated = matchesDao.updateLiveState(second);
+    // then
+    assertFalse(updated);
+    Match matchFromDb = matchesDao.getById(match.getPrimaryId());
+    assertEquals(2, matchFromDb.getHomeScore());
+    assertEquals(1L, matchFromDb.getVersion());
+  }
+
+  @Test
+  void shouldKeepEveryIncrement_WhenPoolAddedConcurrently() throws Exception {
+    // given
+    matches.putItem(prepareFixture("fixture-1", LocalTime.of(18, 0)));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    // when
+    List<Future<?>> increments = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      increments.add(
+          executor.submit(() -> matchesDao.addToPool("fixture-1", new Money(250))));
+    }
+    for (Future<?> increment : increments) {
+      increment.get();
+    }
+    executor.shutdown();
+    // then
+    assertEquals(0, new BigDecimal(50).compareTo(matchesDao.getById("fixture-1").getPool()));
+  }
+
+  @Test
+  void shouldNotCreateRecord_WhenPoolAddedToMissingRecord() {
+    // when, then
+    assertThrows(
+        NoSuchElementException.class,
+        () -> matchesDao.addToPool("pool-2024-06-15", Money.ofZloty(10)));
+    assertNull(matchesDao.getById("pool-2024-06-15"));
+  }
+
+  @Test
+  void shouldAddPoolAndCorrectTypings_WhenIncrementsWrittenInTransaction() {
+    // given
+    Match user = prepareEntity();
+    user.setPrimaryId("user-123");
+    user.setSecondaryId("user-123");
+    user.setRecordType(RecordType.USER);
+    user.setPool(new BigDecimal(50));
+    user.setCorrectTypings(2);
+    matches.putItem(user);
+    Match match = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    match.setPool(new BigDecimal(10));
+    matches.putItem(match);
+    match.setPool(BigDecimal.ZERO);
+    // when
+    matchesDao.transactWriteItems(
+        List.of(TransactUpdateItemEnhancedRequest.builder(Match.class).item(match).build()),
+        List.of(),
+        List.of(new PoolIncrement("user-123", Money.ofZloty(10), 1)));
+    // then
+    Match userFromDb = matchesDao.getById("user-123");
+    assertEquals(60, userFromDb.getPool().intValue());
+    assertEquals(3, userFromDb.getCorrectTypings());
+    assertEquals(0, matchesDao.getById("fixture-1").getPool().intValue());
+  }
+
+  @Test
+  void shouldWriteNothing_WhenConditionOfFirstUpdateFails() {
+    // given
+    Match user = prepareEntity();
+    user.setPrimaryId("user-123");
+    user.setSecondaryId("user-123");
+    user.setRecordType(RecordType.USER);
+    user.setPool(new BigDecimal(50));
+    matches.putItem(user);
+    Match match = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    match.setDisplayPool(new BigDecimal(10));
+    matches.putItem(match);
+    match.setPool(BigDecimal.ZERO);
+    var settleOnce =
+        TransactUpdateItemEnhancedRequest.builder(Match.class)
+            .item(match)
+            .conditionExpression(
+                Expression.builder().expression("attribute_not_exists(display_pool)").build())
+            .build();
+    // when
+    boolean written =
+        matchesDao.transactWriteItems(
+            List.of(settleOnce),
+            List.of(),
+            List.of(new PoolIncrement("user-123", Money.ofZloty(10), 1)));
+    // then
+    assertFalse(written);
+    assertEquals(50, matchesDao.getById("user-123").getPool().intValue());
+  }
+
+  @Test
+  void shouldApplyDivisionOnce_WhenPoolOfTheSameDayDividedTwice() {
+    // given
+    matches.putItem(prepareFixture("fixture-1", LocalTime.of(18, 0)));
+    matches.putItem(prepareFixture("fixture-2", LocalTime.of(21, 0)));
+    List<PoolIncrement> increments =
+        List.of(
+            PoolIncrement.of("fixture-1", new Money(3333)),
+            PoolIncrement.of("fixture-2", new Money(3333)));
+    LocalDate day = LocalDate.of(2024, 6, 14);
+    // when
+    boolean first = matchesDao.dividePool(day, new Money(6667), increments);
+    boolean retried = matchesDao.dividePool(day, new Money(6667), increments);
+    // then
+    assertTrue(first);
+    assertFalse(retried);
+    assertEquals(
+        0, new BigDecimal("33.33").compareTo(matchesDao.getById("fixture-1").getPool()));
+    assertEquals(
+        0, new BigDecimal("33.33").compareTo(matchesDao.getById("fixture-2").getPool()));
+  }
+
+  @Test
+  void shouldReturnPoolOfNextMatchDay_WhenRestDayInBetween() {
+    // given
+    matches.putItem(Match.emptyPool(LocalDate.of(2024, 6, 14)));
+    matches.putItem(Match.emptyPool(LocalDate.of(2024, 6, 17)));
+    matches.putItem(Match.emptyPool(LocalDate.of(2024, 6, 18)));
+    // when
+    Optional<Match> nextPool = matchesDao.getNextPool(LocalDate.of(2024, 6, 14));
+    Optional<Match> afterLast = matchesDao.getNextPool(LocalDate.of(2024, 6, 18));
+    // then
+    assertEquals(Optional.of("pool-2024-06-17"), nextPool.map(Match::getPrimaryId));
+    assertEquals(Optional.empty(), afterLast);
+  }
+
+  @Test
+  void shouldNotCountMatchTwice_WhenSettleRetried() {
+    // given
+    LocalDate day = LocalDate.of(2024, 6, 14);
+    matchesDao.markSettled(day, "fixture-1");
+    // when
+    matchesDao.markSettled(day, "fixture-2");
+    Set<String> settled = matchesDao.markSettled(day, "fixture-1");
+    // then
+    assertEquals(Set.of("fixture-1", "fixture-2"), settled);
+  }
+
+  @Test
+  void shouldClassifyEveryEntity_WhenSavedInBulk() {
+    // given
+    matches.putItem(prepareFixture("fixture-1", LocalTime.of(18, 0)));
+    List<Match> entities = new ArrayList<>();
+    for (int i = 1; i <= 20; i++) {
+      entities.add(prepareFixture("fixture-" + i, LocalTime.of(18, 0)));
+    }
+    entities.add(new Match());
+    // when
+    BulkWriteResult result = matchesDao.saveIfNotExists(entities);
+    // then
+    assertEquals(19, result.created().size());
+    assertEquals(List.of("fixture-1"), result.alreadyExisting());
+    assertEquals(1, result.failed().size());
+    assertTrue(result.hasFailures());
+    assertEquals(20, matchesDao.getByDate(LocalDate.of(2024, 6, 14)).size());
+  }
+
+  @Test
+  void shouldInsertOnlyNewFixtures_WhenSomeAlreadyStored() {
+    // given
+    Match stored = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    matches.putItem(stored);
+    List<Match> fixtures = new ArrayList<>();
+    for (int i = 1; i <= 30; i++) {
+      fixtures.add(prepareFixture("fixture-" + i, LocalTime.of(18, 0)));
+    }
+    // when
+    SyncResult result = matchesDao.syncFixtures(fixtures);
+    // then
+    assertEquals(new SyncResult(29, 0, 1), result);
+    assertEquals(30, matchesDao.getByDate(LocalDate.of(2024, 6, 14)).size());
+  }
+
+  @Test
+  void shouldMoveKickoffAndKeepLiveState_WhenFixtureRescheduled() {
+    // given
+    Match stored = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    stored.setPool(new BigDecimal(5));
+    matches.putItem(stored);
+    Match rescheduled = prepareFixture("fixture-1", LocalTime.of(21, 0));
+    rescheduled.setDate(LocalDate.of(2024, 6, 15));
+    // when
+    SyncResult result = matchesDao.syncFixtures(List.of(rescheduled));
+    // then
+    assertEquals(new SyncResult(0, 1, 0), result);
+    Match matchFromDb = matchesDao.getById("fixture-1");
+    assertEquals(LocalDate.of(2024, 6, 15), matchFromDb.getDate());
+    assertEquals(LocalTime.of(21, 0), matchFromDb.getStartTime());
+    assertEquals(0, new BigDecimal(5).compareTo(matchFromDb.getPool()));
+    assertEquals(
+        1,
+        matchesDao
+            .getUnfinishedMatchesBetween(
+                LocalDateTime.of(2024, 6, 15, 20, 0), LocalDateTime.of(2024, 6, 15, 22, 0))
+            .size());
+  }
+
+  @Test
+  void shouldNotMoveKickoff_WhenMatchAlreadyStarted() {
+    // given
+    Match stored = prepareFixture("fixture-1", LocalTime.of(18, 0));
+    stored.setMatchStatus(MatchStatus.IN_PROGRESS);
+    matches.putItem(stored);
+    // when
+    SyncResult result =
+        matchesDao.syncFixtures(List.of(prepareFixture("fixture-1", LocalTime.of(18, 30))));
+    // then
+    assertEquals(new SyncResult(0, 0, 1), result);
+    assertEquals(LocalTime.of(18, 0), matchesDao.getById("fixture-1").getStartTime());
+  }
+
   @Test
   void shouldReturnOneMessage_WhenOneMessageForUserAvailable() {
     // given
@@ -469,6 +994,143 @@ class MatchesDaoTest {
     assertEquals(1, messages.size());
   }
 
+  @Test
+  void shouldReturnOnlyMatches_WhenTypingsAndPoolShareTheDate() {
+    // given
+    LocalDate matchDate = LocalDate.of(2023, OCTOBER, 29);
+    Match match = prepareEntity();
+    match.setPrimaryId("match-123");
+    match.setSecondaryId("match-123");
+    match.setDate(matchDate);
+    matches.putItem(match);
+    Match typing = prepareEntity();
+    typing.setPrimaryId("match-123");
+    typing.setSecondaryId("user-123");
+    typing.setRecordType(RecordType.TYPING);
+    typing.setDate(matchDate);
+    matches.putItem(typing);
+    Match pool = prepareEntity();
+    pool.setPrimaryId("pool-" + matchDate);
+    pool.setSecondaryId("pool-" + matchDate);
+    pool.setRecordType(RecordType.POOL);
+    pool.setDate(matchDate);
+    matches.putItem(pool);
+    // when
+    List<Match> matchesFromDatabase = matchesDao.getByDate(matchDate);
+    // then
+    assertEquals(1, matchesFromDatabase.size());
+    assertEquals(RecordType.MATCH, matchesFromDatabase.get(0).getRecordType());
+    assertEquals(RecordType.POOL, matchesDao.getPool(matchDate).orElseThrow().getRecordType());
+  }
+
+  @Test
+  void shouldReturnSavedMatches_WhenSnapshotSaved() {
+    // given
+    LocalDate matchDate = LocalDate.of(2023, OCTOBER, 29);
+    Match match = prepareEntity();
+    match.setDate(matchDate);
+    match.setMatchStatus(MatchStatus.FINISHED);
+    // when
+    matchesDao.saveSnapshot(matchDate, List.of(match));
+    // then
+    List<Match> snapshot = matchesDao.getSnapshot(matchDate).orElseThrow();
+    assertEquals(1, snapshot.size());
+    assertEquals(match.getPrimaryId(), snapshot.get(0).getPrimaryId());
+    assertEquals(MatchStatus.FINISHED, snapshot.get(0).getMatchStatus());
+    assertEquals(0, matchesDao.getByDate(matchDate).size());
+  }
+
+  @Test
+  void shouldReturnEmptySnapshot_WhenNoSnapshotSaved() {
+    // when
+    var snapshot = matchesDao.getSnapshot(LocalDate.of(2023, OCTOBER, 29));
+    // then
+    assertTrue(snapshot.isEmpty());
+  }
+
+  @Test
+  void shouldNotReturnUserRecord_WhenMessagesForUserRequested() {
+    // given
+    String userId = "user-123";
+    Match user = prepareEntity();
+    user.setPrimaryId(userId);
+    user.setSecondaryId(userId);
+    user.setRecordType(RecordType.USER);
+    matches.putItem(user);
+    Match message = prepareEntity();
+    message.setPrimaryId(userId);
+    message.setSecondaryId("message-123");
+    message.setRecordType(RecordType.MESSAGE);
+    matches.putItem(message);
+    // when
+    List<Match> messages = matchesDao.getMessagesByUserId(userId);
+    // then
+    assertEquals(1, messages.size());
+    assertEquals(RecordType.MESSAGE, messages.get(0).getRecordType());
+  }
+
+  @Test
+  void shouldFindTypingByUser_WhenTypingIndexBackfilled() throws Exception {
+    // given
+    String userId = "user-123";
+    localstackDynamoClient.putItem(
+        builder ->
+            builder
+                .tableName("matches")
+                .item(
+                    Map.of(
+                        "primary_id", AttributeValue.builder().s("match-123").build(),
+                        "secondary_id", AttributeValue.builder().s(userId).build(),
+                        "record_type", AttributeValue.builder().s(RecordType.TYPING.name()).build())));
+    assertEquals(0, matchesDao.getTypingsByUserId(userId).size());
+    // when
+    int updated = new TypingIndexBackfill(localstackDynamoClient, "matches", 0).run();
+    // then
+    assertEquals(1, updated);
+    assertEquals(1, matchesDao.getTypingsByUserId(userId).size());
+    assertEquals(0, new TypingIndexBackfill(localstackDynamoClient, "matches", 0).run());
+  }
+
+  @Test
+  void shouldFindMatchByKickoff_WhenKickoffIndexBackfilled() throws Exception {
+    // given
+    localstackDynamoClient.putItem(
+        builder ->
+            builder
+                .tableName("matches")
+                .item(
+                    Map.of(
+                        "primary_id", AttributeValue.builder().s("match-123").build(),
+                        "secondary_id", AttributeValue.builder().s("match-123").build(),
+                        "record_type", AttributeValue.builder().s(RecordType.MATCH.name()).build(),
+                        "match_status", AttributeValue.builder().s(MatchStatus.SCHEDULED.name()).build(),
+                        "date", AttributeValue.builder().s("2024-06-14").build(),
+                        "start_time", AttributeValue.builder().s("21:00").build())));
+    LocalDateTime from = LocalDateTime.of(2024, 6, 14, 20, 0);
+    LocalDateTime to = LocalDateTime.of(2024, 6, 14, 22, 0);
+    assertEquals(0, matchesDao.getUnfinishedMatchesBetween(from, to).size());
+    // when
+    int updated = new KickoffIndexBackfill(localstackDynamoClient, "matches", 0).run();
+    // then
+    assertEquals(1, updated);
+    assertEquals(1, matchesDao.getUnfinishedMatchesBetween(from, to).size());
+    assertEquals(0, new KickoffIndexBackfill(localstackDynamoClient, "matches", 0).run());
+  }
+
+  private Match prepareFixture(String id, LocalTime startTime) {
+    Match match = new Match();
+    match.setPrimaryId(id);
+    match.setSecondaryId(id);
+    match.setDate(LocalDate.of(2024, 6, 14));
+    match.setStartTime(startTime);
+    match.setHomeTeam("Niemcy");
+    match.setAwayTeam("Szkocja");
+    match.setRecordType(RecordType.MATCH);
+    match.setMatchStatus(MatchStatus.SCHEDULED);
+    match.setPool(new BigDecimal(0));
+    return match;
+  }
+
   private Match prepareEntity() {
     Random random = new Random();
     Match match = new Match();
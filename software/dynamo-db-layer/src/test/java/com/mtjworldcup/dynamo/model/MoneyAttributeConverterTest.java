@@ -0,0 +1,29 @@
+package com.mtjworldcup.dynamo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class MoneyAttributeConverterTest {
+
+  private final MoneyAttributeConverter converter = new MoneyAttributeConverter();
+
+  @Test
+  void shouldReadPool_WhenWrittenAsBigDecimalByMatch() {
+    // given
+    AttributeValue stored = AttributeValue.builder().n("12.5").build();
+    // when
+    Money money = converter.transformTo(stored);
+    // then
+    assertEquals(new Money(1250), money);
+  }
+
+  @Test
+  void shouldWriteZlotyNumber_WhenMoneyStored() {
+    // when
+    AttributeValue stored = converter.transformFrom(new Money(1250));
+    // then
+    assertEquals(AttributeValue.builder().n("12.50").build(), stored);
+  }
+}
@@ -0,0 +1,63 @@
+package com.mtjworldcup.dynamo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+  @Test
+  void shouldKeepRemainder_WhenSplitUnevenly() {
+    // given
+    Money pool = Money.ofZloty(200);
+    // when
+    Money.Split split = pool.split(3);
+    // then
+    assertEquals(new Money(6666), split.share());
+    assertEquals(new Money(2), split.remainder());
+    assertEquals(pool, split.share().times(3).plus(split.remainder()));
+  }
+
+  @Test
+  void shouldThrow_WhenSplitIntoNoParts() {
+    // when, then
+    assertThrows(IllegalArgumentException.class, () -> Money.ofZloty(10).split(0));
+  }
+
+  @Test
+  void shouldCutOffFractionsOfGrosz_WhenCreatedFromDecimal() {
+    // when
+    Money money = Money.of(new BigDecimal("33.339"));
+    // then
+    assertEquals(new Money(3333), money);
+    assertEquals(new BigDecimal("33.33"), money.toBigDecimal());
+  }
+
+  @Test
+  void shouldBeEqual_WhenSameAmountWithDifferentScale() {
+    // when, then
+    assertEquals(Money.of(new BigDecimal("50")), Money.of(new BigDecimal("50.00")));
+  }
+
+  @Test
+  void shouldSortByAmount() {
+    // given
+    List<Money> amounts = List.of(new Money(250), Money.ZERO, new Money(-100));
+    // when
+    List<Money> sorted = amounts.stream().sorted().toList();
+    // then
+    assertEquals(List.of(new Money(-100), Money.ZERO, new Money(250)), sorted);
+  }
+
+  @Test
+  void shouldPrintZlotyWithTwoDecimals() {
+    // when, then
+    assertEquals(
+        List.of("12.50", "-0.05", "0.00"),
+        Stream.of(new Money(1250), new Money(-5), Money.ZERO).map(Money::toString).toList());
+  }
+}
@@ -0,0 +1,71 @@
+package com.mtjworldcup.dynamo.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class TableRecordTest {
+
+  @Test
+  void shouldMapMatchRecord_WhenItemIsMatch() {
+    // given
+    Map<String, AttributeValue> item =
+        Map.of(
+            "primary_id", string("fixture-1"),
+            "secondary_id", string("fixture-1"),
+            "record_type", string("MATCH"),
+            "date", string("2024-06-14"),
+            "start_time", string("21:00"),
+            "home_team", string("Germany"),
+            "away_team", string("Scotland"),
+            "pool", AttributeValue.builder().n("12.5").build());
+    // when
+    TableRecord tableRecord = TableRecord.from(item);
+    // then
+    assertEquals(
+        new MatchRecord(
+            "fixture-1",
+            LocalDate.of(2024, 6, 14),
+            LocalTime.of(21, 0),
+            "Germany",
+            "Scotland",
+            null,
+            null,
+            new Money(1250)),
+        tableRecord);
+  }
+
+  @Test
+  void shouldMapUserRecord_WhenItemIsUser() {
+    // given
+    Map<String, AttributeValue> item =
+        Map.of(
+            "primary_id", string("user-1"),
+            "secondary_id", string("user-1"),
+            "record_type", string("USER"),
+            "correct_typings", AttributeValue.builder().n("3").build(),
+            "pool", AttributeValue.builder().n("10").build());
+    // when
+    TableRecord tableRecord = TableRecord.from(item);
+    // then
+    assertEquals(new UserRecord("user-1", 3, Money.ofZloty(10)), tableRecord);
+  }
+
+  @Test
+  void shouldThrow_WhenRecordTypeHasNoTypedRecord() {
+    // given
+    Map<String, AttributeValue> item =
+        Map.of("primary_id", string("pool-2024-06-14"), "record_type", string("POOL"));
+    // when, then
+    assertThrows(IllegalArgumentException.class, () -> TableRecord.from(item));
+  }
+
+  private static AttributeValue string(String value) {
+    return AttributeValue.builder().s(value).build();
+  }
+}
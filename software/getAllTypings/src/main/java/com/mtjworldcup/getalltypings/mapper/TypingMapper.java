@@ -1,7 +1,7 @@
 package com.mtjworldcup.getalltypings.mapper;
 
 import com.mtjworldcup.common.model.TypingStatus;
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.TypingRecord;
 import com.mtjworldcup.getalltypings.model.TypingDto;
 
 import java.util.List;
@@ -12,16 +12,16 @@ public class TypingMapper {
         // Utility class
     }
 
-    public static TypingDto toTypingDto(Match match) {
-        return new TypingDto(match.getDate(),
-                match.getHomeTeam() + " - " + match.getAwayTeam(),
-                match.getSecondaryId(),
-                match.getHomeScore() + " - " + match.getAwayScore(),
-                match.getTypingStatus() == TypingStatus.CORRECT);
+    public static TypingDto toTypingDto(TypingRecord typing) {
+        return new TypingDto(typing.date(),
+                typing.homeTeam() + " - " + typing.awayTeam(),
+                typing.userId(),
+                typing.homeScore() + " - " + typing.awayScore(),
+                typing.typingStatus() == TypingStatus.CORRECT);
     }
 
-    public static List<TypingDto> toTypingDto(List<Match> matches) {
-        return matches.stream()
+    public static List<TypingDto> toTypingDto(List<TypingRecord> typings) {
+        return typings.stream()
                 .map(TypingMapper::toTypingDto)
                 .toList();
     }
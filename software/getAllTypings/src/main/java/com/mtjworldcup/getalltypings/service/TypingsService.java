@@ -2,7 +2,7 @@ package com.mtjworldcup.getalltypings.service;
 
 import com.mtjworldcup.common.model.TypingStatus;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.TypingRecord;
 import com.mtjworldcup.getalltypings.mapper.TypingMapper;
 import com.mtjworldcup.getalltypings.model.TypingDto;
 import org.slf4j.Logger;
@@ -36,10 +36,10 @@ public class TypingsService {
 
     public Map<LocalDate, Map<String, Set<TypingDto>>> getAllTypings() {
         try {
-            List<Match> allTypings = matchesDao.getAllTypings();
+            List<TypingRecord> allTypings = matchesDao.getTypingRecords();
             log.info("Typings fetched from DB: {}.", allTypings);
-            List<Match> typingsForFinishedMatches = allTypings.stream()
-                    .filter(match -> match.getTypingStatus() != TypingStatus.UNKNOWN)
+            List<TypingRecord> typingsForFinishedMatches = allTypings.stream()
+                    .filter(typing -> typing.typingStatus() != TypingStatus.UNKNOWN)
                     .toList();
             var typingDtos = TypingMapper.toTypingDto(typingsForFinishedMatches);
             log.info("Typings mapped to DTOs: {}.", typingDtos);
@@ -4,7 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.mtjworldcup.common.model.TypingStatus;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.TypingRecord;
 import com.mtjworldcup.getalltypings.model.TypingDto;
 import org.junit.jupiter.api.Test;
 
@@ -31,7 +31,7 @@ class TypingsServiceTest {
     void returnNoTypings_WhenNoTypingsInDb() {
         //given
         TypingsService typingsService = new TypingsService(mockMatchesDao);
-        when(mockMatchesDao.getAllTypings()).thenReturn(List.of());
+        when(mockMatchesDao.getTypingRecords()).thenReturn(List.of());
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -43,8 +43,8 @@ class TypingsServiceTest {
         //given
         TypingsService typingsService = new TypingsService(mockMatchesDao);
         LocalDate date = LocalDate.of(2024, 4, 8);
-        Match match = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
-        when(mockMatchesDao.getAllTypings()).thenReturn(List.of(match));
+        TypingRecord match = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
+        when(mockMatchesDao.getTypingRecords()).thenReturn(List.of(match));
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -57,9 +57,9 @@ class TypingsServiceTest {
         //given
         TypingsService typingsService = new TypingsService(mockMatchesDao);
         LocalDate date = LocalDate.of(2024, 4, 8);
-        Match match1 = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
-        Match match2 = prepareMatch(date, "Germany", "France", CORRECT, "user-2");
-        when(mockMatchesDao.getAllTypings()).thenReturn(List.of(match1, match2));
+        TypingRecord match1 = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
+        TypingRecord match2 = prepareMatch(date, "Germany", "France", CORRECT, "user-2");
+        when(mockMatchesDao.getTypingRecords()).thenReturn(List.of(match1, match2));
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -72,10 +72,10 @@ class TypingsServiceTest {
         //given
         TypingsService typingsService = new TypingsService(mockMatchesDao);
         LocalDate date = LocalDate.of(2024, 4, 8);
-        Match match1 = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
-        Match match2 = prepareMatch(date, "Germany", "France", INCORRECT, "user-2");
-        Match match3 = prepareMatch(date, "Italy", "Spain", UNKNOWN, "user-3");
-        when(mockMatchesDao.getAllTypings()).thenReturn(List.of(match1, match2, match3));
+        TypingRecord match1 = prepareMatch(date, "Poland", "Brazil", CORRECT, "user-1");
+        TypingRecord match2 = prepareMatch(date, "Germany", "France", INCORRECT, "user-2");
+        TypingRecord match3 = prepareMatch(date, "Italy", "Spain", UNKNOWN, "user-3");
+        when(mockMatchesDao.getTypingRecords()).thenReturn(List.of(match1, match2, match3));
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -87,7 +87,7 @@ class TypingsServiceTest {
     void shouldReturnNoTypings_WhenExceptionThrown() {
         //given
         TypingsService typingsService = new TypingsService(mockMatchesDao);
-        when(mockMatchesDao.getAllTypings()).thenThrow(new RuntimeException("Exception"));
+        when(mockMatchesDao.getTypingRecords()).thenThrow(new RuntimeException("Exception"));
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -101,17 +101,17 @@ class TypingsServiceTest {
         LocalDate date1 = LocalDate.of(2024, 4, 8);
         LocalDate date2 = LocalDate.of(2024, 4, 9);
         LocalDate date3 = LocalDate.of(2024, 4, 10);
-        Match match1 = prepareMatch(date1, "Poland", "Brazil", CORRECT, "user-1");
-        Match match8 = prepareMatch(date1, "Poland", "Brazil", CORRECT, "user-2");
-        Match match6 = prepareMatch(date1, "England", "Croatia", CORRECT, "user-1");
-        Match match7 = prepareMatch(date1, "Uruguay", "Chile", CORRECT, "user-1");
-        Match match9 = prepareMatch(date1, "Uruguay", "Chile", INCORRECT, "user-2");
-        Match match10 = prepareMatch(date1, "Japan", "South Korea", UNKNOWN, "user-2");
-        Match match3 = prepareMatch(date3, "Italy", "Spain", UNKNOWN, "user-1");
-        Match match4 = prepareMatch(date3, "Italy", "Spain", UNKNOWN, "user-2");
-        Match match2 = prepareMatch(date2, "Germany", "France", CORRECT, "user-2");
-        Match match5 = prepareMatch(date2, "Germany", "France", CORRECT, "user-1");
-        when(mockMatchesDao.getAllTypings()).thenReturn(List.of(match1, match2, match3, match4, match5, match6, match7, match8, match9, match10));
+        TypingRecord match1 = prepareMatch(date1, "Poland", "Brazil", CORRECT, "user-1");
+        TypingRecord match8 = prepareMatch(date1, "Poland", "Brazil", CORRECT, "user-2");
+        TypingRecord match6 = prepareMatch(date1, "England", "Croatia", CORRECT, "user-1");
+        TypingRecord match7 = prepareMatch(date1, "Uruguay", "Chile", CORRECT, "user-1");
+        TypingRecord match9 = prepareMatch(date1, "Uruguay", "Chile", INCORRECT, "user-2");
+        TypingRecord match10 = prepareMatch(date1, "Japan", "South Korea", UNKNOWN, "user-2");
+        TypingRecord match3 = prepareMatch(date3, "Italy", "Spain", UNKNOWN, "user-1");
+        TypingRecord match4 = prepareMatch(date3, "Italy", "Spain", UNKNOWN, "user-2");
+        TypingRecord match2 = prepareMatch(date2, "Germany", "France", CORRECT, "user-2");
+        TypingRecord match5 = prepareMatch(date2, "Germany", "France", CORRECT, "user-1");
+        when(mockMatchesDao.getTypingRecords()).thenReturn(List.of(match1, match2, match3, match4, match5, match6, match7, match8, match9, match10));
         //when
         var allTypings = typingsService.getAllTypings();
         //then
@@ -121,15 +121,7 @@ class TypingsServiceTest {
         assertNull(allTypings.get(date3));
     }
 
-    private Match prepareMatch(LocalDate date, String homeTeam, String awayTeam, TypingStatus typingStatus, String user) {
-        Match match = new Match();
-        match.setDate(date);
-        match.setHomeTeam(homeTeam);
-        match.setAwayTeam(awayTeam);
-        match.setSecondaryId(user);
-        match.setHomeScore(2);
-        match.setAwayScore(1);
-        match.setTypingStatus(typingStatus);
-        return match;
+    private TypingRecord prepareMatch(LocalDate date, String homeTeam, String awayTeam, TypingStatus typingStatus, String user) {
+        return new TypingRecord("match-1", user, date, homeTeam, awayTeam, 2, 1, typingStatus);
     }
 }
\ No newline at end of file
@@ -10,9 +10,14 @@ import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.dynamo.model.MatchStatus;
 import com.mtjworldcup.getcurrentstatefromapi.service.MatchStateService;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollPlanner;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollScheduler;
 import org.slf4j.Logger;
 
-import java.time.LocalDate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -27,68 +32,133 @@ import static org.slf4j.LoggerFactory.*;
 public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private static final Logger log = getLogger(Handler.class);
+    // match dates and start times are stored in polish local time
+    private static final ZoneId MATCH_ZONE = ZoneId.of("Europe/Warsaw");
+    // long enough to cover extra time, penalties and the delay of the last poll after the final whistle
+    private static final Duration LIVE_WINDOW = Duration.ofHours(4);
+    private static final Duration KICKOFF_LEAD = Duration.ofMinutes(5);
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(5);
 
     private final MatchesDao matchesDao;
     private final MatchStateService matchStateService;
+    private final PollPlanner pollPlanner;
+    private final PollScheduler pollScheduler;
+    private final Clock clock;
 
     public Handler() {
         this.matchesDao = new MatchesDao();
         this.matchStateService = new MatchStateService();
+        this.pollPlanner = new PollPlanner();
+        this.pollScheduler = new PollScheduler();
+        this.clock = Clock.system(MATCH_ZONE);
     }
 
-    public Handler(MatchesDao matchesDao, MatchStateService matchStateService) {
+    public Handler(MatchesDao matchesDao, MatchStateService matchStateService, PollPlanner pollPlanner,
+                   PollScheduler pollScheduler, Clock clock) {
         this.matchesDao = matchesDao;
         this.matchStateService = matchStateService;
+        this.pollPlanner = pollPlanner;
+        this.pollScheduler = pollScheduler;
+        this.clock = clock;
     }
 
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        LocalDateTime now = LocalDateTime.now(clock.withZone(MATCH_ZONE));
+        List<Match> unfinishedMatches;
         try {
-            List<Match> unfinishedMatches = matchesDao.getByDate(LocalDate.now())
+            unfinishedMatches = matchesDao.getUnfinishedMatchesBetween(
+                            now.minus(LIVE_WINDOW), now.toLocalDate().plusDays(1).atStartOfDay())
                     .stream()
                     .filter(Objects::nonNull)
-                    .filter(match -> match.getMatchStatus() != MatchStatus.FINISHED)
                     .toList();
-            log.info("Unfinished matches: {}", unfinishedMatches);
-            List<String> matchIds = unfinishedMatches.stream()
-                    .map(Match::getPrimaryId)
-                    .filter(Objects::nonNull)
+        } catch (Exception e) {
+            log.error("Reading unfinished matches failed, polling again in: {}. Cause: {}", RETRY_DELAY,
+                    e.getMessage());
+            scheduleRetry(now, context);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody("Error: " + e.getMessage());
+        }
+        try {
+            List<Match> liveMatches = unfinishedMatches.stream()
+                    .filter(match -> !kickoff(match).isAfter(now.plus(KICKOFF_LEAD)))
                     .toList();
-            if (matchIds.isEmpty()) {
-                log.info("No matches to update");
-                return new APIGatewayProxyResponseEvent()
-                        .withStatusCode(200);
-            }
-            MatchApiResponse apiMatches = matchStateService.getCurrentState(matchIds);
-            log.info("Current state api response: {}", apiMatches);
-            Map<Long, MatchDto> matchesFromApi = Optional.ofNullable(apiMatches)
-                    .map(MatchApiResponse::getResponse)
-                    .map(dtos -> dtos.stream()
-                            .collect(Collectors.toMap(
-                                    dto -> Optional.ofNullable(dto)
-                                            .map(MatchDto::getFixture)
-                                            .map(MatchDto.Fixture::getId)
-                                            .orElse(0L),
-                                    Function.identity())))
-                    .orElse(Collections.emptyMap());
-            unfinishedMatches.forEach(match -> {
-                MatchDto matchFromApi = matchesFromApi.get(Long.parseLong(match.getPrimaryId()));
-                if (matchFromApi == null) {
-                    return;
+            log.info("Unfinished matches in live window: {}", liveMatches);
+            try {
+                if (liveMatches.isEmpty()) {
+                    log.info("No matches in live window, skipping api call");
+                } else {
+                    updateLiveMatches(liveMatches);
                 }
-                match.setHomeScore(safeGet(() -> matchFromApi.getGoals().getHome(), null));
-                match.setAwayScore(safeGet(() -> matchFromApi.getGoals().getAway(), null));
-                match.setMatchStatus(MatchStatus.fromLongName(
-                        safeGet(() -> matchFromApi.getFixture().getStatus().getLongName(), "Not Started")));
-                matchesDao.update(match);
-            });
+            } finally {
+                // a failed or over budget api call must not break the polling chain
+                pollPlanner.nextPoll(unfinishedMatches, now).ifPresentOrElse(
+                        nextPoll -> pollScheduler.scheduleNextPoll(
+                                nextPoll.atZone(MATCH_ZONE), context.getInvokedFunctionArn()),
+                        () -> log.info("No unfinished matches left for today, polling stopped"));
+            }
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200);
         } catch (Exception e) {
+            log.error("Polling failed. Cause: {}", e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
                     .withBody("Error: " + e.getMessage());
         }
     }
+
+    // without a next poll the chain would stop, the hourly rule restarts it if this fails as well
+    private void scheduleRetry(LocalDateTime now, Context context) {
+        try {
+            pollScheduler.scheduleNextPoll(now.plus(RETRY_DELAY).atZone(MATCH_ZONE), context.getInvokedFunctionArn());
+        } catch (Exception e) {
+            log.error("Scheduling the retry poll failed, the hourly poll restarts the chain. Cause: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void updateLiveMatches(List<Match> liveMatches) {
+        List<String> matchIds = liveMatches.stream()
+                .map(Match::getPrimaryId)
+                .filter(Objects::nonNull)
+                .toList();
+        MatchApiResponse apiMatches = matchStateService.getCurrentState(matchIds);
+        log.info("Current state api response: {}", apiMatches);
+        Map<Long, MatchDto> matchesFromApi = Optional.ofNullable(apiMatches)
+                .map(MatchApiResponse::getResponse)
+                .map(dtos -> dtos.stream()
+                        .collect(Collectors.toMap(
+                                dto -> Optional.ofNullable(dto)
+                                        .map(MatchDto::getFixture)
+                                        .map(MatchDto.Fixture::getId)
+                                        .orElse(0L),
+                                Function.identity())))
+                .orElse(Collections.emptyMap());
+        liveMatches.forEach(match -> {
+            MatchDto matchFromApi = matchesFromApi.get(Long.parseLong(match.getPrimaryId()));
+            if (matchFromApi == null) {
+                return;
+            }
+            Integer homeScore = safeGet(() -> matchFromApi.getGoals().getHome(), null);
+            Integer awayScore = safeGet(() -> matchFromApi.getGoals().getAway(), null);
+            MatchStatus matchStatus = MatchStatus.fromLongName(
+                    safeGet(() -> matchFromApi.getFixture().getStatus().getLongName(), "Not Started"));
+            if (Objects.equals(homeScore, match.getHomeScore())
+                    && Objects.equals(awayScore, match.getAwayScore())
+                    && matchStatus == match.getMatchStatus()) {
+                log.debug("No changes for match: {}", match.getPrimaryId());
+                return;
+            }
+            match.setHomeScore(homeScore);
+            match.setAwayScore(awayScore);
+            match.setMatchStatus(matchStatus);
+            matchesDao.updateLiveState(match);
+        });
+    }
+
+    private static LocalDateTime kickoff(Match match) {
+        return LocalDateTime.of(match.getDate(), match.getStartTime());
+    }
 }
@@ -1,60 +1,48 @@
 package com.mtjworldcup.getcurrentstatefromapi.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mtjworldcup.common.exception.HttpClientException;
+import com.mtjworldcup.common.client.FootballApiClient;
+import com.mtjworldcup.common.client.RequestPriority;
 import com.mtjworldcup.common.model.MatchApiResponse;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
+import com.mtjworldcup.common.model.MatchDto;
+import com.mtjworldcup.dynamo.dao.ApiConfigDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class MatchStateService {
 
     private static final Logger log = LoggerFactory.getLogger(MatchStateService.class);
+    // fixtures endpoint accepts at most 20 ids per request
+    static final int MAX_IDS_PER_REQUEST = 20;
 
-    private final OkHttpClient okHttpClient;
-    private final ObjectMapper objectMapper;
+    private final FootballApiClient footballApiClient;
 
     public MatchStateService() {
-        this.okHttpClient = new OkHttpClient();
-        this.objectMapper = new ObjectMapper();
+        this.footballApiClient = new FootballApiClient(new ApiConfigDao());
     }
 
-    public MatchStateService(OkHttpClient okHttpClient, ObjectMapper objectMapper) {
-        this.okHttpClient = okHttpClient;
-        this.objectMapper = objectMapper;
+    public MatchStateService(FootballApiClient footballApiClient) {
+        this.footballApiClient = footballApiClient;
     }
 
     public MatchApiResponse getCurrentState(List<String> matchIds) {
         log.info("Fetching current state for match ids: {}", matchIds);
-        final String rapidApiKey = System.getenv("RAPID_API_KEY");
-        final String rapidApiHost = System.getenv("RAPID_API_HOST");
-        final String baseUrl = System.getenv("BASE_API_URL");
-        var currentStateRequest = new Request.Builder()
-                .url(String.format("%s/fixtures?ids=%s", baseUrl, String.join("-", matchIds)))
-                .get()
-                .addHeader("X-RapidAPI-Key", rapidApiKey)
-                .addHeader("X-RapidAPI-Host", rapidApiHost)
-                .build();
-        try(var response = okHttpClient.newCall(currentStateRequest).execute()) {
-            String responseBody = Optional.of(response)
-                    .map(Response::body)
-                    .map(body -> {
-                        try {
-                            return body.string();
-                        } catch (IOException e) {
-                            return null;
-                        }
-                    })
-                    .orElseThrow(() -> new HttpClientException("Response body is empty"));
-            return objectMapper.readValue(responseBody, MatchApiResponse.class);
-        } catch (IOException e) {
-            throw new HttpClientException("Error while fetching match state. Cause: " + e.getMessage());
+        List<MatchDto> matches = new ArrayList<>();
+        for (int from = 0; from < matchIds.size(); from += MAX_IDS_PER_REQUEST) {
+            List<String> chunk = matchIds.subList(from, Math.min(from + MAX_IDS_PER_REQUEST, matchIds.size()));
+            MatchApiResponse response = footballApiClient.get(
+                    String.format("/fixtures?ids=%s", String.join("-", chunk)),
+                    MatchApiResponse.class,
+                    RequestPriority.LIVE);
+            Optional.ofNullable(response)
+                    .map(MatchApiResponse::getResponse)
+                    .ifPresent(matches::addAll);
         }
+        MatchApiResponse currentState = new MatchApiResponse();
+        currentState.setResponse(matches);
+        return currentState;
     }
 }
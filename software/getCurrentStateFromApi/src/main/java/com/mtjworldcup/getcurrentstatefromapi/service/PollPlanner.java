@@ -0,0 +1,49 @@
+package com.mtjworldcup.getcurrentstatefromapi.service;
+
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class PollPlanner {
+
+    static final Duration LIVE_POLL_INTERVAL = Duration.ofMinutes(1);
+    static final Duration OVERDUE_POLL_INTERVAL = Duration.ofMinutes(10);
+    // regular time with half time break and stoppage, extra time is treated as overdue
+    static final Duration EXPECTED_MATCH_DURATION = Duration.ofMinutes(115);
+
+    // Returns the time of the next poll in match local time, empty when nothing is left to poll today.
+    public Optional<LocalDateTime> nextPoll(List<Match> matches, LocalDateTime now) {
+        List<LocalDateTime> kickoffs = matches.stream()
+                .filter(Objects::nonNull)
+                .filter(match -> match.getMatchStatus() != MatchStatus.FINISHED)
+                .filter(match -> match.getDate() != null && match.getStartTime() != null)
+                .map(match -> LocalDateTime.of(match.getDate(), match.getStartTime()))
+                .sorted(Comparator.naturalOrder())
+                .toList();
+        if (kickoffs.isEmpty()) {
+            return Optional.empty();
+        }
+        List<LocalDateTime> started = kickoffs.stream()
+                .filter(kickoff -> !kickoff.isAfter(now))
+                .toList();
+        if (started.stream().anyMatch(kickoff -> kickoff.plus(EXPECTED_MATCH_DURATION).isAfter(now))) {
+            return Optional.of(now.plus(LIVE_POLL_INTERVAL));
+        }
+        Optional<LocalDateTime> nextKickoff = kickoffs.stream()
+                .filter(kickoff -> kickoff.isAfter(now))
+                .findFirst();
+        if (!started.isEmpty()) {
+            LocalDateTime backoff = now.plus(OVERDUE_POLL_INTERVAL);
+            return Optional.of(nextKickoff.filter(kickoff -> kickoff.isBefore(backoff)).orElse(backoff));
+        }
+        return nextKickoff.map(kickoff -> kickoff.isBefore(now.plus(LIVE_POLL_INTERVAL))
+                ? now.plus(LIVE_POLL_INTERVAL)
+                : kickoff);
+    }
+}
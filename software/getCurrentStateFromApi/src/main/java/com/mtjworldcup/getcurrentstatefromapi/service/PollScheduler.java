@@ -0,0 +1,69 @@
+package com.mtjworldcup.getcurrentstatefromapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.scheduler.SchedulerClient;
+import software.amazon.awssdk.services.scheduler.model.ActionAfterCompletion;
+import software.amazon.awssdk.services.scheduler.model.CreateScheduleRequest;
+import software.amazon.awssdk.services.scheduler.model.FlexibleTimeWindow;
+import software.amazon.awssdk.services.scheduler.model.FlexibleTimeWindowMode;
+import software.amazon.awssdk.services.scheduler.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.scheduler.model.Target;
+import software.amazon.awssdk.services.scheduler.model.UpdateScheduleRequest;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class PollScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PollScheduler.class);
+    static final String SCHEDULE_NAME = "getCurrentStateFromApi-next-poll";
+    private static final DateTimeFormatter AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private SchedulerClient schedulerClient;
+
+    public PollScheduler() {}
+
+    public PollScheduler(SchedulerClient schedulerClient) {
+        this.schedulerClient = schedulerClient;
+    }
+
+    // One-off schedule, deleted by the scheduler once fired. Every poll moves it to the next poll time.
+    public void scheduleNextPoll(ZonedDateTime nextPoll, String functionArn) {
+        String expression = "at(" + nextPoll.format(AT_FORMATTER) + ")";
+        String timezone = nextPoll.getZone().getId();
+        FlexibleTimeWindow noWindow = FlexibleTimeWindow.builder().mode(FlexibleTimeWindowMode.OFF).build();
+        Target target = Target.builder()
+                .arn(functionArn)
+                .roleArn(System.getenv("SCHEDULER_ROLE_ARN"))
+                .input("{}")
+                .build();
+        try {
+            getClient().updateSchedule(UpdateScheduleRequest.builder()
+                    .name(SCHEDULE_NAME)
+                    .scheduleExpression(expression)
+                    .scheduleExpressionTimezone(timezone)
+                    .flexibleTimeWindow(noWindow)
+                    .actionAfterCompletion(ActionAfterCompletion.DELETE)
+                    .target(target)
+                    .build());
+        } catch (ResourceNotFoundException e) {
+            getClient().createSchedule(CreateScheduleRequest.builder()
+                    .name(SCHEDULE_NAME)
+                    .scheduleExpression(expression)
+                    .scheduleExpressionTimezone(timezone)
+                    .flexibleTimeWindow(noWindow)
+                    .actionAfterCompletion(ActionAfterCompletion.DELETE)
+                    .target(target)
+                    .build());
+        }
+        log.info("Next poll scheduled: {} {}", expression, timezone);
+    }
+
+    private SchedulerClient getClient() {
+        if (schedulerClient == null) {
+            schedulerClient = SchedulerClient.create();
+        }
+        return schedulerClient;
+    }
+}
@@ -1,12 +1,16 @@
 package com.mtjworldcup.getcurrentstatefromapi;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.exception.RequestBudgetExceededException;
 import com.mtjworldcup.common.model.MatchApiResponse;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.dynamo.model.MatchStatus;
 import com.mtjworldcup.getcurrentstatefromapi.service.MatchStateService;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollPlanner;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollScheduler;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,28 +20,47 @@ import org.mockito.MockitoAnnotations;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class HandlerTest {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final LocalDate MATCH_DAY = LocalDate.of(2024, 6, 14);
+    private static final String FUNCTION_ARN = "arn:aws:lambda:eu-central-1:123456789012:function:getCurrentStateFromApi";
 
     private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
     private final MatchStateService matchStateService = mock(MatchStateService.class);
+    private final PollScheduler pollScheduler = mock(PollScheduler.class);
+    private final Context context = mock(Context.class);
+    // 21:30 in Warsaw
+    private final Clock clock = Clock.fixed(Instant.parse("2024-06-14T19:30:00Z"), WARSAW);
 
     @Captor
     private ArgumentCaptor<Match> matchCaptor;
     private AutoCloseable closeable;
+    private Handler handler;
 
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        when(context.getInvokedFunctionArn()).thenReturn(FUNCTION_ARN);
+        handler = new Handler(mockMatchesDao, matchStateService, new PollPlanner(), pollScheduler, clock);
     }
 
     @AfterEach
@@ -46,59 +69,206 @@ class HandlerTest {
     }
 
     @Test
-    void shouldNotChangeMatchStatus_WhenMatchHasNotStarted() throws Exception {
+    void shouldNotWrite_WhenMatchStateHasNotChanged() throws Exception {
         // given
-        Match match = new Match();
-        match.setMatchStatus(MatchStatus.SCHEDULED);
-        match.setPrimaryId("1035522");
-        when(mockMatchesDao.getByDate(LocalDate.now())).thenReturn(List.of(match));
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
         MatchApiResponse matchApiResponse = objectMapper.readValue(
                 Files.readString(Path.of("src/test/resources/files/api-success-response.json")),
                 MatchApiResponse.class);
         when(matchStateService.getCurrentState(List.of("1035522"))).thenReturn(matchApiResponse);
-        Handler handler = new Handler(mockMatchesDao, matchStateService);
 
         // when
-        handler.handleRequest(null, null);
+        handler.handleRequest(null, context);
+
+        // then
+        verify(mockMatchesDao, never()).updateLiveState(any());
+        verify(mockMatchesDao, never()).update(any());
+    }
+
+    @Test
+    void shouldWriteLiveState_WhenScoreHasChanged() throws Exception {
+        // given
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        match.setHomeScore(1);
+        match.setAwayScore(0);
+        match.setVersion(3L);
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
+        MatchApiResponse matchApiResponse = objectMapper.readValue(
+                Files.readString(Path.of("src/test/resources/files/api-success-response-with-finished-match.json")),
+                MatchApiResponse.class);
+        when(matchStateService.getCurrentState(List.of("1035522"))).thenReturn(matchApiResponse);
+
+        // when
+        handler.handleRequest(null, context);
 
         // then
-        verify(mockMatchesDao).update(matchCaptor.capture());
-        assertEquals(MatchStatus.SCHEDULED, matchCaptor.getValue().getMatchStatus());
+        verify(mockMatchesDao).updateLiveState(matchCaptor.capture());
+        assertEquals(1, matchCaptor.getValue().getHomeScore());
+        assertEquals(1, matchCaptor.getValue().getAwayScore());
+        assertEquals(3L, matchCaptor.getValue().getVersion());
     }
 
     @Test
     void shouldUpdateStatus_WhenMatchHasFinished() throws Exception {
         // given
-        Match match = new Match();
-        match.setMatchStatus(MatchStatus.SCHEDULED);
-        match.setPrimaryId("1035522");
-        when(mockMatchesDao.getByDate(LocalDate.now())).thenReturn(List.of(match));
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
         MatchApiResponse matchApiResponse = objectMapper.readValue(
                 Files.readString(Path.of("src/test/resources/files/api-success-response-with-finished-match.json")),
                 MatchApiResponse.class);
         when(matchStateService.getCurrentState(List.of("1035522"))).thenReturn(matchApiResponse);
-        Handler handler = new Handler(mockMatchesDao, matchStateService);
 
         // when
-        handler.handleRequest(null, null);
+        handler.handleRequest(null, context);
 
         // then
-        verify(mockMatchesDao).update(matchCaptor.capture());
+        verify(mockMatchesDao).updateLiveState(matchCaptor.capture());
         assertEquals(MatchStatus.FINISHED, matchCaptor.getValue().getMatchStatus());
     }
 
     @Test
     void shouldNotThrowException_WhenMatchStateServiceFails() {
         // given
-        Match match = new Match();
-        match.setMatchStatus(MatchStatus.SCHEDULED);
-        match.setPrimaryId("1035522");
-        when(mockMatchesDao.getByDate(LocalDate.now())).thenReturn(List.of(match));
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
         when(matchStateService.getCurrentState(List.of("1035522"))).thenThrow(new RuntimeException("API is down"));
-        Handler handler = new Handler(mockMatchesDao, matchStateService);
 
         // when, then
-        APIGatewayProxyResponseEvent response = assertDoesNotThrow(() -> handler.handleRequest(null, null));
+        APIGatewayProxyResponseEvent response = assertDoesNotThrow(() -> handler.handleRequest(null, context));
+        assertEquals(500, response.getStatusCode());
+    }
+
+    @Test
+    void shouldKeepPolling_WhenMatchStateServiceFails() {
+        // given
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
+        when(matchStateService.getCurrentState(List.of("1035522"))).thenThrow(new RuntimeException("API is down"));
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(pollScheduler).scheduleNextPoll(
+                ZonedDateTime.of(MATCH_DAY, LocalTime.of(21, 31), WARSAW), FUNCTION_ARN);
+    }
+
+    @Test
+    void shouldKeepPolling_WhenRequestBudgetExhausted() {
+        // given
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
+        when(matchStateService.getCurrentState(List.of("1035522")))
+                .thenThrow(new RequestBudgetExceededException("No LIVE request budget left"));
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(pollScheduler).scheduleNextPoll(
+                ZonedDateTime.of(MATCH_DAY, LocalTime.of(21, 31), WARSAW), FUNCTION_ARN);
+    }
+
+    @Test
+    void shouldPollAgainInFiveMinutes_WhenReadingMatchesFails() {
+        // given
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any()))
+                .thenThrow(new RuntimeException("Throughput exceeded"));
+
+        // when
+        APIGatewayProxyResponseEvent response = handler.handleRequest(null, context);
+
+        // then
         assertEquals(500, response.getStatusCode());
+        verify(pollScheduler).scheduleNextPoll(
+                ZonedDateTime.of(MATCH_DAY, LocalTime.of(21, 35), WARSAW), FUNCTION_ARN);
+    }
+
+    @Test
+    void shouldQueryFromLiveWindowUntilEndOfDayInWarsawTime_WhenPolling() {
+        // given
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of());
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(mockMatchesDao).getUnfinishedMatchesBetween(
+                LocalDateTime.of(2024, 6, 14, 17, 30),
+                LocalDateTime.of(2024, 6, 15, 0, 0));
+    }
+
+    @Test
+    void shouldNotCallApi_WhenNoMatchInLiveWindow() {
+        // given
+        Match upcoming = prepareMatch("1035522", LocalTime.of(23, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(upcoming));
+
+        // when
+        APIGatewayProxyResponseEvent response = handler.handleRequest(null, context);
+
+        // then
+        assertEquals(200, response.getStatusCode());
+        verify(matchStateService, never()).getCurrentState(any());
+        verify(mockMatchesDao, never()).updateLiveState(any());
+    }
+
+    @Test
+    void shouldSchedulePollAtKickoff_WhenNextMatchUpcoming() {
+        // given
+        Match upcoming = prepareMatch("1035522", LocalTime.of(23, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(upcoming));
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(pollScheduler).scheduleNextPoll(
+                ZonedDateTime.of(MATCH_DAY, LocalTime.of(23, 0), WARSAW), FUNCTION_ARN);
+    }
+
+    @Test
+    void shouldPollAgainInAMinute_WhenMatchStillLive() throws Exception {
+        // given
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
+        MatchApiResponse matchApiResponse = objectMapper.readValue(
+                Files.readString(Path.of("src/test/resources/files/api-success-response.json")),
+                MatchApiResponse.class);
+        when(matchStateService.getCurrentState(List.of("1035522"))).thenReturn(matchApiResponse);
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(pollScheduler).scheduleNextPoll(
+                ZonedDateTime.of(MATCH_DAY, LocalTime.of(21, 31), WARSAW), FUNCTION_ARN);
+    }
+
+    @Test
+    void shouldStopPolling_WhenLastMatchOfTheDayFinished() throws Exception {
+        // given
+        Match match = prepareMatch("1035522", LocalTime.of(21, 0));
+        when(mockMatchesDao.getUnfinishedMatchesBetween(any(), any())).thenReturn(List.of(match));
+        MatchApiResponse matchApiResponse = objectMapper.readValue(
+                Files.readString(Path.of("src/test/resources/files/api-success-response-with-finished-match.json")),
+                MatchApiResponse.class);
+        when(matchStateService.getCurrentState(List.of("1035522"))).thenReturn(matchApiResponse);
+
+        // when
+        handler.handleRequest(null, context);
+
+        // then
+        verify(pollScheduler, never()).scheduleNextPoll(any(), anyString());
+    }
+
+    private static Match prepareMatch(String id, LocalTime startTime) {
+        Match match = new Match();
+        match.setMatchStatus(MatchStatus.SCHEDULED);
+        match.setPrimaryId(id);
+        match.setDate(MATCH_DAY);
+        match.setStartTime(startTime);
+        return match;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.mtjworldcup.getcurrentstatefromapi.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.client.FootballApiClient;
+import com.mtjworldcup.common.client.RequestBudget;
 import com.mtjworldcup.common.model.MatchApiResponse;
 import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
@@ -17,6 +19,7 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,7 +58,7 @@ class MatchStateServiceTest {
                 .setBody(matchStateResponse);
         mockWebServer.enqueue(mockResponse);
         List<String> matchIds = List.of("1", "2", "3");
-        MatchStateService matchStateService = new MatchStateService(okHttpClient, objectMapper);
+        MatchStateService matchStateService = new MatchStateService(new FootballApiClient(okHttpClient, objectMapper, RequestBudget.unlimited()));
         //when
         MatchApiResponse matchApiResponse = matchStateService.getCurrentState(matchIds);
         //then
@@ -74,11 +77,31 @@ class MatchStateServiceTest {
                 .setBody(matchStateResponse);
         mockWebServer.enqueue(mockResponse);
         List<String> matchIds = List.of("1");
-        MatchStateService matchStateService = new MatchStateService(okHttpClient, objectMapper);
+        MatchStateService matchStateService = new MatchStateService(new FootballApiClient(okHttpClient, objectMapper, RequestBudget.unlimited()));
         //when
         MatchApiResponse matchApiResponse = matchStateService.getCurrentState(matchIds);
         //then
         assertEquals(1, matchApiResponse.getResponse().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldSplitIdsIntoChunks_WhenMoreIdsThanApiAccepts() throws Exception {
+        //given
+        environmentVariables.set("RAPID_API_KEY", "TEST");
+        environmentVariables.set("RAPID_API_HOST", "TEST");
+        environmentVariables.set("BASE_API_URL", baseUrl);
+        String matchStateResponse = Files.readString(Path.of("src/test/resources/files/api-success-response.json"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(matchStateResponse));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(matchStateResponse));
+        List<String> matchIds = IntStream.rangeClosed(1, 25).mapToObj(String::valueOf).toList();
+        MatchStateService matchStateService =
+                new MatchStateService(new FootballApiClient(okHttpClient, objectMapper, RequestBudget.unlimited()));
+        //when
+        MatchApiResponse matchApiResponse = matchStateService.getCurrentState(matchIds);
+        //then
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertTrue(mockWebServer.takeRequest().getPath().endsWith("ids=" + String.join("-", matchIds.subList(0, 20))));
+        assertTrue(mockWebServer.takeRequest().getPath().endsWith("ids=21-22-23-24-25"));
+        assertEquals(2, matchApiResponse.getResponse().size());
+    }
+}
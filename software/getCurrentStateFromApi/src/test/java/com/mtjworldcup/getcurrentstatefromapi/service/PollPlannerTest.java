@@ -0,0 +1,94 @@
+package com.mtjworldcup.getcurrentstatefromapi.service;
+
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollPlannerTest {
+
+    private static final LocalDate MATCH_DAY = LocalDate.of(2024, 6, 14);
+
+    private final PollPlanner pollPlanner = new PollPlanner();
+
+    @Test
+    void shouldStopPolling_WhenNoMatchesLeft() {
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(), at(12, 0));
+        //then
+        assertTrue(nextPoll.isEmpty());
+    }
+
+    @Test
+    void shouldStopPolling_WhenAllMatchesFinished() {
+        //given
+        Match finished = prepareMatch(LocalTime.of(15, 0), MatchStatus.FINISHED);
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(finished), at(17, 0));
+        //then
+        assertTrue(nextPoll.isEmpty());
+    }
+
+    @Test
+    void shouldPollAtKickoff_WhenNextMatchUpcoming() {
+        //given
+        Match upcoming = prepareMatch(LocalTime.of(18, 0), MatchStatus.SCHEDULED);
+        Match later = prepareMatch(LocalTime.of(21, 0), MatchStatus.SCHEDULED);
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(later, upcoming), at(1, 0));
+        //then
+        assertEquals(Optional.of(at(18, 0)), nextPoll);
+    }
+
+    @Test
+    void shouldPollEveryMinute_WhenMatchLive() {
+        //given
+        Match live = prepareMatch(LocalTime.of(18, 0), MatchStatus.SCHEDULED);
+        Match later = prepareMatch(LocalTime.of(21, 0), MatchStatus.SCHEDULED);
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(live, later), at(18, 30));
+        //then
+        assertEquals(Optional.of(at(18, 31)), nextPoll);
+    }
+
+    @Test
+    void shouldBackOff_WhenMatchOverdue() {
+        //given
+        Match overdue = prepareMatch(LocalTime.of(18, 0), MatchStatus.SCHEDULED);
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(overdue), at(20, 30));
+        //then
+        assertEquals(Optional.of(at(20, 40)), nextPoll);
+    }
+
+    @Test
+    void shouldPollAtKickoff_WhenNextKickoffBeforeOverdueBackoff() {
+        //given
+        Match overdue = prepareMatch(LocalTime.of(18, 0), MatchStatus.SCHEDULED);
+        Match next = prepareMatch(LocalTime.of(20, 35), MatchStatus.SCHEDULED);
+        //when
+        Optional<LocalDateTime> nextPoll = pollPlanner.nextPoll(List.of(overdue, next), at(20, 30));
+        //then
+        assertEquals(Optional.of(at(20, 35)), nextPoll);
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return LocalDateTime.of(MATCH_DAY, LocalTime.of(hour, minute));
+    }
+
+    private static Match prepareMatch(LocalTime startTime, MatchStatus matchStatus) {
+        Match match = new Match();
+        match.setPrimaryId("match-" + startTime);
+        match.setDate(MATCH_DAY);
+        match.setStartTime(startTime);
+        match.setMatchStatus(matchStatus);
+        return match;
+    }
+}
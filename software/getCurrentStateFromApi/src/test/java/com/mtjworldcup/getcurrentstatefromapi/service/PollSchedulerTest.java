@@ -0,0 +1,72 @@
+package com.mtjworldcup.getcurrentstatefromapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.scheduler.SchedulerClient;
+import software.amazon.awssdk.services.scheduler.model.ActionAfterCompletion;
+import software.amazon.awssdk.services.scheduler.model.CreateScheduleRequest;
+import software.amazon.awssdk.services.scheduler.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.scheduler.model.UpdateScheduleRequest;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SystemStubsExtension.class)
+class PollSchedulerTest {
+
+    private static final String FUNCTION_ARN = "arn:aws:lambda:eu-central-1:123456789012:function:getCurrentStateFromApi";
+    private static final String ROLE_ARN = "arn:aws:iam::123456789012:role/scheduler";
+    private static final ZonedDateTime NEXT_POLL =
+            ZonedDateTime.of(2024, 6, 14, 21, 0, 30, 0, ZoneId.of("Europe/Warsaw"));
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    private final SchedulerClient schedulerClient = mock(SchedulerClient.class);
+    private final PollScheduler pollScheduler = new PollScheduler(schedulerClient);
+
+    @Test
+    void shouldMoveExistingSchedule_WhenScheduleExists() {
+        //given
+        environmentVariables.set("SCHEDULER_ROLE_ARN", ROLE_ARN);
+        ArgumentCaptor<UpdateScheduleRequest> captor = ArgumentCaptor.forClass(UpdateScheduleRequest.class);
+        //when
+        pollScheduler.scheduleNextPoll(NEXT_POLL, FUNCTION_ARN);
+        //then
+        verify(schedulerClient).updateSchedule(captor.capture());
+        verify(schedulerClient, never()).createSchedule(any(CreateScheduleRequest.class));
+        UpdateScheduleRequest request = captor.getValue();
+        assertEquals(PollScheduler.SCHEDULE_NAME, request.name());
+        assertEquals("at(2024-06-14T21:00:30)", request.scheduleExpression());
+        assertEquals("Europe/Warsaw", request.scheduleExpressionTimezone());
+        assertEquals(ActionAfterCompletion.DELETE, request.actionAfterCompletion());
+        assertEquals(FUNCTION_ARN, request.target().arn());
+        assertEquals(ROLE_ARN, request.target().roleArn());
+    }
+
+    @Test
+    void shouldCreateSchedule_WhenPreviousOneAlreadyFiredAndDeleted() {
+        //given
+        environmentVariables.set("SCHEDULER_ROLE_ARN", ROLE_ARN);
+        when(schedulerClient.updateSchedule(any(UpdateScheduleRequest.class)))
+                .thenThrow(ResourceNotFoundException.builder().message("Schedule not found").build());
+        ArgumentCaptor<CreateScheduleRequest> captor = ArgumentCaptor.forClass(CreateScheduleRequest.class);
+        //when
+        pollScheduler.scheduleNextPoll(NEXT_POLL, FUNCTION_ARN);
+        //then
+        verify(schedulerClient).createSchedule(captor.capture());
+        assertEquals("at(2024-06-14T21:00:30)", captor.getValue().scheduleExpression());
+        assertEquals(ActionAfterCompletion.DELETE, captor.getValue().actionAfterCompletion());
+    }
+}
@@ -7,9 +7,12 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mtjworldcup.dynamo.dao.CachingMatchesDao;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.dao.MatchesRepository;
 import com.mtjworldcup.getbydate.mapper.MatchMapper;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
 import com.mtjworldcup.getbydate.model.Matches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,18 +21,19 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
 
-    private final MatchesDao matchesDao;
+    private final MatchesRepository matchesDao;
 
     public Handler() {
-        this(new MatchesDao());
+        this(new CachingMatchesDao(new MatchesDao()));
     }
 
-    public Handler(MatchesDao matchesDao) {
+    public Handler(MatchesRepository matchesDao) {
         this.matchesDao = matchesDao;
     }
 
@@ -39,7 +43,9 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
         String date = request.getPathParameters().get("date");
         LocalDate parsedDate = LocalDate.parse(date, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
         log.info("Getting matches for date: {}", parsedDate);
-        List<Match> matchesFromDatabase = matchesDao.getByDate(parsedDate);
+        List<Match> matchesFromDatabase = parsedDate.isBefore(LocalDate.now())
+                ? getPastMatches(parsedDate)
+                : matchesDao.getByDate(parsedDate);
         log.info("Matches fetched from database: {}", matchesFromDatabase);
         Matches matches = new Matches();
         matches.setMatches(MatchMapper.mapToDto(matchesFromDatabase));
@@ -54,4 +60,18 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
             return new APIGatewayProxyResponseEvent().withStatusCode(500).withBody("Error while creating json body.");
         }
     }
+
+    private List<Match> getPastMatches(LocalDate date) {
+        Optional<List<Match>> snapshot = matchesDao.getSnapshot(date);
+        if (snapshot.isPresent()) {
+            log.info("Serving matches for date: {} from snapshot", date);
+            return snapshot.get();
+        }
+        List<Match> matches = matchesDao.getByDate(date);
+        boolean allFinished = matches.stream().allMatch(match -> match.getMatchStatus() == MatchStatus.FINISHED);
+        if (!matches.isEmpty() && allFinished) {
+            matchesDao.saveSnapshot(date, matches);
+        }
+        return matches;
+    }
 }
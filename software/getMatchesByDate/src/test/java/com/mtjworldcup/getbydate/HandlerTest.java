@@ -6,17 +6,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
 import com.mtjworldcup.getbydate.Handler;
 import com.mtjworldcup.getbydate.model.Matches;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class HandlerTest {
@@ -56,4 +61,53 @@ class HandlerTest {
         Matches actualMatches = objectMapper.readValue(response.getBody(), Matches.class);
         assertEquals(2, actualMatches.getMatches().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldServeMatchesFromSnapshot_WhenSnapshotForPastDateExists() throws Exception {
+        //given
+        MatchesDao mockDao = mock(MatchesDao.class);
+        LocalDate pastDate = LocalDate.of(2023, 10, 28);
+        when(mockDao.getSnapshot(pastDate)).thenReturn(Optional.of(List.of(new Match(), new Match())));
+        Handler handler = new Handler(mockDao);
+        var request = new APIGatewayProxyRequestEvent().withPathParameters(Map.of("date", "2023-10-28"));
+        //when
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, null);
+        //then
+        Matches actualMatches = objectMapper.readValue(response.getBody(), Matches.class);
+        assertEquals(2, actualMatches.getMatches().size());
+        verify(mockDao, never()).getByDate(any());
+    }
+
+    @Test
+    void shouldSaveSnapshot_WhenAllMatchesOfPastDateFinished() {
+        //given
+        MatchesDao mockDao = mock(MatchesDao.class);
+        LocalDate pastDate = LocalDate.of(2023, 10, 28);
+        Match finishedMatch = new Match();
+        finishedMatch.setMatchStatus(MatchStatus.FINISHED);
+        when(mockDao.getSnapshot(pastDate)).thenReturn(Optional.empty());
+        when(mockDao.getByDate(pastDate)).thenReturn(List.of(finishedMatch));
+        Handler handler = new Handler(mockDao);
+        var request = new APIGatewayProxyRequestEvent().withPathParameters(Map.of("date", "2023-10-28"));
+        //when
+        handler.handleRequest(request, null);
+        //then
+        verify(mockDao).saveSnapshot(pastDate, List.of(finishedMatch));
+    }
+
+    @Test
+    void shouldNotUseSnapshot_WhenDateIsToday() {
+        //given
+        MatchesDao mockDao = mock(MatchesDao.class);
+        Match finishedMatch = new Match();
+        finishedMatch.setMatchStatus(MatchStatus.FINISHED);
+        when(mockDao.getByDate(LocalDate.now())).thenReturn(List.of(finishedMatch));
+        Handler handler = new Handler(mockDao);
+        var request = new APIGatewayProxyRequestEvent().withPathParameters(Map.of("date", LocalDate.now().toString()));
+        //when
+        handler.handleRequest(request, null);
+        //then
+        verify(mockDao, never()).getSnapshot(any());
+        verify(mockDao, never()).saveSnapshot(any(), any());
+    }
+}
@@ -4,13 +4,14 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mtjworldcup.common.model.MatchDto;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.getfromapi.mapper.MatchMapper;
+import com.mtjworldcup.dynamo.model.BulkWriteResult;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.SyncResult;
+import com.mtjworldcup.getfromapi.service.CapacityScheduler;
 import com.mtjworldcup.getfromapi.service.MatchApiService;
-import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,22 +22,51 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
 
     private final MatchesDao matchesDao;
+    private final MatchApiService matchApiService;
+    private final CapacityScheduler capacityScheduler;
 
     public Handler() {
         this.matchesDao = new MatchesDao();
+        this.matchApiService = new MatchApiService();
+        this.capacityScheduler = new CapacityScheduler();
+    }
+
+    public Handler(MatchesDao matchesDao, MatchApiService matchApiService, CapacityScheduler capacityScheduler) {
+        this.matchesDao = matchesDao;
+        this.matchApiService = matchApiService;
+        this.capacityScheduler = capacityScheduler;
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
         log.info("Fetching matches from api.");
-        MatchApiService matchService = new MatchApiService(new OkHttpClient(), new ObjectMapper());
-        List<MatchDto> matchesFromApi = matchService.getMatchesFromApi();
+        List<MatchDto> matchesFromApi = matchApiService.getMatchesFromApi();
         log.info("Matches from api: {}", matchesFromApi);
         List<MatchDto> translateCountries = MatchMapper.translateCountries(matchesFromApi);
         log.info("Matches after translation: {}", translateCountries);
         List<Match> entitiesToPersist = MatchMapper.mapToEntity(translateCountries);
-        log.info("Entities for persist: {}", entitiesToPersist);
-        matchesDao.saveIfNotExists(entitiesToPersist);
+        log.info("Entities for sync: {}", entitiesToPersist);
+        SyncResult syncResult = matchesDao.syncFixtures(entitiesToPersist);
+        log.info("Inserted: {}, updated: {}, unchanged: {} fixtures", syncResult.inserted(),
+                syncResult.updated(), syncResult.unchanged());
+        // every match day gets its pool up front, pools of finished days are carried over to the next one
+        List<Match> pools = entitiesToPersist.stream()
+                .map(Match::getDate)
+                .distinct()
+                .map(Match::emptyPool)
+                .toList();
+        BulkWriteResult poolsResult = matchesDao.saveIfNotExists(pools);
+        if (poolsResult.hasFailures()) {
+            log.error("Pools not created for match days: {}", poolsResult.failed());
+            return new APIGatewayProxyResponseEvent().withStatusCode(500);
+        }
+        log.info("Created pools: {}", poolsResult.created());
+        // without the scheduled floor the table still scales on its own, only later
+        try {
+            capacityScheduler.scheduleAroundKickoffs(entitiesToPersist);
+        } catch (Exception e) {
+            log.error("Scheduling capacity around kickoffs failed.", e);
+        }
         return new APIGatewayProxyResponseEvent().withStatusCode(200);
     }
 }
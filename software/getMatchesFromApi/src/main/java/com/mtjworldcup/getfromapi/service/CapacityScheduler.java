@@ -0,0 +1,137 @@
+package com.mtjworldcup.getfromapi.service;
+
+import com.mtjworldcup.dynamo.model.Match;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.applicationautoscaling.ApplicationAutoScalingClient;
+import software.amazon.awssdk.services.applicationautoscaling.model.DescribeScalableTargetsRequest;
+import software.amazon.awssdk.services.applicationautoscaling.model.DescribeScalableTargetsResponse;
+import software.amazon.awssdk.services.applicationautoscaling.model.PutScheduledActionRequest;
+import software.amazon.awssdk.services.applicationautoscaling.model.ScalableTarget;
+import software.amazon.awssdk.services.applicationautoscaling.model.ScalableTargetAction;
+import software.amazon.awssdk.services.applicationautoscaling.model.ServiceNamespace;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Raises the autoscaling floor of the matches table and its indexes before the first kickoff of a
+// match day and lowers it once the last match is over, so the kickoff and settlement bursts do not
+// wait for the target tracking policy to catch up. On an on-demand table there are no scalable
+// targets and nothing gets scheduled.
+public class CapacityScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CapacityScheduler.class);
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final DateTimeFormatter AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    static final Duration SCALE_UP_BEFORE_KICKOFF = Duration.ofMinutes(30);
+    // match, extra time, penalties and settlement of the pools
+    static final Duration SCALE_DOWN_AFTER_KICKOFF = Duration.ofHours(3);
+    // fixtures are imported every night, two days ahead is enough to survive a failed import
+    static final int DAYS_AHEAD = 2;
+    // same floor as the autoscaled capacity profile in the infrastructure module
+    static final int BASELINE_MIN_CAPACITY = 1;
+
+    private ApplicationAutoScalingClient autoScalingClient;
+    private final Clock clock;
+
+    public CapacityScheduler() {
+        this.clock = Clock.system(WARSAW);
+    }
+
+    public CapacityScheduler(ApplicationAutoScalingClient autoScalingClient, Clock clock) {
+        this.autoScalingClient = autoScalingClient;
+        this.clock = clock;
+    }
+
+    public void scheduleAroundKickoffs(List<Match> matches) {
+        LocalDateTime now = LocalDateTime.now(clock.withZone(WARSAW));
+        LocalDate lastDay = now.toLocalDate().plusDays(DAYS_AHEAD);
+        Map<LocalDate, List<LocalDateTime>> kickoffsByDay = matches.stream()
+                .filter(match -> match.getDate() != null && match.getStartTime() != null)
+                .filter(match -> !match.getDate().isBefore(now.toLocalDate()) && !match.getDate().isAfter(lastDay))
+                .collect(Collectors.groupingBy(Match::getDate, TreeMap::new,
+                        Collectors.mapping(match -> LocalDateTime.of(match.getDate(), match.getStartTime()),
+                                Collectors.toList())));
+        if (kickoffsByDay.isEmpty()) {
+            log.info("No match days to scale for.");
+            return;
+        }
+        List<ScalableTarget> targets = getTableTargets();
+        if (targets.isEmpty()) {
+            log.info("No scalable targets for table: {}, capacity is on demand.", tableName());
+            return;
+        }
+        kickoffsByDay.forEach((date, kickoffs) -> {
+            LocalDateTime scaleUp = kickoffs.stream().min(Comparator.naturalOrder()).orElseThrow()
+                    .minus(SCALE_UP_BEFORE_KICKOFF);
+            LocalDateTime scaleDown = kickoffs.stream().max(Comparator.naturalOrder()).orElseThrow()
+                    .plus(SCALE_DOWN_AFTER_KICKOFF);
+            for (ScalableTarget target : targets) {
+                if (scaleUp.isAfter(now)) {
+                    putAction(target, "matchday-" + date + "-up", scaleUp, target.maxCapacity());
+                }
+                if (scaleDown.isAfter(now)) {
+                    putAction(target, "matchday-" + date + "-down", scaleDown, BASELINE_MIN_CAPACITY);
+                }
+            }
+            log.info("Capacity scheduled for match day: {}, up at: {}, down at: {}", date, scaleUp, scaleDown);
+        });
+    }
+
+    // the table and every index have a read and a write target
+    private List<ScalableTarget> getTableTargets() {
+        String tableResource = "table/" + tableName();
+        List<ScalableTarget> targets = new ArrayList<>();
+        String nextToken = null;
+        do {
+            DescribeScalableTargetsResponse response = getClient().describeScalableTargets(
+                    DescribeScalableTargetsRequest.builder()
+                            .serviceNamespace(ServiceNamespace.DYNAMODB)
+                            .nextToken(nextToken)
+                            .build());
+            response.scalableTargets().stream()
+                    .filter(target -> target.resourceId().equals(tableResource)
+                            || target.resourceId().startsWith(tableResource + "/index/"))
+                    .forEach(targets::add);
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return targets;
+    }
+
+    // scheduled actions are upserted by name, a re-imported match day only moves its actions
+    private void putAction(ScalableTarget target, String name, LocalDateTime at, int minCapacity) {
+        getClient().putScheduledAction(PutScheduledActionRequest.builder()
+                .serviceNamespace(ServiceNamespace.DYNAMODB)
+                .resourceId(target.resourceId())
+                .scalableDimension(target.scalableDimension())
+                .scheduledActionName(name)
+                .schedule("at(" + at.format(AT_FORMATTER) + ")")
+                .timezone(WARSAW.getId())
+                .scalableTargetAction(ScalableTargetAction.builder()
+                        .minCapacity(minCapacity)
+                        .maxCapacity(target.maxCapacity())
+                        .build())
+                .build());
+    }
+
+    private static String tableName() {
+        return System.getenv("MATCHES_TABLE_NAME");
+    }
+
+    private ApplicationAutoScalingClient getClient() {
+        if (autoScalingClient == null) {
+            autoScalingClient = ApplicationAutoScalingClient.create();
+        }
+        return autoScalingClient;
+    }
+}
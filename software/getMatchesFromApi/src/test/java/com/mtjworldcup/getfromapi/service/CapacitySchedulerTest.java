@@ -0,0 +1,133 @@
+package com.mtjworldcup.getfromapi.service;
+
+import com.mtjworldcup.dynamo.model.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.applicationautoscaling.ApplicationAutoScalingClient;
+import software.amazon.awssdk.services.applicationautoscaling.model.DescribeScalableTargetsRequest;
+import software.amazon.awssdk.services.applicationautoscaling.model.DescribeScalableTargetsResponse;
+import software.amazon.awssdk.services.applicationautoscaling.model.PutScheduledActionRequest;
+import software.amazon.awssdk.services.applicationautoscaling.model.ScalableDimension;
+import software.amazon.awssdk.services.applicationautoscaling.model.ScalableTarget;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SystemStubsExtension.class)
+class CapacitySchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 14);
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    private final ApplicationAutoScalingClient autoScalingClient = mock(ApplicationAutoScalingClient.class);
+    // 12:00 in Warsaw
+    private final Clock clock = Clock.fixed(Instant.parse("2024-06-14T10:00:00Z"), ZoneId.of("Europe/Warsaw"));
+    private final CapacityScheduler capacityScheduler = new CapacityScheduler(autoScalingClient, clock);
+
+    @BeforeEach
+    void setUp() {
+        environmentVariables.set("MATCHES_TABLE_NAME", "matches");
+    }
+
+    @Test
+    void shouldRaiseFloorBeforeFirstKickoffAndLowerAfterLast_WhenMatchDayAhead() {
+        //given
+        when(autoScalingClient.describeScalableTargets(any(DescribeScalableTargetsRequest.class)))
+                .thenReturn(DescribeScalableTargetsResponse.builder()
+                        .scalableTargets(target("table/matches", 10))
+                        .build());
+        ArgumentCaptor<PutScheduledActionRequest> captor = ArgumentCaptor.forClass(PutScheduledActionRequest.class);
+        //when
+        capacityScheduler.scheduleAroundKickoffs(List.of(
+                prepareMatch(TODAY.plusDays(1), LocalTime.of(21, 0)),
+                prepareMatch(TODAY.plusDays(1), LocalTime.of(15, 0))));
+        //then
+        verify(autoScalingClient, times(2)).putScheduledAction(captor.capture());
+        PutScheduledActionRequest up = captor.getAllValues().get(0);
+        assertEquals("matchday-2024-06-15-up", up.scheduledActionName());
+        assertEquals("at(2024-06-15T14:30:00)", up.schedule());
+        assertEquals("Europe/Warsaw", up.timezone());
+        assertEquals(10, up.scalableTargetAction().minCapacity());
+        PutScheduledActionRequest down = captor.getAllValues().get(1);
+        assertEquals("matchday-2024-06-15-down", down.scheduledActionName());
+        assertEquals("at(2024-06-16T00:00:00)", down.schedule());
+        assertEquals(1, down.scalableTargetAction().minCapacity());
+        assertEquals(10, down.scalableTargetAction().maxCapacity());
+    }
+
+    @Test
+    void shouldOnlyScaleDown_WhenMatchDayAlreadyStarted() {
+        //given
+        when(autoScalingClient.describeScalableTargets(any(DescribeScalableTargetsRequest.class)))
+                .thenReturn(DescribeScalableTargetsResponse.builder()
+                        .scalableTargets(target("table/matches/index/getByDateAndType", 5))
+                        .build());
+        ArgumentCaptor<PutScheduledActionRequest> captor = ArgumentCaptor.forClass(PutScheduledActionRequest.class);
+        //when
+        capacityScheduler.scheduleAroundKickoffs(List.of(
+                prepareMatch(TODAY, LocalTime.of(12, 0)),
+                prepareMatch(TODAY, LocalTime.of(18, 0))));
+        //then
+        verify(autoScalingClient).putScheduledAction(captor.capture());
+        assertEquals("matchday-2024-06-14-down", captor.getValue().scheduledActionName());
+        assertEquals("table/matches/index/getByDateAndType", captor.getValue().resourceId());
+    }
+
+    @Test
+    void shouldSkipTargetsOfOtherTables_WhenDescribingTargets() {
+        //given
+        when(autoScalingClient.describeScalableTargets(any(DescribeScalableTargetsRequest.class)))
+                .thenReturn(DescribeScalableTargetsResponse.builder()
+                        .scalableTargets(target("table/matches-archive", 10))
+                        .build());
+        //when
+        capacityScheduler.scheduleAroundKickoffs(List.of(prepareMatch(TODAY.plusDays(1), LocalTime.of(21, 0))));
+        //then
+        verify(autoScalingClient, never()).putScheduledAction(any(PutScheduledActionRequest.class));
+    }
+
+    @Test
+    void shouldNotDescribeTargets_WhenNoMatchDayWithinTwoDays() {
+        //when
+        capacityScheduler.scheduleAroundKickoffs(List.of(
+                prepareMatch(TODAY.minusDays(1), LocalTime.of(21, 0)),
+                prepareMatch(TODAY.plusDays(3), LocalTime.of(21, 0))));
+        //then
+        verify(autoScalingClient, never()).describeScalableTargets(any(DescribeScalableTargetsRequest.class));
+    }
+
+    private static ScalableTarget target(String resourceId, int maxCapacity) {
+        return ScalableTarget.builder()
+                .resourceId(resourceId)
+                .scalableDimension(ScalableDimension.DYNAMODB_TABLE_READ_CAPACITY_UNITS)
+                .minCapacity(1)
+                .maxCapacity(maxCapacity)
+                .build();
+    }
+
+    private static Match prepareMatch(LocalDate date, LocalTime startTime) {
+        Match match = new Match();
+        match.setDate(date);
+        match.setStartTime(startTime);
+        return match;
+    }
+}
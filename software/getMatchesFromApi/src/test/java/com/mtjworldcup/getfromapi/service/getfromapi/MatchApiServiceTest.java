@@ -1,7 +1,10 @@
 package com.mtjworldcup.getfromapi.service.getfromapi;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.client.FootballApiClient;
+import com.mtjworldcup.common.client.RequestBudget;
 import com.mtjworldcup.common.model.MatchDto;
+import com.mtjworldcup.dynamo.dao.ApiConfigDao;
 import com.mtjworldcup.getfromapi.service.MatchApiService;
 import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
@@ -19,8 +22,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(SystemStubsExtension.class)
 class MatchApiServiceTest {
@@ -28,7 +37,9 @@ class MatchApiServiceTest {
     @SystemStub
     private EnvironmentVariables environmentVariables;
 
+    private final ApiConfigDao apiConfigDao = mock(ApiConfigDao.class);
     private MockWebServer mockWebServer;
+    private FootballApiClient footballApiClient;
     private static OkHttpClient okHttpClient;
     private static ObjectMapper objectMapper;
     private static String baseUrl;
@@ -44,6 +55,7 @@ class MatchApiServiceTest {
         mockWebServer = new MockWebServer();
         mockWebServer.start();
         baseUrl = mockWebServer.url("/").toString();
+        footballApiClient = new FootballApiClient(okHttpClient, objectMapper, RequestBudget.unlimited());
     }
 
     @AfterEach
@@ -68,12 +80,65 @@ class MatchApiServiceTest {
                 .setResponseCode(200)
                 .setBody(matchesAsString);
         mockWebServer.enqueue(mockGetMatchesResponse);
-        MatchApiService matchApiService = new MatchApiService(okHttpClient, objectMapper);
+        MatchApiService matchApiService = new MatchApiService(footballApiClient, apiConfigDao);
         //when
         List<MatchDto> actualMatchesFromApi = matchApiService.getMatchesFromApi();
         //then
         int expectedMatchesFromApiSize = 17;
         assertEquals(expectedMatchesFromApiSize, actualMatchesFromApi.size());
+        verify(apiConfigDao).saveCurrentSeason(113, 2023);
+    }
+
+    @Test
+    void shouldNotFetchSeason_WhenSeasonCached() throws Exception {
+        //given
+        environmentVariables.set("RAPID_API_KEY", "TEST");
+        environmentVariables.set("RAPID_API_HOST", "TEST");
+        environmentVariables.set("LEAGUE_ID", "113");
+        environmentVariables.set("BASE_API_URL", baseUrl);
+        when(apiConfigDao.getCurrentSeason(113)).thenReturn(Optional.of(2023));
+        String matchesAsString = Files.readString(Path.of("src/test/resources/files/successful-get-matches-response.json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(matchesAsString));
+        MatchApiService matchApiService = new MatchApiService(footballApiClient, apiConfigDao);
+        //when
+        List<MatchDto> actualMatchesFromApi = matchApiService.getMatchesFromApi();
+        //then
+        assertEquals(17, actualMatchesFromApi.size());
+        assertEquals(1, mockWebServer.getRequestCount());
+        assertTrue(mockWebServer.takeRequest().getPath().contains("season=2023"));
+        verify(apiConfigDao, never()).saveCurrentSeason(anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldRefreshSeason_WhenNoMatchesForCachedSeason() throws Exception {
+        //given
+        environmentVariables.set("RAPID_API_KEY", "TEST");
+        environmentVariables.set("RAPID_API_HOST", "TEST");
+        environmentVariables.set("LEAGUE_ID", "113");
+        environmentVariables.set("BASE_API_URL", baseUrl);
+        when(apiConfigDao.getCurrentSeason(113)).thenReturn(Optional.of(2022));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody("{\"response\":[]}"));
+        String currentSeasonResponse = Files.readString(Path.of("src/test/resources/files/successful-get-seasons-response.json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(currentSeasonResponse));
+        String matchesAsString = Files.readString(Path.of("src/test/resources/files/successful-get-matches-response.json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(matchesAsString));
+        MatchApiService matchApiService = new MatchApiService(footballApiClient, apiConfigDao);
+        //when
+        List<MatchDto> actualMatchesFromApi = matchApiService.getMatchesFromApi();
+        //then
+        assertEquals(17, actualMatchesFromApi.size());
+        assertTrue(mockWebServer.takeRequest().getPath().contains("season=2022"));
+        assertTrue(mockWebServer.takeRequest().getPath().contains("/leagues?id=113&current=true"));
+        assertTrue(mockWebServer.takeRequest().getPath().contains("season=2023"));
+        verify(apiConfigDao).saveCurrentSeason(113, 2023);
     }
 
     @Test
@@ -93,7 +158,7 @@ class MatchApiServiceTest {
                 .setResponseCode(200)
                 .setBody(matchesAsString);
         mockWebServer.enqueue(mockGetMatchesResponse);
-        MatchApiService matchApiService = new MatchApiService(okHttpClient, objectMapper);
+        MatchApiService matchApiService = new MatchApiService(footballApiClient, apiConfigDao);
         //when, then
         assertThrows(NoSuchElementException.class, matchApiService::getMatchesFromApi);
         assertEquals(1, mockWebServer.getRequestCount());
@@ -104,7 +169,7 @@ class MatchApiServiceTest {
         //given
         environmentVariables.set("BASE_API_URL", baseUrl);
         environmentVariables.set("LEAGUE_ID", "113");
-        MatchApiService matchApiService = new MatchApiService(okHttpClient, objectMapper);
+        MatchApiService matchApiService = new MatchApiService(footballApiClient, apiConfigDao);
         //when, then
         assertThrows(NullPointerException.class, matchApiService::getMatchesFromApi);
     }
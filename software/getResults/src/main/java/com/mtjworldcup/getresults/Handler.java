@@ -6,7 +6,9 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.dynamo.dao.CachingMatchesDao;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.dao.MatchesRepository;
 import com.mtjworldcup.getresults.mapper.MatchMapper;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.getresults.model.MatchDto;
@@ -24,13 +26,13 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
 
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
 
-    private final MatchesDao matchesDao;
+    private final MatchesRepository matchesDao;
 
     public Handler() {
-        this(new MatchesDao());
+        this(new CachingMatchesDao(new MatchesDao()));
     }
 
-    public Handler(MatchesDao matchesDao) {
+    public Handler(MatchesRepository matchesDao) {
         this.matchesDao = matchesDao;
     }
 
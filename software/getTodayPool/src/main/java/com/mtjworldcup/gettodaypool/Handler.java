@@ -4,24 +4,27 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.mtjworldcup.dynamo.dao.CachingMatchesDao;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.dao.MatchesRepository;
 import com.mtjworldcup.dynamo.model.Match;
 import org.slf4j.Logger;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     public static final Logger log = org.slf4j.LoggerFactory.getLogger(Handler.class);
 
-    private final MatchesDao matchesDao;
+    private final MatchesRepository matchesDao;
 
     public Handler() {
-        matchesDao = new MatchesDao();
+        matchesDao = new CachingMatchesDao(new MatchesDao());
     }
 
-    public Handler(MatchesDao matchesDao) {
+    public Handler(MatchesRepository matchesDao) {
         this.matchesDao = matchesDao;
     }
 
@@ -33,6 +36,12 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
             return new APIGatewayProxyResponseEvent()
                     .withBody(String.valueOf(overallPool))
                     .withStatusCode(200);
+        } catch (NoSuchElementException e) {
+            // pools exist only for match days
+            log.info("No pool for today. Cause: {}", e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withBody(String.valueOf(BigDecimal.ZERO))
+                    .withStatusCode(200);
         } catch (Exception e) {
             log.error("Error getting overall pool. Cause: {}", e.getMessage());
             return new APIGatewayProxyResponseEvent()
@@ -5,6 +5,7 @@ import com.mtjworldcup.dynamo.model.Match;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -53,6 +54,18 @@ class HandlerTest {
         assertEquals(404, response.getStatusCode());
     }
 
+    @Test
+    void shouldReturn0_WhenNoPoolForToday() {
+        // Given
+        Handler handler = new Handler(mockMatchesDao);
+        when(mockMatchesDao.getTodayPool()).thenThrow(new NoSuchElementException("Today pool not found!"));
+        // When
+        var response = handler.handleRequest(null, null);
+        // Then
+        assertEquals("0", response.getBody());
+        assertEquals(200, response.getStatusCode());
+    }
+
     private Match prepareOverallPool(BigDecimal overallPool) {
         Match match = new Match();
         match.setPool(overallPool);
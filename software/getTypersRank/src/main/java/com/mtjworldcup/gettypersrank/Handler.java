@@ -7,18 +7,26 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.UserRecord;
 import com.mtjworldcup.gettypersrank.mapper.UserMapper;
 import com.mtjworldcup.gettypersrank.model.UserDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Comparator;
 import java.util.List;
 
 public class Handler
     implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
   public static final Logger log = LoggerFactory.getLogger(Handler.class);
+  // most correct typings first, ties go to the higher balance
+  private static final Comparator<UserRecord> RANKING =
+      Comparator.comparingInt(UserRecord::correctTypings)
+          .reversed()
+          .thenComparing(
+              UserRecord::pool, Comparator.nullsLast(Comparator.<Money>reverseOrder()));
 
   private final ObjectMapper objectMapper;
   private final MatchesDao matchesDao;
@@ -37,12 +45,8 @@ public class Handler
   public APIGatewayProxyResponseEvent handleRequest(
       APIGatewayProxyRequestEvent input, Context context) {
     try {
-      List<Match> users = matchesDao.getUsers();
-      List<UserDto> userDtos = UserMapper
-              .toUserDto(users)
-              .stream()
-              .sorted()
-              .toList();
+      List<UserRecord> users = matchesDao.getUserRecords().stream().sorted(RANKING).toList();
+      List<UserDto> userDtos = UserMapper.toUserDto(users);
       String responseBody = objectMapper.writeValueAsString(userDtos);
       return new APIGatewayProxyResponseEvent().withBody(responseBody).withStatusCode(200);
     } catch (JsonProcessingException e) {
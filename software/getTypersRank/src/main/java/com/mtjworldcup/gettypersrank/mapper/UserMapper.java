@@ -1,18 +1,20 @@
 package com.mtjworldcup.gettypersrank.mapper;
 
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.UserRecord;
 import com.mtjworldcup.gettypersrank.model.UserDto;
+import java.math.BigDecimal;
 import java.util.List;
 
 public class UserMapper {
 
   private UserMapper() {}
 
-  public static UserDto toUserDto(Match match) {
-    return new UserDto(match.getPrimaryId(), match.getCorrectTypings(), match.getPool());
+  public static UserDto toUserDto(UserRecord user) {
+    BigDecimal balance = user.pool() == null ? null : user.pool().toBigDecimal();
+    return new UserDto(user.userId(), user.correctTypings(), balance);
   }
 
-  public static List<UserDto> toUserDto(List<Match> matches) {
-    return matches.stream().map(UserMapper::toUserDto).toList();
+  public static List<UserDto> toUserDto(List<UserRecord> users) {
+    return users.stream().map(UserMapper::toUserDto).toList();
   }
 }
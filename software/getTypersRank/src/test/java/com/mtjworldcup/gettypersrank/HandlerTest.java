@@ -5,7 +5,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
-import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.UserRecord;
 import com.mtjworldcup.gettypersrank.model.UserDto;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,7 +36,7 @@ class HandlerTest {
   @Test
   void shouldReturnOneUser_WhenOneUserInDb() throws Exception {
     // given
-    when(mockMatchesDao.getUsers()).thenReturn(List.of(new Match()));
+    when(mockMatchesDao.getUserRecords()).thenReturn(List.of(new UserRecord(null, 0, null)));
     // when
     APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
     // then
@@ -46,13 +47,9 @@ class HandlerTest {
   @Test
   void shouldReturnTwoUsers_WhenTwoUsersInDb() throws Exception {
     // given
-    Match user1 = new Match();
-    user1.setCorrectTypings(10);
-    user1.setPool(BigDecimal.ONE);
-    Match user2 = new Match();
-    user2.setCorrectTypings(20);
-    user2.setPool(BigDecimal.TEN);
-    when(mockMatchesDao.getUsers()).thenReturn(List.of(user1, user2));
+    UserRecord user1 = new UserRecord("user-1", 10, Money.ofZloty(1));
+    UserRecord user2 = new UserRecord("user-2", 20, Money.ofZloty(10));
+    when(mockMatchesDao.getUserRecords()).thenReturn(List.of(user1, user2));
     // when
     APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
     // then
@@ -63,11 +60,9 @@ class HandlerTest {
   @Test
   void shouldReturnUsersInDescendingOrderOfCorrectTypings() throws Exception {
     // given
-    Match user1 = new Match();
-    user1.setCorrectTypings(10);
-    Match user2 = new Match();
-    user2.setCorrectTypings(20);
-    when(mockMatchesDao.getUsers()).thenReturn(List.of(user1, user2));
+    UserRecord user1 = new UserRecord("user-1", 10, null);
+    UserRecord user2 = new UserRecord("user-2", 20, null);
+    when(mockMatchesDao.getUserRecords()).thenReturn(List.of(user1, user2));
     // when
     APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
     // then
@@ -76,10 +71,24 @@ class HandlerTest {
     assertEquals(10, users.get(1).correctTypings());
   }
 
+  @Test
+  void shouldRankHigherBalanceFirst_WhenCorrectTypingsTied() throws Exception {
+    // given
+    UserRecord user1 = new UserRecord("user-1", 10, new Money(1250));
+    UserRecord user2 = new UserRecord("user-2", 10, new Money(1251));
+    when(mockMatchesDao.getUserRecords()).thenReturn(List.of(user1, user2));
+    // when
+    APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
+    // then
+    List<UserDto> users = OBJECT_MAPPER.readValue(response.getBody(), new TypeReference<>() {});
+    assertEquals("user-2", users.get(0).username());
+    assertEquals(new BigDecimal("12.51"), users.get(0).balance());
+  }
+
   @Test
   void shouldReturnInternalServerError_WhenObjectMapperFails() throws Exception {
     // given
-    when(mockMatchesDao.getUsers()).thenReturn(List.of(new Match()));
+    when(mockMatchesDao.getUserRecords()).thenReturn(List.of(new UserRecord(null, 0, null)));
     when(spyObjectMapper.writeValueAsString(List.of(new UserDto(null, 0, null))))
         .thenThrow(new JsonProcessingException("Object Mapper failed") {});
     // when
@@ -92,7 +101,7 @@ class HandlerTest {
   @Test
   void shouldReturnInternalServerError_WhenMatchesDaoFails() {
     // given
-    when(mockMatchesDao.getUsers()).thenThrow(new RuntimeException());
+    when(mockMatchesDao.getUserRecords()).thenThrow(new RuntimeException());
     // when
     APIGatewayProxyResponseEvent response = handler.handleRequest(null, null);
     // then
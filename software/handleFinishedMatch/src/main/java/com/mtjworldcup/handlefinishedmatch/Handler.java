@@ -7,7 +7,6 @@ import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeVal
 import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
 import com.mtjworldcup.handlefinishedmatch.service.FinishedMatchService;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,15 +51,15 @@ public class Handler implements RequestHandler<DynamodbEvent, Void> {
     return null;
   }
 
+    // Only the settlement sets display_pool. A zero pool alone does not tell, a match nobody typed
+    // has one too and still has to be settled for its day to finish.
     private boolean isAlreadyProcessed(DynamodbEvent.DynamodbStreamRecord streamRecord) {
       try {
           return Optional.of(streamRecord)
                   .map(DynamodbEvent.DynamodbStreamRecord::getDynamodb)
                   .map(StreamRecord::getNewImage)
-                  .map(newImage -> newImage.get("pool"))
-                  .map(AttributeValue::getN)
-                  .stream()
-                  .anyMatch(pool -> new BigDecimal(pool).compareTo(BigDecimal.ZERO) == 0);
+                  .map(newImage -> newImage.containsKey("display_pool"))
+                  .orElse(false);
       } catch (Exception e) {
           log.warn("Exception while checking if the dynamodb event was already processed! Setting already processed to true. Cause: {}",
                   e.getMessage());
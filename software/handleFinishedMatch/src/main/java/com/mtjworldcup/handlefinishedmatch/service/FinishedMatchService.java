@@ -1,20 +1,23 @@
 package com.mtjworldcup.handlefinishedmatch.service;
 
 import com.mtjworldcup.common.model.TypingStatus;
+import com.mtjworldcup.common.service.ApiCacheService;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.Money;
+import com.mtjworldcup.dynamo.model.PoolIncrement;
 import com.mtjworldcup.dynamo.model.RecordType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class FinishedMatchService {
 
@@ -22,24 +25,37 @@ public class FinishedMatchService {
 
   private final MatchesDao matchesDao;
   private final MessageService messageService;
+  private final ApiCacheService apiCacheService;
+  private final MatchDayPublisher matchDayPublisher;
 
   public FinishedMatchService() {
     this.matchesDao = new MatchesDao();
     this.messageService = new MessageService();
+    this.apiCacheService = new ApiCacheService();
+    this.matchDayPublisher = new MatchDayPublisher();
   }
 
-  public FinishedMatchService(MatchesDao matchesDao, MessageService messageService) {
+  public FinishedMatchService(
+      MatchesDao matchesDao,
+      MessageService messageService,
+      ApiCacheService apiCacheService,
+      MatchDayPublisher matchDayPublisher) {
     this.matchesDao = matchesDao;
     this.messageService = messageService;
+    this.apiCacheService = apiCacheService;
+    this.matchDayPublisher = matchDayPublisher;
   }
 
   public void handleFinishedMatch(String primaryId) {
     log.info("Handling finished with id: {}", primaryId);
     List<TransactPutItemEnhancedRequest<Match>> putItemRequests = new ArrayList<>();
     List<TransactUpdateItemEnhancedRequest<Match>> updateItemRequests = new ArrayList<>();
+    List<PoolIncrement> poolIncrements = new ArrayList<>();
+    List<Match> winners = List.of();
+    BigDecimal winnerPrize = BigDecimal.ZERO;
     Match finishedMatch = matchesDao.getById(primaryId);
     log.info("Finished match fetched from DB: {}", finishedMatch);
-    BigDecimal pool = finishedMatch.getPool();
+    Money pool = Money.of(finishedMatch.getPool());
     List<Match> typings = matchesDao.getTypingsByMatchId(primaryId);
     typings.forEach(typing -> typing.setTypingStatus(TypingStatus.INCORRECT));
     List<Match> correctTypings =
@@ -51,8 +67,7 @@ public class FinishedMatchService {
             .toList();
     if (correctTypings.isEmpty()) {
       log.info("No correct typing for match: {}", primaryId);
-      var updateTomorrowPool = buildUpdateTomorrowPoolRequest(pool);
-      updateItemRequests.add(updateTomorrowPool);
+      poolIncrements.add(PoolIncrement.of(carryOverPoolId(finishedMatch.getDate()), pool));
     } else {
       log.info("Number of correct typings for match with id: {}: {}", primaryId, correctTypings.size());
       correctTypings.forEach(typing -> typing.setTypingStatus(TypingStatus.CORRECT));
@@ -62,10 +77,10 @@ public class FinishedMatchService {
               .map(typing -> matchesDao.getById(typing.getSecondaryId()))
               .toList();
       log.info("Users with correct typings: {}", users);
-      BigDecimal poolPerUser = pool.divide(BigDecimal.valueOf(users.size()), 2, RoundingMode.DOWN);
+      Money.Split split = pool.split(users.size());
+      Money poolPerUser = split.share();
+      BigDecimal prize = poolPerUser.toBigDecimal();
       log.info("Pool per user calculated: {}", poolPerUser);
-      users.forEach(user -> user.setCorrectTypings(user.getCorrectTypings() + 1));
-      users.forEach(user -> user.setPool(user.getPool().add(poolPerUser)));
       List<Match> winMessages = new ArrayList<>();
       users.forEach(
           user -> {
@@ -74,7 +89,7 @@ public class FinishedMatchService {
             message.setSecondaryId("message-" + finishedMatch.getPrimaryId());
             message.setRecordType(RecordType.MESSAGE);
             message.setDate(LocalDate.now());
-            message.setPool(poolPerUser);
+            message.setPool(prize);
             message.setHomeTeam(finishedMatch.getHomeTeam());
             message.setAwayTeam(finishedMatch.getAwayTeam());
             winMessages.add(message);
@@ -87,18 +102,26 @@ public class FinishedMatchService {
                       TransactPutItemEnhancedRequest.builder(Match.class).item(message).build())
               .toList();
       putItemRequests.addAll(putMessagesRequests);
-      var userUpdateRequests =
-          users.stream()
-              .map(
-                  user -> TransactUpdateItemEnhancedRequest.builder(Match.class).item(user).build())
-              .toList();
-      updateItemRequests.addAll(userUpdateRequests);
-      messageService.sendMessages(users, finishedMatch, poolPerUser);
+      users.forEach(
+          user -> poolIncrements.add(new PoolIncrement(user.getPrimaryId(), poolPerUser, 1)));
+      // grosze the winners cannot share evenly go to the next match day
+      if (split.remainder().isPositive()) {
+        log.info("Carrying remainder: {} forward", split.remainder());
+        poolIncrements.add(
+            PoolIncrement.of(carryOverPoolId(finishedMatch.getDate()), split.remainder()));
+      }
+      winners = users;
+      winnerPrize = prize;
     }
-    finishedMatch.setDisplayPool(pool);
+    finishedMatch.setDisplayPool(pool.toBigDecimal());
     finishedMatch.setPool(BigDecimal.ZERO);
+    // display_pool is only set by the settlement, a retried stream record finds it and writes nothing
     var updateMatch =
-        TransactUpdateItemEnhancedRequest.builder(Match.class).item(finishedMatch).build();
+        TransactUpdateItemEnhancedRequest.builder(Match.class)
+            .item(finishedMatch)
+            .conditionExpression(
+                Expression.builder().expression("attribute_not_exists(display_pool)").build())
+            .build();
     var typingsUpdateRequests =
         typings.stream()
             .map(
@@ -109,16 +132,48 @@ public class FinishedMatchService {
     updateItemRequests.addAll(typingsUpdateRequests);
     log.info("Put item requests: {}", putItemRequests);
     log.info("Update item requests: {}", updateMatch);
-    matchesDao.transactWriteItems(updateItemRequests, putItemRequests);
-    log.info("Transaction successful for match id: {}", primaryId);
+    if (matchesDao.transactWriteItems(updateItemRequests, putItemRequests, poolIncrements)) {
+      log.info("Transaction successful for match id: {}", primaryId);
+      if (!winners.isEmpty()) {
+        messageService.sendMessages(winners, finishedMatch, winnerPrize);
+      }
+      apiCacheService.flushStageCache();
+    } else {
+      log.info("Match: {} was already settled", primaryId);
+    }
+    publishIfMatchDayFinished(finishedMatch);
   }
 
-  public TransactUpdateItemEnhancedRequest<Match> buildUpdateTomorrowPoolRequest(BigDecimal pool) {
-    Match tomorrowPool =
-        matchesDao
-            .getPool(LocalDate.now().plusDays(1))
-            .orElseThrow(() -> new NoSuchElementException("Tomorrow pool not found!"));
-    tomorrowPool.setPool(tomorrowPool.getPool().add(pool));
-    return TransactUpdateItemEnhancedRequest.builder(Match.class).item(tomorrowPool).build();
+  // Unwon pools go to the next match day. After the last match of the tournament a pool for the
+  // following day is created to keep them.
+  private String carryOverPoolId(LocalDate matchDay) {
+    return matchesDao
+        .getNextPool(matchDay)
+        .map(Match::getPrimaryId)
+        .orElseGet(
+            () -> {
+              Match nextDayPool = Match.emptyPool(matchDay.plusDays(1));
+              matchesDao.saveIfNotExists(List.of(nextDayPool));
+              return nextDayPool.getPrimaryId();
+            });
+  }
+
+  // Settlements of one day can run concurrently. Each one checks after its own transaction, so the
+  // last one always sees every match settled, an occasional second event is ignored by dividePool.
+  // Runs again when a failed publish is retried, markSettled is idempotent.
+  private void publishIfMatchDayFinished(Match finishedMatch) {
+    LocalDate matchDay = finishedMatch.getDate();
+    Set<String> settled = matchesDao.markSettled(matchDay, finishedMatch.getPrimaryId());
+    List<String> matchDayIds =
+        matchesDao.getByDate(matchDay, List.of("primary_id")).stream()
+            .map(Match::getPrimaryId)
+            .toList();
+    if (settled.containsAll(matchDayIds)) {
+      log.info("Last match of the day: {} settled", matchDay);
+      matchDayPublisher.publishMatchDayFinished(matchDay);
+    } else {
+      log.info(
+          "Settled {} of {} matches of the day: {}", settled.size(), matchDayIds.size(), matchDay);
+    }
   }
 }
@@ -0,0 +1,52 @@
+package com.mtjworldcup.handlefinishedmatch.service;
+
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+
+public class MatchDayPublisher {
+
+  private static final Logger log = LoggerFactory.getLogger(MatchDayPublisher.class);
+  static final String SOURCE = "mtjworldcup.matches";
+  static final String MATCH_DAY_FINISHED = "MatchDayFinished";
+
+  private EventBridgeClient eventBridgeClient;
+
+  public MatchDayPublisher() {}
+
+  public MatchDayPublisher(EventBridgeClient eventBridgeClient) {
+    this.eventBridgeClient = eventBridgeClient;
+  }
+
+  // Sent to the default bus, a rule there starts the pool rollover.
+  public void publishMatchDayFinished(LocalDate matchDay) {
+    PutEventsResponse response =
+        getClient()
+            .putEvents(
+                builder ->
+                    builder.entries(
+                        PutEventsRequestEntry.builder()
+                            .source(SOURCE)
+                            .detailType(MATCH_DAY_FINISHED)
+                            .detail(String.format("{\"date\":\"%s\"}", matchDay))
+                            .build()));
+    if (response.failedEntryCount() > 0) {
+      throw new IllegalStateException(
+          "Match day finished event not published for: "
+              + matchDay
+              + ". Cause: "
+              + response.entries().get(0).errorMessage());
+    }
+    log.info("Match day finished event published for: {}", matchDay);
+  }
+
+  private EventBridgeClient getClient() {
+    if (eventBridgeClient == null) {
+      eventBridgeClient = EventBridgeClient.create();
+    }
+    return eventBridgeClient;
+  }
+}
@@ -56,6 +56,6 @@ public class MessageService {
   private void storeEndpointArn(String endpointArn, Match user) {
     log.info("Storing endpointArn {} for user {}", endpointArn, user.getPrimaryId());
     user.setEndpointArn(endpointArn);
-    matchesDao.update(user);
+    matchesDao.updateEndpointArn(user.getPrimaryId(), endpointArn);
   }
 }
@@ -0,0 +1,70 @@
+package com.mtjworldcup.handlefinishedmatch;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.mtjworldcup.handlefinishedmatch.service.FinishedMatchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class HandlerTest {
+
+  private final FinishedMatchService mockFinishedMatchService = mock(FinishedMatchService.class);
+
+  private Handler handler;
+
+  @BeforeEach
+  void setUp() {
+    handler = new Handler(mockFinishedMatchService);
+  }
+
+  @Test
+  void shouldSettleMatch_WhenFinishedMatchHasNoTypings() {
+    // given
+    DynamodbEvent event = prepareEvent(finishedMatchImage("fixture-1", "0"));
+    // when
+    handler.handleRequest(event, null);
+    // then
+    verify(mockFinishedMatchService).handleFinishedMatch("fixture-1");
+  }
+
+  @Test
+  void shouldSkipRecord_WhenMatchAlreadySettled() {
+    // given
+    Map<String, AttributeValue> newImage = finishedMatchImage("fixture-1", "0");
+    newImage.put("display_pool", new AttributeValue().withN("12"));
+    DynamodbEvent event = prepareEvent(newImage);
+    // when
+    handler.handleRequest(event, null);
+    // then
+    verify(mockFinishedMatchService, never()).handleFinishedMatch(any());
+  }
+
+  private static Map<String, AttributeValue> finishedMatchImage(String primaryId, String pool) {
+    Map<String, AttributeValue> newImage = new HashMap<>();
+    newImage.put("primary_id", new AttributeValue().withS(primaryId));
+    newImage.put("match_status", new AttributeValue().withS("FINISHED"));
+    newImage.put("pool", new AttributeValue().withN(pool));
+    return newImage;
+  }
+
+  private static DynamodbEvent prepareEvent(Map<String, AttributeValue> newImage) {
+    StreamRecord streamRecord = new StreamRecord();
+    streamRecord.setKeys(Map.of("primary_id", newImage.get("primary_id")));
+    streamRecord.setNewImage(newImage);
+    DynamodbEvent.DynamodbStreamRecord dynamodbRecord = new DynamodbEvent.DynamodbStreamRecord();
+    dynamodbRecord.setDynamodb(streamRecord);
+    DynamodbEvent event = new DynamodbEvent();
+    event.setRecords(List.of(dynamodbRecord));
+    return event;
+  }
+}
@@ -0,0 +1,85 @@
+package com.mtjworldcup.handlefinishedmatch.service;
+
+import com.mtjworldcup.common.service.ApiCacheService;
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.RecordType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FinishedMatchServiceTest {
+
+  private static final LocalDate MATCH_DAY = LocalDate.of(2024, 6, 14);
+
+  private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
+  private final MessageService mockMessageService = mock(MessageService.class);
+  private final ApiCacheService mockApiCacheService = mock(ApiCacheService.class);
+  private final MatchDayPublisher mockMatchDayPublisher = mock(MatchDayPublisher.class);
+
+  private FinishedMatchService finishedMatchService;
+
+  @BeforeEach
+  void setUp() {
+    finishedMatchService =
+        new FinishedMatchService(
+            mockMatchesDao, mockMessageService, mockApiCacheService, mockMatchDayPublisher);
+    when(mockMatchesDao.getById("fixture-2")).thenReturn(prepareFinishedMatch("fixture-2"));
+    when(mockMatchesDao.getTypingsByMatchId("fixture-2")).thenReturn(List.of());
+    when(mockMatchesDao.getNextPool(MATCH_DAY))
+        .thenReturn(Optional.of(Match.emptyPool(MATCH_DAY.plusDays(1))));
+    when(mockMatchesDao.getByDate(any(), any()))
+        .thenReturn(List.of(prepareFinishedMatch("fixture-1"), prepareFinishedMatch("fixture-2")));
+    when(mockMatchesDao.markSettled(MATCH_DAY, "fixture-2"))
+        .thenReturn(Set.of("fixture-1", "fixture-2"));
+  }
+
+  @Test
+  void shouldPublishMatchDayFinished_WhenLastMatchOfTheDayHadNoTypings() {
+    // given
+    when(mockMatchesDao.transactWriteItems(anyList(), anyList(), anyList())).thenReturn(true);
+    // when
+    finishedMatchService.handleFinishedMatch("fixture-2");
+    // then
+    verify(mockMatchesDao).markSettled(MATCH_DAY, "fixture-2");
+    verify(mockMatchDayPublisher).publishMatchDayFinished(MATCH_DAY);
+  }
+
+  @Test
+  void shouldOnlyPublishAgain_WhenMatchAlreadySettled() {
+    // given
+    when(mockMatchesDao.transactWriteItems(anyList(), anyList(), anyList())).thenReturn(false);
+    // when
+    finishedMatchService.handleFinishedMatch("fixture-2");
+    // then
+    verify(mockApiCacheService, never()).flushStageCache();
+    verify(mockMessageService, never()).sendMessages(any(), any(), any());
+    verify(mockMatchDayPublisher).publishMatchDayFinished(MATCH_DAY);
+  }
+
+  private static Match prepareFinishedMatch(String primaryId) {
+    Match match = new Match();
+    match.setPrimaryId(primaryId);
+    match.setSecondaryId(primaryId);
+    match.setRecordType(RecordType.MATCH);
+    match.setMatchStatus(MatchStatus.FINISHED);
+    match.setDate(MATCH_DAY);
+    match.setPool(BigDecimal.ZERO);
+    match.setHomeScore(1);
+    match.setAwayScore(1);
+    return match;
+  }
+}
@@ -0,0 +1,43 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// Runs speedUp times faster than the wall clock from the given start, e.g. 60 plays an hour in a minute.
+public class AcceleratedClock extends Clock {
+
+    private final Instant start;
+    private final long startNanos;
+    private final double speedUp;
+    private final ZoneId zone;
+
+    public AcceleratedClock(Instant start, double speedUp) {
+        this(start, System.nanoTime(), speedUp, ZoneOffset.UTC);
+    }
+
+    private AcceleratedClock(Instant start, long startNanos, double speedUp, ZoneId zone) {
+        this.start = start;
+        this.startNanos = startNanos;
+        this.speedUp = speedUp;
+        this.zone = zone;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new AcceleratedClock(start, startNanos, speedUp, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return start.plus(Duration.ofNanos((long) (elapsedNanos * speedUp)));
+    }
+}
@@ -0,0 +1,11 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import java.time.Duration;
+
+// errorRate and slowRate are probabilities between 0 and 1, drawn from a seeded random for repeatable runs
+public record Faults(double errorRate, double slowRate, Duration slowDelay, long seed) {
+
+    public static Faults none() {
+        return new Faults(0, 0, Duration.ZERO, 0);
+    }
+}
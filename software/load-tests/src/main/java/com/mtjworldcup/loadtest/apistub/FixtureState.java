@@ -0,0 +1,9 @@
+package com.mtjworldcup.loadtest.apistub;
+
+public record FixtureState(ScriptedFixture fixture, String shortStatus, String longStatus, Integer elapsed,
+                           Integer homeGoals, Integer awayGoals) {
+
+    public boolean isFinished() {
+        return "FT".equals(shortStatus);
+    }
+}
@@ -0,0 +1,240 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves the RapidAPI football endpoints used by the lambdas from a scripted timeline:
+// /leagues?id=..&current=true, /fixtures?ids=1-2-3 and /fixtures?league=..&from=..&to=..&season=..
+public class FootballApiStandIn extends Dispatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FootballApiStandIn.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MockWebServer server = new MockWebServer();
+    private final TournamentTimeline timeline;
+    private final Clock clock;
+    private final Quota quota;
+    private final Faults faults;
+    private final Random random;
+    private final int season;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private Instant currentDay;
+    private Instant currentMinute;
+    private int usedToday;
+    private int usedThisMinute;
+
+    public FootballApiStandIn(TournamentTimeline timeline, Clock clock) {
+        this(timeline, clock, Quota.unlimited(), Faults.none());
+    }
+
+    public FootballApiStandIn(TournamentTimeline timeline, Clock clock, Quota quota, Faults faults) {
+        this.timeline = timeline;
+        this.clock = clock;
+        this.quota = quota;
+        this.faults = faults;
+        this.random = new Random(faults.seed());
+        this.season = timeline.getFixtures().stream()
+                .findFirst()
+                .map(fixture -> fixture.kickoff().atOffset(ZoneOffset.UTC).getYear())
+                .orElse(LocalDate.now(clock).getYear());
+        server.setDispatcher(this);
+    }
+
+    public FootballApiStandIn start() throws IOException {
+        return start(0);
+    }
+
+    public FootballApiStandIn start(int port) throws IOException {
+        server.start(port);
+        log.info("Football api stand-in listening on: {}", getBaseUrl());
+        return this;
+    }
+
+    // value for the BASE_API_URL variable, without a trailing slash
+    public String getBaseUrl() {
+        return server.url("").toString().replaceAll("/$", "");
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    public int getThrottledCount() {
+        return throttled.get();
+    }
+
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        requests.incrementAndGet();
+        Instant now = clock.instant();
+        MockResponse response;
+        synchronized (this) {
+            if (!tryTake(now)) {
+                throttled.incrementAndGet();
+                return withRateLimit(new MockResponse()
+                        .setResponseCode(429)
+                        .setBody("{\"message\":\"You have exceeded the rate limit per minute for your plan\"}"));
+            }
+            if (random.nextDouble() < faults.errorRate()) {
+                failed.incrementAndGet();
+                return withRateLimit(new MockResponse().setResponseCode(500));
+            }
+            response = withRateLimit(route(request.getRequestUrl(), now));
+            if (random.nextDouble() < faults.slowRate()) {
+                response.setHeadersDelay(faults.slowDelay().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse route(HttpUrl url, Instant now) {
+        if (url == null) {
+            return new MockResponse().setResponseCode(400);
+        }
+        String endpoint = url.pathSegments().stream()
+                .filter(segment -> !segment.isEmpty())
+                .reduce((first, second) -> second)
+                .orElse("");
+        if (endpoint.equals("leagues")) {
+            return json(leagues(url));
+        }
+        if (endpoint.equals("fixtures") && url.queryParameter("ids") != null) {
+            List<FixtureState> states = Arrays.stream(url.queryParameter("ids").split("-"))
+                    .map(Long::parseLong)
+                    .map(id -> timeline.stateOf(id, now))
+                    .flatMap(Optional::stream)
+                    .toList();
+            return json(fixtures(states));
+        }
+        if (endpoint.equals("fixtures") && url.queryParameter("from") != null) {
+            List<FixtureState> states = timeline.statesBetween(
+                    LocalDate.parse(url.queryParameter("from")), LocalDate.parse(url.queryParameter("to")), now);
+            return json(fixtures(states));
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    private boolean tryTake(Instant now) {
+        Instant day = now.truncatedTo(ChronoUnit.DAYS);
+        Instant minute = now.truncatedTo(ChronoUnit.MINUTES);
+        if (!day.equals(currentDay)) {
+            currentDay = day;
+            usedToday = 0;
+        }
+        if (!minute.equals(currentMinute)) {
+            currentMinute = minute;
+            usedThisMinute = 0;
+        }
+        if (usedToday >= quota.dailyLimit() || usedThisMinute >= quota.minuteLimit()) {
+            return false;
+        }
+        usedToday++;
+        usedThisMinute++;
+        return true;
+    }
+
+    private MockResponse withRateLimit(MockResponse response) {
+        return response
+                .addHeader("x-ratelimit-requests-limit", quota.dailyLimit())
+                .addHeader("x-ratelimit-requests-remaining", Math.max(0, quota.dailyLimit() - usedToday))
+                .addHeader("X-RateLimit-Limit", quota.minuteLimit())
+                .addHeader("X-RateLimit-Remaining", Math.max(0, quota.minuteLimit() - usedThisMinute));
+    }
+
+    private ObjectNode leagues(HttpUrl url) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("get", "leagues");
+        ObjectNode league = body.putArray("response").addObject();
+        league.putObject("league").put("id", Integer.parseInt(Optional.ofNullable(url.queryParameter("id")).orElse("0")));
+        league.putArray("seasons").addObject()
+                .put("year", season)
+                .put("current", true);
+        return body;
+    }
+
+    private static ObjectNode fixtures(List<FixtureState> states) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("get", "fixtures");
+        body.put("results", states.size());
+        ArrayNode response = body.putArray("response");
+        states.forEach(state -> {
+            ObjectNode item = response.addObject();
+            ObjectNode fixture = item.putObject("fixture");
+            fixture.put("id", state.fixture().id());
+            fixture.put("timestamp", state.fixture().kickoff().getEpochSecond());
+            ObjectNode status = fixture.putObject("status");
+            status.put("long", state.longStatus());
+            status.put("short", state.shortStatus());
+            status.put("elapsed", state.elapsed());
+            ObjectNode teams = item.putObject("teams");
+            teams.putObject("home").put("name", state.fixture().homeTeam());
+            teams.putObject("away").put("name", state.fixture().awayTeam());
+            ObjectNode goals = item.putObject("goals");
+            goals.put("home", state.homeGoals());
+            goals.put("away", state.awayGoals());
+        });
+        return body;
+    }
+
+    private static MockResponse json(ObjectNode body) {
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json")
+                .setBody(body.toString());
+    }
+
+    // Starts the stand-in on its own, e.g. for sam local invoke with BASE_API_URL pointing at it.
+    // Arguments: port (8089), speed up factor (60), number of fixtures (6).
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        double speedUp = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        int fixtureCount = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        Instant start = Instant.now();
+        TournamentTimeline timeline = TournamentTimeline.random(fixtureCount, start.plus(Duration.ofMinutes(5)),
+                Duration.ofHours(3), start.toEpochMilli());
+        FootballApiStandIn standIn = new FootballApiStandIn(timeline, new AcceleratedClock(start, speedUp)).start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                standIn.close();
+            } catch (IOException e) {
+                log.warn("Stand-in not closed cleanly. Cause: {}", e.getMessage());
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
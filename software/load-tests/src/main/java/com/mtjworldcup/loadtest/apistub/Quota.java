@@ -0,0 +1,8 @@
+package com.mtjworldcup.loadtest.apistub;
+
+public record Quota(int dailyLimit, int minuteLimit) {
+
+    public static Quota unlimited() {
+        return new Quota(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,11 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ScriptedFixture(long id, String homeTeam, String awayTeam, Instant kickoff, List<Goal> goals) {
+
+    // minute of play, 1-90
+    public record Goal(int minute, boolean home) {
+    }
+}
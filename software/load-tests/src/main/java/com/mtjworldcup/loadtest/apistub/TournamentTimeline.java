@@ -0,0 +1,99 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+// Real time layout of every fixture: 45 minutes of play, 15 minutes of half time, another 45 minutes.
+public class TournamentTimeline {
+
+    static final Duration HALF = Duration.ofMinutes(45);
+    static final Duration HALF_TIME_BREAK = Duration.ofMinutes(15);
+    static final Duration MATCH_DURATION = HALF.plus(HALF_TIME_BREAK).plus(HALF);
+
+    private static final List<String> TEAMS = List.of("Germany", "Scotland", "Hungary", "Switzerland", "Spain",
+            "Croatia", "Italy", "Albania", "Slovenia", "Denmark", "Serbia", "England", "Austria", "France",
+            "Belgium", "Slovakia", "Portugal", "Czech Republic", "Romania", "Turkey", "Netherlands", "Poland",
+            "Ukraine", "Georgia");
+
+    private final List<ScriptedFixture> fixtures;
+
+    public TournamentTimeline(List<ScriptedFixture> fixtures) {
+        this.fixtures = List.copyOf(fixtures);
+    }
+
+    public static TournamentTimeline random(int fixtureCount, Instant firstKickoff, Duration kickoffSpacing,
+                                            long seed) {
+        Random random = new Random(seed);
+        List<ScriptedFixture> fixtures = new ArrayList<>();
+        for (int i = 0; i < fixtureCount; i++) {
+            int home = random.nextInt(TEAMS.size());
+            int away = (home + 1 + random.nextInt(TEAMS.size() - 1)) % TEAMS.size();
+            List<ScriptedFixture.Goal> goals = new ArrayList<>();
+            int goalCount = random.nextInt(6);
+            for (int goal = 0; goal < goalCount; goal++) {
+                goals.add(new ScriptedFixture.Goal(1 + random.nextInt(90), random.nextBoolean()));
+            }
+            fixtures.add(new ScriptedFixture(1_000_000L + i, TEAMS.get(home), TEAMS.get(away),
+                    firstKickoff.plus(kickoffSpacing.multipliedBy(i)), goals));
+        }
+        return new TournamentTimeline(fixtures);
+    }
+
+    public List<ScriptedFixture> getFixtures() {
+        return fixtures;
+    }
+
+    public Instant getEnd() {
+        return fixtures.stream()
+                .map(fixture -> fixture.kickoff().plus(MATCH_DURATION))
+                .max(Instant::compareTo)
+                .orElse(Instant.EPOCH);
+    }
+
+    public Optional<FixtureState> stateOf(long fixtureId, Instant now) {
+        return fixtures.stream()
+                .filter(fixture -> fixture.id() == fixtureId)
+                .findFirst()
+                .map(fixture -> stateOf(fixture, now));
+    }
+
+    // from and to are inclusive UTC dates, the way the fixtures endpoint treats them without a timezone
+    public List<FixtureState> statesBetween(LocalDate from, LocalDate to, Instant now) {
+        return fixtures.stream()
+                .filter(fixture -> {
+                    LocalDate kickoffDate = fixture.kickoff().atOffset(ZoneOffset.UTC).toLocalDate();
+                    return !kickoffDate.isBefore(from) && !kickoffDate.isAfter(to);
+                })
+                .map(fixture -> stateOf(fixture, now))
+                .toList();
+    }
+
+    static FixtureState stateOf(ScriptedFixture fixture, Instant now) {
+        long sinceKickoff = Duration.between(fixture.kickoff(), now).toMinutes();
+        if (now.isBefore(fixture.kickoff())) {
+            return new FixtureState(fixture, "NS", "Not Started", null, null, null);
+        }
+        if (sinceKickoff < HALF.toMinutes()) {
+            return played(fixture, "1H", "First Half", (int) sinceKickoff + 1);
+        }
+        if (sinceKickoff < HALF.plus(HALF_TIME_BREAK).toMinutes()) {
+            return played(fixture, "HT", "Halftime", 45);
+        }
+        if (sinceKickoff < MATCH_DURATION.toMinutes()) {
+            return played(fixture, "2H", "Second Half", (int) (sinceKickoff - HALF_TIME_BREAK.toMinutes()) + 1);
+        }
+        return played(fixture, "FT", "Match Finished", 90);
+    }
+
+    private static FixtureState played(ScriptedFixture fixture, String shortStatus, String longStatus, int minute) {
+        int home = (int) fixture.goals().stream().filter(goal -> goal.home() && goal.minute() <= minute).count();
+        int away = (int) fixture.goals().stream().filter(goal -> !goal.home() && goal.minute() <= minute).count();
+        return new FixtureState(fixture, shortStatus, longStatus, minute, home, away);
+    }
+}
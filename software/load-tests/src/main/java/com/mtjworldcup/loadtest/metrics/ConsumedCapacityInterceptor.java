@@ -0,0 +1,172 @@
+package com.mtjworldcup.loadtest.metrics;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+// Asks DynamoDB for the consumed capacity of every call and sums it up per operation, e.g. "DynamoDb.Query".
+// Call latencies go to the given recorder under the same names.
+public class ConsumedCapacityInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("LoadTestStartNanos");
+
+    private final LatencyRecorder latencyRecorder;
+    private final Map<String, DoubleAdder> capacityUnits = new ConcurrentHashMap<>();
+
+    public ConsumedCapacityInterceptor(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        SdkRequest request = context.request();
+        ReturnConsumedCapacity total = ReturnConsumedCapacity.TOTAL;
+        if (request instanceof GetItemRequest getItem) {
+            return getItem.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof PutItemRequest putItem) {
+            return putItem.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof UpdateItemRequest updateItem) {
+            return updateItem.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof DeleteItemRequest deleteItem) {
+            return deleteItem.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof QueryRequest query) {
+            return query.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof ScanRequest scan) {
+            return scan.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof BatchGetItemRequest batchGet) {
+            return batchGet.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof BatchWriteItemRequest batchWrite) {
+            return batchWrite.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof TransactGetItemsRequest transactGet) {
+            return transactGet.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof TransactWriteItemsRequest transactWrite) {
+            return transactWrite.toBuilder().returnConsumedCapacity(total).build();
+        }
+        return request;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String operation = operation(executionAttributes);
+        latencyRecorder.record(operation, System.nanoTime() - executionAttributes.getAttribute(START_NANOS));
+        consumed(context.response()).forEach(capacity -> add(operation, capacity));
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        String operation = operation(executionAttributes);
+        Optional.ofNullable(executionAttributes.getAttribute(START_NANOS))
+                .ifPresent(start -> latencyRecorder.record(operation, System.nanoTime() - start));
+        latencyRecorder.fail(operation);
+    }
+
+    public double getCapacityUnits(String operation) {
+        return Optional.ofNullable(capacityUnits.get(operation)).map(DoubleAdder::sum).orElse(0.0);
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-32s %14s%n", "operation", "capacity units"));
+        capacityUnits.keySet().stream().sorted().forEach(operation -> report.append(
+                String.format("%-32s %14.1f%n", operation, getCapacityUnits(operation))));
+        return report.toString();
+    }
+
+    public void reset() {
+        capacityUnits.clear();
+    }
+
+    private void add(String operation, ConsumedCapacity capacity) {
+        if (capacity != null && capacity.capacityUnits() != null) {
+            capacityUnits.computeIfAbsent(operation, key -> new DoubleAdder()).add(capacity.capacityUnits());
+        }
+    }
+
+    private static String operation(ExecutionAttributes executionAttributes) {
+        return executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME) + "."
+                + executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+    }
+
+    private static List<ConsumedCapacity> consumed(SdkResponse response) {
+        if (response instanceof GetItemResponse getItem) {
+            return nullableList(getItem.consumedCapacity());
+        }
+        if (response instanceof PutItemResponse putItem) {
+            return nullableList(putItem.consumedCapacity());
+        }
+        if (response instanceof UpdateItemResponse updateItem) {
+            return nullableList(updateItem.consumedCapacity());
+        }
+        if (response instanceof DeleteItemResponse deleteItem) {
+            return nullableList(deleteItem.consumedCapacity());
+        }
+        if (response instanceof QueryResponse query) {
+            return nullableList(query.consumedCapacity());
+        }
+        if (response instanceof ScanResponse scan) {
+            return nullableList(scan.consumedCapacity());
+        }
+        if (response instanceof BatchGetItemResponse batchGet) {
+            return batchGet.consumedCapacity();
+        }
+        if (response instanceof BatchWriteItemResponse batchWrite) {
+            return batchWrite.consumedCapacity();
+        }
+        if (response instanceof TransactGetItemsResponse transactGet) {
+            return transactGet.consumedCapacity();
+        }
+        if (response instanceof TransactWriteItemsResponse transactWrite) {
+            return transactWrite.consumedCapacity();
+        }
+        return List.of();
+    }
+
+    private static List<ConsumedCapacity> nullableList(ConsumedCapacity capacity) {
+        return capacity == null ? List.of() : List.of(capacity);
+    }
+}
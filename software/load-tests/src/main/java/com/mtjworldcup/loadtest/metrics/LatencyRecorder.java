@@ -0,0 +1,90 @@
+package com.mtjworldcup.loadtest.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class LatencyRecorder {
+
+    private final Map<String, List<Long>> samples = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+    public <T> T time(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(operation, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String operation, long nanos) {
+        List<Long> operationSamples = samples.computeIfAbsent(operation, key -> new ArrayList<>());
+        synchronized (operationSamples) {
+            operationSamples.add(nanos);
+        }
+    }
+
+    public void fail(String operation) {
+        failures.computeIfAbsent(operation, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public int getCount(String operation) {
+        List<Long> operationSamples = samples.getOrDefault(operation, List.of());
+        synchronized (operationSamples) {
+            return operationSamples.size();
+        }
+    }
+
+    public int getFailures(String operation) {
+        return failures.getOrDefault(operation, new AtomicInteger()).get();
+    }
+
+    // nearest rank percentile in milliseconds, percentile between 0 and 100
+    public double getPercentile(String operation, double percentile) {
+        List<Long> sorted = sorted(operation);
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return toMillis(sorted.get(Math.max(0, rank - 1)));
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-32s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "count", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        samples.keySet().stream().sorted().forEach(operation -> report.append(String.format(
+                "%-32s %8d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                operation,
+                getCount(operation),
+                getFailures(operation),
+                getPercentile(operation, 50),
+                getPercentile(operation, 95),
+                getPercentile(operation, 99),
+                getPercentile(operation, 100))));
+        return report.toString();
+    }
+
+    public void reset() {
+        samples.clear();
+        failures.clear();
+    }
+
+    private List<Long> sorted(String operation) {
+        List<Long> operationSamples = samples.getOrDefault(operation, List.of());
+        List<Long> copy;
+        synchronized (operationSamples) {
+            copy = new ArrayList<>(operationSamples);
+        }
+        copy.sort(Long::compareTo);
+        return copy;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
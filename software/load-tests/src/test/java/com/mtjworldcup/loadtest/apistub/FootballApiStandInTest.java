@@ -0,0 +1,109 @@
+package com.mtjworldcup.loadtest.apistub;
+
+import com.mtjworldcup.common.client.FootballApiClient;
+import com.mtjworldcup.common.client.RequestPriority;
+import com.mtjworldcup.common.exception.HttpClientException;
+import com.mtjworldcup.common.model.MatchApiResponse;
+import com.mtjworldcup.common.model.MatchDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SystemStubsExtension.class)
+class FootballApiStandInTest {
+
+    private static final Instant KICKOFF = Instant.parse("2024-06-14T19:00:00Z");
+    private static final TournamentTimeline TIMELINE = new TournamentTimeline(List.of(
+            new ScriptedFixture(1, "Germany", "Scotland", KICKOFF,
+                    List.of(new ScriptedFixture.Goal(10, true), new ScriptedFixture.Goal(70, false)))));
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    private final ManualClock clock = new ManualClock(KICKOFF.minus(Duration.ofMinutes(5)));
+    private final FootballApiClient footballApiClient = new FootballApiClient();
+    private FootballApiStandIn standIn;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        standIn.close();
+    }
+
+    @Test
+    void shouldReplayScoreChanges_WhenTimelineAdvances() throws Exception {
+        //given
+        start(new FootballApiStandIn(TIMELINE, clock));
+        //when
+        MatchDto beforeKickoff = currentState();
+        clock.set(KICKOFF.plus(Duration.ofMinutes(20)));
+        MatchDto firstHalf = currentState();
+        clock.set(KICKOFF.plus(Duration.ofMinutes(90)));
+        MatchDto secondHalf = currentState();
+        clock.set(KICKOFF.plus(Duration.ofMinutes(110)));
+        MatchDto finished = currentState();
+        //then
+        assertEquals("Not Started", beforeKickoff.getFixture().getStatus().getLongName());
+        assertNull(beforeKickoff.getGoals().getHome());
+        assertEquals(1, firstHalf.getGoals().getHome());
+        assertEquals(0, firstHalf.getGoals().getAway());
+        assertEquals(1, secondHalf.getGoals().getAway());
+        assertEquals("Match Finished", finished.getFixture().getStatus().getLongName());
+        assertEquals(KICKOFF.getEpochSecond(), finished.getFixture().getTimestamp());
+    }
+
+    @Test
+    void shouldListFixturesOfTheDay_WhenQueriedByDates() throws Exception {
+        //given
+        start(new FootballApiStandIn(TIMELINE, clock));
+        //when
+        MatchApiResponse response = footballApiClient.get("/fixtures?league=4&from=2024-06-14&to=2024-06-21&season=2024",
+                MatchApiResponse.class, RequestPriority.FIXTURES);
+        //then
+        assertEquals(1, response.getResponse().size());
+        assertEquals("Germany", response.getResponse().get(0).getTeams().getHome().getName());
+    }
+
+    @Test
+    void shouldRespondWith429_WhenMinuteQuotaUsed() throws Exception {
+        //given
+        start(new FootballApiStandIn(TIMELINE, clock, new Quota(100, 2), Faults.none()));
+        //when
+        currentState();
+        currentState();
+        //then
+        assertThrows(HttpClientException.class, this::currentState);
+        clock.advance(Duration.ofMinutes(1));
+        assertDoesNotThrow(this::currentState);
+        assertEquals(1, standIn.getThrottledCount());
+    }
+
+    @Test
+    void shouldFailEveryRequest_WhenErrorRateIsOne() throws Exception {
+        //given
+        start(new FootballApiStandIn(TIMELINE, clock, Quota.unlimited(), new Faults(1, 0, Duration.ZERO, 1)));
+        //when, then
+        assertThrows(HttpClientException.class, this::currentState);
+        assertEquals(1, standIn.getFailedCount());
+    }
+
+    private void start(FootballApiStandIn standIn) throws Exception {
+        this.standIn = standIn.start();
+        environmentVariables.set("RAPID_API_KEY", "key");
+        environmentVariables.set("RAPID_API_HOST", "host");
+        environmentVariables.set("BASE_API_URL", standIn.getBaseUrl());
+    }
+
+    private MatchDto currentState() {
+        return footballApiClient.get("/fixtures?ids=1", MatchApiResponse.class, RequestPriority.LIVE)
+                .getResponse().get(0);
+    }
+}
@@ -0,0 +1,372 @@
+package com.mtjworldcup.loadtest.pipeline;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.cognito.service.CognitoJwtVerifierService;
+import com.mtjworldcup.common.client.FootballApiClient;
+import com.mtjworldcup.common.client.RequestBudget;
+import com.mtjworldcup.common.model.TypingStatus;
+import com.mtjworldcup.common.service.ApiCacheService;
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.MatchStatus;
+import com.mtjworldcup.dynamo.model.RecordType;
+import com.mtjworldcup.getcurrentstatefromapi.service.MatchStateService;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollPlanner;
+import com.mtjworldcup.getcurrentstatefromapi.service.PollScheduler;
+import com.mtjworldcup.handlefinishedmatch.service.FinishedMatchService;
+import com.mtjworldcup.handlefinishedmatch.service.MatchDayPublisher;
+import com.mtjworldcup.handlefinishedmatch.service.MessageService;
+import com.mtjworldcup.loadtest.apistub.FootballApiStandIn;
+import com.mtjworldcup.loadtest.apistub.ManualClock;
+import com.mtjworldcup.loadtest.apistub.ScriptedFixture;
+import com.mtjworldcup.loadtest.apistub.TournamentTimeline;
+import com.mtjworldcup.loadtest.metrics.ConsumedCapacityInterceptor;
+import com.mtjworldcup.loadtest.metrics.LatencyRecorder;
+import com.mtjworldcup.posttypes.model.MatchDto;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Replays a match day against LocalStack: users post typings, the live poll follows the stand-in api until all
+// matches finish, then every finished match is settled. Sizes are set with system properties, e.g.
+// mvn test -P load -Dload.users=10000 -Dload.typings=100000
+@Tag("load")
+@ExtendWith(SystemStubsExtension.class)
+@Testcontainers
+class PipelineLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineLoadTest.class);
+
+    private static final int USERS = Integer.getInteger("load.users", 10_000);
+    private static final int TYPINGS = Integer.getInteger("load.typings", 100_000);
+    private static final int LIVE_MATCHES = Integer.getInteger("load.liveMatches", 12);
+    private static final int UPCOMING_MATCHES = Integer.getInteger("load.upcomingMatches", 4);
+    private static final int POSTS = Integer.getInteger("load.posts", 1_000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 8);
+    private static final Duration POLL_INTERVAL = Duration.ofMinutes(Integer.getInteger("load.pollMinutes", 1));
+
+    private static final String TABLE_NAME = "matches";
+    private static final ZoneId MATCH_ZONE = ZoneId.of("Europe/Warsaw");
+    private static final Instant FIRST_KICKOFF = Instant.parse("2024-06-14T10:00:00Z");
+    private static final BigDecimal MATCH_POOL = new BigDecimal(100);
+
+    @Container
+    private static final LocalStackContainer localStack =
+            new LocalStackContainer(DockerImageName.parse("localstack/localstack:2.0.0"))
+                    .withServices(LocalStackContainer.Service.DYNAMODB);
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    private static final LatencyRecorder latencies = new LatencyRecorder();
+    private static final ConsumedCapacityInterceptor capacity = new ConsumedCapacityInterceptor(latencies);
+    private static DynamoDbEnhancedClient enhancedClient;
+    private static DynamoDbTable<Match> matches;
+    private static MatchesDao matchesDao;
+
+    @BeforeAll
+    static void setUp() {
+        DynamoDbClient dynamoClient = DynamoDbClient.builder()
+                .endpointOverride(localStack.getEndpoint())
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(localStack.getAccessKey(), localStack.getSecretKey())))
+                .region(Region.of(localStack.getRegion()))
+                .overrideConfiguration(configuration -> configuration.addExecutionInterceptor(capacity))
+                .build();
+        enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoClient).build();
+        matches = enhancedClient.table(TABLE_NAME, TableSchema.fromBean(Match.class));
+        matchesDao = new MatchesDao(dynamoClient, enhancedClient);
+    }
+
+    @Test
+    void shouldReportLatencyAndCapacity_WhenMatchDayReplayed() throws Exception {
+        //given
+        environmentVariables.set("MATCHES_TABLE_NAME", TABLE_NAME);
+        TournamentTimeline timeline =
+                TournamentTimeline.random(LIVE_MATCHES, FIRST_KICKOFF, Duration.ofHours(1), 2024);
+        createTable();
+        seed(timeline);
+        ManualClock clock = new ManualClock(FIRST_KICKOFF.minus(Duration.ofMinutes(10)));
+        try (FootballApiStandIn standIn = new FootballApiStandIn(timeline, clock).start()) {
+            environmentVariables.set("RAPID_API_KEY", "load-test");
+            environmentVariables.set("RAPID_API_HOST", "load-test");
+            environmentVariables.set("BASE_API_URL", standIn.getBaseUrl());
+            //when
+            postTypings();
+            pollUntilFinished(timeline, clock);
+            settleFinishedMatches(timeline);
+        }
+        //then
+        log.info("Latency per operation:\n{}", latencies.report());
+        log.info("Consumed capacity per operation:\n{}", capacity.report());
+        assertEquals(0, latencies.getFailures("postTypes"));
+        assertEquals(0, latencies.getFailures("getCurrentStateFromApi"));
+        timeline.getFixtures().forEach(fixture -> assertEquals(MatchStatus.FINISHED,
+                matchesDao.getById(Long.toString(fixture.id())).getMatchStatus()));
+    }
+
+    private void postTypings() throws Exception {
+        com.mtjworldcup.posttypes.Handler handler = new com.mtjworldcup.posttypes.Handler(
+                new TokenIsUsername(), matchesDao, new ObjectMapper());
+        String body = new ObjectMapper().writeValueAsString(IntStream.range(0, UPCOMING_MATCHES)
+                .mapToObj(i -> new MatchDto(upcomingId(i), i % 3, 1))
+                .toList());
+        runConcurrently(POSTS, i -> {
+            APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent()
+                    .withHeaders(Map.of("Authorization", "Bearer " + userId(i % USERS)))
+                    .withBody(body);
+            APIGatewayProxyResponseEvent response = latencies.time("postTypes",
+                    () -> handler.handleRequest(event, null));
+            if (response.getStatusCode() >= 300) {
+                latencies.fail("postTypes");
+            }
+        });
+    }
+
+    private void pollUntilFinished(TournamentTimeline timeline, ManualClock clock) {
+        Context context = mock(Context.class);
+        when(context.getInvokedFunctionArn()).thenReturn("arn:aws:lambda:eu-central-1:000000000000:function:load");
+        // The stand-in enforces the api quota itself. The default budget would count it in a real eu-central-1
+        // table on the wall clock instead of LocalStack and the manual clock.
+        MatchStateService matchStateService =
+                new MatchStateService(new FootballApiClient(RequestBudget.unlimited()));
+        com.mtjworldcup.getcurrentstatefromapi.Handler handler = new com.mtjworldcup.getcurrentstatefromapi.Handler(
+                matchesDao, matchStateService, new PollPlanner(), mock(PollScheduler.class), clock);
+        Instant end = timeline.getEnd().plus(Duration.ofMinutes(10));
+        while (!clock.instant().isAfter(end)) {
+            APIGatewayProxyResponseEvent response = latencies.time("getCurrentStateFromApi",
+                    () -> handler.handleRequest(null, context));
+            if (response.getStatusCode() >= 300) {
+                latencies.fail("getCurrentStateFromApi");
+            }
+            clock.advance(POLL_INTERVAL);
+        }
+    }
+
+    private void settleFinishedMatches(TournamentTimeline timeline) {
+        com.mtjworldcup.handlefinishedmatch.Handler handler = new com.mtjworldcup.handlefinishedmatch.Handler(
+                new FinishedMatchService(matchesDao, mock(MessageService.class), new ApiCacheService(),
+                        mock(MatchDayPublisher.class)));
+        timeline.getFixtures().forEach(fixture -> {
+            try {
+                latencies.time("handleFinishedMatch",
+                        () -> handler.handleRequest(finishedMatchEvent(Long.toString(fixture.id())), null));
+            } catch (Exception e) {
+                log.warn("Settling match: {} failed. Cause: {}", fixture.id(), e.getMessage());
+                latencies.fail("handleFinishedMatch");
+            }
+        });
+    }
+
+    private void seed(TournamentTimeline timeline) {
+        if (TYPINGS > (long) USERS * LIVE_MATCHES) {
+            throw new IllegalArgumentException("At most one typing per user and match, raise load.users or load.liveMatches");
+        }
+        List<Match> items = new ArrayList<>();
+        IntStream.range(0, USERS).forEach(i -> items.add(user(userId(i))));
+        List<Match> liveMatches = timeline.getFixtures().stream().map(PipelineLoadTest::liveMatch).toList();
+        items.addAll(liveMatches);
+        IntStream.range(0, UPCOMING_MATCHES).forEach(i -> items.add(upcomingMatch(upcomingId(i))));
+        items.add(pool(LocalDate.now().plusDays(1)));
+        for (int i = 0; i < TYPINGS; i++) {
+            items.add(typing(liveMatches.get(i % LIVE_MATCHES), userId(i / LIVE_MATCHES), i));
+        }
+        latencies.time("seed", () -> {
+            batchWrite(items);
+            return null;
+        });
+        log.info("Seeded {} users, {} matches and {} typings", USERS, LIVE_MATCHES + UPCOMING_MATCHES, TYPINGS);
+        latencies.reset();
+        capacity.reset();
+    }
+
+    private static void batchWrite(List<Match> items) {
+        for (int from = 0; from < items.size(); from += 25) {
+            List<Match> pending = items.subList(from, Math.min(from + 25, items.size()));
+            while (!pending.isEmpty()) {
+                WriteBatch.Builder<Match> batch = WriteBatch.builder(Match.class).mappedTableResource(matches);
+                pending.forEach(batch::addPutItem);
+                pending = enhancedClient.batchWriteItem(builder -> builder.writeBatches(batch.build()))
+                        .unprocessedPutItemsForTable(matches);
+            }
+        }
+    }
+
+    private static void runConcurrently(int count, IntConsumerWithException task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static DynamodbEvent finishedMatchEvent(String matchId) {
+        StreamRecord streamRecord = new StreamRecord();
+        streamRecord.setKeys(Map.of(
+                "primary_id", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue(matchId)));
+        streamRecord.setNewImage(Map.of(
+                "pool", new com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue()
+                        .withN(MATCH_POOL.toString())));
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setDynamodb(streamRecord);
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(record));
+        return event;
+    }
+
+    private static Match user(String id) {
+        Match user = new Match();
+        user.setPrimaryId(id);
+        user.setSecondaryId(id);
+        user.setRecordType(RecordType.USER);
+        user.setPool(new BigDecimal(100));
+        return user;
+    }
+
+    private static Match liveMatch(ScriptedFixture fixture) {
+        ZonedDateTime kickoff = fixture.kickoff().atZone(MATCH_ZONE);
+        Match match = new Match();
+        match.setPrimaryId(Long.toString(fixture.id()));
+        match.setSecondaryId(Long.toString(fixture.id()));
+        match.setDate(kickoff.toLocalDate());
+        match.setStartTime(kickoff.toLocalTime());
+        match.setHomeTeam(fixture.homeTeam());
+        match.setAwayTeam(fixture.awayTeam());
+        match.setRecordType(RecordType.MATCH);
+        match.setMatchStatus(MatchStatus.SCHEDULED);
+        match.setPool(MATCH_POOL);
+        return match;
+    }
+
+    // dated in real time, posting typings is only open before kickoff
+    private static Match upcomingMatch(String id) {
+        Match match = new Match();
+        match.setPrimaryId(id);
+        match.setSecondaryId(id);
+        match.setDate(LocalDate.now().plusDays(2));
+        match.setStartTime(LocalTime.of(21, 0));
+        match.setHomeTeam("Poland");
+        match.setAwayTeam("France");
+        match.setRecordType(RecordType.MATCH);
+        match.setMatchStatus(MatchStatus.SCHEDULED);
+        match.setPool(BigDecimal.ZERO);
+        return match;
+    }
+
+    private static Match pool(LocalDate date) {
+        Match pool = new Match();
+        pool.setPrimaryId("pool-" + date);
+        pool.setSecondaryId("pool-" + date);
+        pool.setDate(date);
+        pool.setRecordType(RecordType.POOL);
+        pool.setPool(BigDecimal.ZERO);
+        return pool;
+    }
+
+    private static Match typing(Match match, String userId, int seed) {
+        Match typing = new Match();
+        typing.setPrimaryId(match.getPrimaryId());
+        typing.setSecondaryId(userId);
+        typing.setDate(match.getDate());
+        typing.setStartTime(match.getStartTime());
+        typing.setHomeTeam(match.getHomeTeam());
+        typing.setAwayTeam(match.getAwayTeam());
+        typing.setHomeScore(seed % 4);
+        typing.setAwayScore(seed / 4 % 3);
+        typing.setRecordType(RecordType.TYPING);
+        typing.setTypingStatus(TypingStatus.UNKNOWN);
+        typing.setMatchStatus(MatchStatus.SCHEDULED);
+        return typing;
+    }
+
+    private static String userId(int i) {
+        return String.format("user-%05d", i);
+    }
+
+    private static String upcomingId(int i) {
+        return "upcoming-" + i;
+    }
+
+    private static void createTable() {
+        matches.createTable(builder -> builder.globalSecondaryIndices(
+                gsi -> gsi.indexName("getTypingsByUser")
+                        .provisionedThroughput(throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L))
+                        .projection(projection -> projection.projectionType(ProjectionType.ALL)),
+                gsi -> gsi.indexName("getByDateAndType")
+                        .provisionedThroughput(throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L))
+                        .projection(projection -> projection.projectionType(ProjectionType.ALL)),
+                gsi -> gsi.indexName("getByStatusAndKickoff")
+                        .provisionedThroughput(throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L))
+                        .projection(projection -> projection.projectionType(ProjectionType.ALL)),
+                gsi -> gsi.indexName("getByRecordTypeV2")
+                        .provisionedThroughput(throughput -> throughput.readCapacityUnits(1L).writeCapacityUnits(1L))
+                        .projection(projection -> projection.projectionType(ProjectionType.ALL))));
+    }
+
+    // the cognito lookup is replaced, the bearer token is taken as the username
+    private static class TokenIsUsername extends CognitoJwtVerifierService {
+        @Override
+        public String checkUser(String token) {
+            return token;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerWithException {
+        void accept(int value) throws Exception;
+    }
+}
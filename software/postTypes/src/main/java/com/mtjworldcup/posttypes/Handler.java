@@ -4,41 +4,63 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mtjworldcup.common.model.TypingStatus;
+import com.mtjworldcup.common.model.QueuedTypings;
+import com.mtjworldcup.dynamo.dao.IdempotencyDao;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.cognito.exception.SignatureVerifierException;
+import com.mtjworldcup.dynamo.model.IdempotentResponse;
 import com.mtjworldcup.dynamo.model.Match;
 import com.mtjworldcup.posttypes.model.MatchDto;
-import com.mtjworldcup.dynamo.model.RecordType;
+import com.mtjworldcup.posttypes.service.KickoffIndex;
+import com.mtjworldcup.posttypes.service.TypingQueue;
 import com.mtjworldcup.cognito.service.CognitoJwtVerifierService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     private final CognitoJwtVerifierService cognitoJwtVerifierService;
     private final MatchesDao matchesDao;
     private final ObjectMapper objectMapper;
+    private final KickoffIndex kickoffIndex;
+    private final IdempotencyDao idempotencyDao;
+    private final TypingQueue typingQueue;
 
     public Handler() {
         this(new CognitoJwtVerifierService(), new MatchesDao(), new ObjectMapper());
     }
 
     public Handler(CognitoJwtVerifierService cognitoJwtVerifierService, MatchesDao matchesDao, ObjectMapper objectMapper){
+        this(cognitoJwtVerifierService, matchesDao, objectMapper, new KickoffIndex(matchesDao), new IdempotencyDao(),
+                new TypingQueue());
+    }
+
+    public Handler(CognitoJwtVerifierService cognitoJwtVerifierService, MatchesDao matchesDao, ObjectMapper objectMapper,
+                   KickoffIndex kickoffIndex, IdempotencyDao idempotencyDao, TypingQueue typingQueue){
         this.cognitoJwtVerifierService = cognitoJwtVerifierService;
         this.matchesDao = matchesDao;
         this.objectMapper = objectMapper;
+        this.kickoffIndex = kickoffIndex;
+        this.idempotencyDao = idempotencyDao;
+        this.typingQueue = typingQueue;
     }
 
     @Override
@@ -49,32 +71,28 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
             String username = cognitoJwtVerifierService.checkUser(bearerToken);
             String body = input.getBody();
             log.info("Input body: {}. User: {}", body, username);
-            MatchDto[] matchDtos = objectMapper.readValue(body, MatchDto[].class);
-            log.info("Number of matches sent: {}", matchDtos.length);
-            List<Match> filteredEntities = Arrays.stream(matchDtos)
-                    .map(match -> matchesDao.getById(match.getMatchId()))
-                    .filter(entity -> checkMatchDate(entity.getDate(), entity.getStartTime()))
-                    .toList();
-            log.info("Number of matches after filtering: {}", filteredEntities.size());
-            List<String> filteredIds = filteredEntities.stream().map(Match::getPrimaryId).toList();
-            Map<String, MatchDto> typesToSave = Arrays.stream(matchDtos)
-                    .filter(dto -> filteredIds.contains(dto.getMatchId()))
-                    .filter(dto -> dto.getHomeScore() != null && dto.getAwayScore() != null)
-                    .collect(Collectors.toMap(MatchDto::getMatchId, Function.identity()));
-            for (Match entity : filteredEntities) {
-                MatchDto matchType = typesToSave.get(entity.getPrimaryId());
-                entity.setSecondaryId(username);
-                entity.setHomeScore(matchType.getHomeScore());
-                entity.setAwayScore(matchType.getAwayScore());
-                entity.setRecordType(RecordType.TYPING);
-                entity.setTypingStatus(TypingStatus.UNKNOWN);
+            Optional<String> idempotencyKey = getIdempotencyKey(input.getHeaders());
+            if (idempotencyKey.isEmpty()) {
+                return saveTypes(username, body);
+            }
+            if (idempotencyKey.get().length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return new APIGatewayProxyResponseEvent().withStatusCode(400);
             }
-            if(!filteredEntities.isEmpty()){
-                log.info("Saving matches for user: {}", username);
-                matchesDao.saveTypings(filteredEntities);
-            } else {
-                return new APIGatewayProxyResponseEvent().withStatusCode(204);
+            String requestHash = hash(body);
+            Optional<IdempotentResponse> stored = idempotencyDao.getResponse(username, idempotencyKey.get());
+            if (stored.isPresent()) {
+                log.info("Retry with idempotency key: {} of user: {}", idempotencyKey.get(), username);
+                if (!stored.get().requestHash().equals(requestHash)) {
+                    return new APIGatewayProxyResponseEvent().withStatusCode(422);
+                }
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(stored.get().statusCode())
+                        .withBody(stored.get().body());
             }
+            APIGatewayProxyResponseEvent response = saveTypes(username, body);
+            idempotencyDao.saveResponse(username, idempotencyKey.get(),
+                    new IdempotentResponse(response.getStatusCode(), response.getBody(), requestHash));
+            return response;
         } catch (SignatureVerifierException e) {
             log.error("Token was not verified! Reason: {}, token: {}", e.getMessage(), bearerToken);
             return new APIGatewayProxyResponseEvent().withStatusCode(403);
@@ -82,15 +100,50 @@ public class Handler implements RequestHandler<APIGatewayProxyRequestEvent, APIG
             log.error("Unexpected exception occurred while getting subject from token. Exception: {}", e.getMessage());
             return new APIGatewayProxyResponseEvent().withStatusCode(500);
         }
+    }
+
+    private APIGatewayProxyResponseEvent saveTypes(String username, String body) throws JsonProcessingException {
+        MatchDto[] matchDtos = objectMapper.readValue(body, MatchDto[].class);
+        log.info("Number of matches sent: {}", matchDtos.length);
+        Map<String, MatchDto> typesToSave = Arrays.stream(matchDtos)
+                .filter(dto -> dto.getHomeScore() != null && dto.getAwayScore() != null)
+                .collect(Collectors.toMap(MatchDto::getMatchId, Function.identity(),
+                        (first, second) -> second, LinkedHashMap::new));
+        List<Match> filteredEntities = kickoffIndex.getOpenMatches(typesToSave.keySet()).stream()
+                .map(match -> {
+                    MatchDto matchType = typesToSave.get(match.getPrimaryId());
+                    return Match.typing(match, username, matchType.getHomeScore(), matchType.getAwayScore());
+                })
+                .toList();
+        log.info("Number of matches after filtering: {}", filteredEntities.size());
+        if(filteredEntities.isEmpty()){
+            return new APIGatewayProxyResponseEvent().withStatusCode(204);
+        }
+        if (typingQueue.isEnabled()) {
+            typingQueue.enqueue(new QueuedTypings(username, filteredEntities.stream()
+                    .map(typing -> new QueuedTypings.Typing(typing.getPrimaryId(), typing.getHomeScore(),
+                            typing.getAwayScore()))
+                    .toList()));
+            return new APIGatewayProxyResponseEvent().withStatusCode(202);
+        }
+        log.info("Saving matches for user: {}", username);
+        matchesDao.saveTypings(filteredEntities);
         return new APIGatewayProxyResponseEvent()
                 .withStatusCode(201);
     }
 
-    private boolean checkMatchDate(LocalDate matchDate, LocalTime matchTime) {
-        if(LocalDate.now().isAfter(matchDate))
-            return false;
-        if(LocalDate.now().isEqual(matchDate) && LocalTime.now().isAfter(matchTime))
-            return false;
-        return true;
+    // header names are case insensitive, API Gateway passes them as sent by the client
+    private static Optional<String> getIdempotencyKey(Map<String, String> headers) {
+        return headers.entrySet().stream()
+                .filter(header -> IDEMPOTENCY_KEY_HEADER.equalsIgnoreCase(header.getKey()))
+                .map(Map.Entry::getValue)
+                .filter(value -> value != null && !value.isBlank())
+                .findFirst();
+    }
+
+    private static String hash(String body) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(String.valueOf(body).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
     }
 }
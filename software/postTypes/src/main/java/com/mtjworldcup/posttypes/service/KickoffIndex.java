@@ -0,0 +1,79 @@
+package com.mtjworldcup.posttypes.service;
+
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Today's matches kept by a warm container, typings for them are checked without reading the table.
+// Matches of other days are read in one batch. Returned records are shared, callers must not modify them.
+public class KickoffIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(KickoffIndex.class);
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    private final MatchesDao matchesDao;
+    private final Clock clock;
+    private final Duration ttl;
+    private Map<String, Match> todayMatches = Map.of();
+    private LocalDate indexedDay;
+    private Instant refreshedAt = Instant.MIN;
+
+    public KickoffIndex(MatchesDao matchesDao) {
+        this(matchesDao, Clock.system(WARSAW), DEFAULT_TTL);
+    }
+
+    public KickoffIndex(MatchesDao matchesDao, Clock clock, Duration ttl) {
+        this.matchesDao = matchesDao;
+        this.clock = clock;
+        this.ttl = ttl;
+    }
+
+    // Matches with the given ids that have not kicked off yet, in Warsaw time. Unknown ids are skipped.
+    public List<Match> getOpenMatches(Collection<String> matchIds) {
+        LocalDateTime now = LocalDateTime.now(clock.withZone(WARSAW));
+        Map<String, Match> today = getTodayMatches(now.toLocalDate());
+        List<String> otherDays = matchIds.stream()
+                .filter(id -> !today.containsKey(id))
+                .toList();
+        Map<String, Match> others = otherDays.isEmpty() ? Map.of() : matchesDao.getByIds(otherDays);
+        return matchIds.stream()
+                .map(id -> today.getOrDefault(id, others.get(id)))
+                .filter(Objects::nonNull)
+                .filter(match -> isOpen(match, now))
+                .toList();
+    }
+
+    private Map<String, Match> getTodayMatches(LocalDate today) {
+        Instant now = clock.instant();
+        if (!today.equals(indexedDay) || !now.isBefore(refreshedAt.plus(ttl))) {
+            todayMatches = matchesDao.getByDate(today).stream()
+                    .collect(Collectors.toUnmodifiableMap(Match::getPrimaryId, Function.identity()));
+            indexedDay = today;
+            refreshedAt = now;
+            log.info("Kickoff index refreshed with {} matches of: {}", todayMatches.size(), today);
+        }
+        return todayMatches;
+    }
+
+    private static boolean isOpen(Match match, LocalDateTime now) {
+        if (match.getDate() == null || match.getStartTime() == null) {
+            return false;
+        }
+        return LocalDateTime.of(match.getDate(), match.getStartTime()).isAfter(now);
+    }
+}
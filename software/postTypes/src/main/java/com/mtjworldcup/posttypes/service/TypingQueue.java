@@ -0,0 +1,59 @@
+package com.mtjworldcup.posttypes.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.model.QueuedTypings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.UUID;
+
+// Typings that passed the kickoff check are sent to the FIFO typings queue and applied by applyTypings in
+// grouped transactions. Submissions of one user share a message group, so a changed typing is never applied
+// before the one it replaces. Each submission gets its own deduplication id, so reverting to a typing sent
+// minutes before is not dropped as a duplicate. Used only when TYPINGS_QUEUE_URL is set.
+public class TypingQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TypingQueue.class);
+
+    private final String queueUrl;
+    private final ObjectMapper objectMapper;
+    private SqsClient sqsClient;
+
+    public TypingQueue() {
+        this.queueUrl = System.getenv("TYPINGS_QUEUE_URL");
+        this.objectMapper = new ObjectMapper();
+    }
+
+    public TypingQueue(SqsClient sqsClient, ObjectMapper objectMapper, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.objectMapper = objectMapper;
+        this.queueUrl = queueUrl;
+    }
+
+    public boolean isEnabled() {
+        return queueUrl != null && !queueUrl.isBlank();
+    }
+
+    public void enqueue(QueuedTypings typings) throws JsonProcessingException {
+        String body = objectMapper.writeValueAsString(typings);
+        String messageId = getClient()
+                .sendMessage(SendMessageRequest.builder()
+                        .queueUrl(queueUrl)
+                        .messageGroupId(typings.userId())
+                        .messageDeduplicationId(UUID.randomUUID().toString())
+                        .messageBody(body)
+                        .build())
+                .messageId();
+        log.info("Queued {} typings of user: {} in message: {}", typings.typings().size(), typings.userId(), messageId);
+    }
+
+    private SqsClient getClient() {
+        if (sqsClient == null) {
+            sqsClient = SqsClient.create();
+        }
+        return sqsClient;
+    }
+}
@@ -2,29 +2,56 @@ package com.mtjworldcup.posttypes;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.model.QueuedTypings;
+import com.mtjworldcup.dynamo.dao.IdempotencyDao;
 import com.mtjworldcup.dynamo.dao.MatchesDao;
 import com.mtjworldcup.cognito.exception.SignatureVerifierException;
+import com.mtjworldcup.dynamo.model.IdempotentResponse;
 import com.mtjworldcup.dynamo.model.Match;
+import com.mtjworldcup.dynamo.model.RecordType;
 import com.mtjworldcup.posttypes.model.MatchDto;
+import com.mtjworldcup.posttypes.service.KickoffIndex;
+import com.mtjworldcup.posttypes.service.TypingQueue;
 import com.mtjworldcup.cognito.service.CognitoJwtVerifierService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class HandlerTest {
 
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 14);
+
     private CognitoJwtVerifierService cognitoJwtVerifierService = mock(CognitoJwtVerifierService.class);
     private MatchesDao matchesDao = mock(MatchesDao.class);
     private ObjectMapper objectMapper = new ObjectMapper();
+    private ArgumentCaptor<IdempotentResponse> responseCaptor = ArgumentCaptor.forClass(IdempotentResponse.class);
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<List<Match>> typingsCaptor = ArgumentCaptor.forClass(List.class);
+
+    // 12:00 in Warsaw
+    private Clock clock = Clock.fixed(Instant.parse("2024-06-14T10:00:00Z"), ZoneId.of("Europe/Warsaw"));
+
+    private IdempotencyDao idempotencyDao = mock(IdempotencyDao.class);
+    private TypingQueue typingQueue = mock(TypingQueue.class);
 
-    private Handler handler = new Handler(cognitoJwtVerifierService, matchesDao, objectMapper);
+    private Handler handler = new Handler(cognitoJwtVerifierService, matchesDao, objectMapper,
+            new KickoffIndex(matchesDao, clock, Duration.ofMinutes(1)), idempotencyDao, typingQueue);
 
     @Test
     void shouldReturn403_WhenTokenNotVerified() throws Exception{
@@ -48,12 +75,60 @@ class HandlerTest {
                 .withHeaders(Map.of("Authorization", "Bearer someToken"))
                 .withBody(objectMapper.writeValueAsString(types));
         Match match123 = prepareMatch("match-123");
-        when(matchesDao.getById("match-123")).thenReturn(match123);
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(match123));
         //when
         var response = handler.handleRequest(input, null);
         //then
         assertEquals(201, response.getStatusCode());
-        verify(matchesDao).saveTypings(any());
+        verify(matchesDao).saveTypings(typingsCaptor.capture());
+        Match typing = typingsCaptor.getValue().get(0);
+        assertEquals("someSubject", typing.getSecondaryId());
+        assertEquals(RecordType.TYPING, typing.getRecordType());
+        assertNull(match123.getHomeScore());
+    }
+
+    @Test
+    void shouldReadOtherDaysInOneBatch_WhenTypesForUpcomingDaysSent() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        MatchDto[] types = {new MatchDto("match-1", 1, 1), new MatchDto("match-2", 2, 0), new MatchDto("match-3", 0, 0)};
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken"))
+                .withBody(objectMapper.writeValueAsString(types));
+        Match match1 = prepareMatch("match-1");
+        Match match2 = prepareMatch("match-2");
+        match2.setDate(TODAY.plusDays(1));
+        Match match3 = prepareMatch("match-3");
+        match3.setDate(TODAY.plusDays(2));
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(match1));
+        when(matchesDao.getByIds(List.of("match-2", "match-3"))).thenReturn(Map.of("match-2", match2, "match-3", match3));
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(201, response.getStatusCode());
+        verify(matchesDao, never()).getById(any());
+        verify(matchesDao).getByIds(List.of("match-2", "match-3"));
+        verify(matchesDao).saveTypings(typingsCaptor.capture());
+        assertEquals(3, typingsCaptor.getValue().size());
+    }
+
+    @Test
+    void shouldNotSaveType_WhenMatchAlreadyStarted() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        MatchDto[] types = {new MatchDto("match-123", 1, 1), new MatchDto("match-456", 1, 0)};
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken"))
+                .withBody(objectMapper.writeValueAsString(types));
+        Match started = prepareMatch("match-123");
+        started.setStartTime(LocalTime.of(11, 59));
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(started, prepareMatch("match-456")));
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(201, response.getStatusCode());
+        verify(matchesDao).saveTypings(typingsCaptor.capture());
+        assertEquals(List.of("match-456"), typingsCaptor.getValue().stream().map(Match::getPrimaryId).toList());
     }
 
     @Test
@@ -65,8 +140,8 @@ class HandlerTest {
                 .withHeaders(Map.of("Authorization", "Bearer someToken"))
                 .withBody(objectMapper.writeValueAsString(types));
         Match match123 = prepareMatch("match-123");
-        match123.setDate(LocalDate.now().minusDays(1));
-        when(matchesDao.getById("match-123")).thenReturn(match123);
+        match123.setDate(TODAY.minusDays(1));
+        when(matchesDao.getByIds(List.of("match-123"))).thenReturn(Map.of("match-123", match123));
         //when
         var response = handler.handleRequest(input, null);
         //then
@@ -74,11 +149,81 @@ class HandlerTest {
         assertEquals(204, response.getStatusCode());
     }
 
+    @Test
+    void shouldReturnStoredResponseWithoutSaving_WhenRequestRetried() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        String body = objectMapper.writeValueAsString(new MatchDto[]{new MatchDto("match-123", 1, 1)});
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken", "idempotency-key", "key-1"))
+                .withBody(body);
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(prepareMatch("match-123")));
+        handler.handleRequest(input, null);
+        verify(idempotencyDao).saveResponse(eq("someSubject"), eq("key-1"), responseCaptor.capture());
+        when(idempotencyDao.getResponse("someSubject", "key-1")).thenReturn(Optional.of(responseCaptor.getValue()));
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(201, response.getStatusCode());
+        verify(matchesDao, times(1)).saveTypings(any());
+        verify(idempotencyDao, times(1)).saveResponse(any(), any(), any());
+    }
+
+    @Test
+    void shouldReturn422_WhenKeyReusedForDifferentRequest() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken", "Idempotency-Key", "key-1"))
+                .withBody(objectMapper.writeValueAsString(new MatchDto[]{new MatchDto("match-123", 2, 1)}));
+        when(idempotencyDao.getResponse("someSubject", "key-1"))
+                .thenReturn(Optional.of(new IdempotentResponse(201, null, "hash-of-other-body")));
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(422, response.getStatusCode());
+        verify(matchesDao, never()).saveTypings(any());
+    }
+
+    @Test
+    void shouldNotStoreResponse_WhenSavingTypesFailed() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken", "Idempotency-Key", "key-1"))
+                .withBody(objectMapper.writeValueAsString(new MatchDto[]{new MatchDto("match-123", 1, 1)}));
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(prepareMatch("match-123")));
+        doThrow(new RuntimeException("Transaction cancelled")).when(matchesDao).saveTypings(any());
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(500, response.getStatusCode());
+        verify(idempotencyDao, never()).saveResponse(any(), any(), any());
+    }
+
+    @Test
+    void shouldQueueTypesAndReturn202_WhenWriteBehindEnabled() throws Exception{
+        //given
+        when(cognitoJwtVerifierService.checkUser(any())).thenReturn("someSubject");
+        when(typingQueue.isEnabled()).thenReturn(true);
+        MatchDto[] types = {new MatchDto("match-123", 2, 1)};
+        APIGatewayProxyRequestEvent input = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of("Authorization", "Bearer someToken"))
+                .withBody(objectMapper.writeValueAsString(types));
+        when(matchesDao.getByDate(TODAY)).thenReturn(List.of(prepareMatch("match-123")));
+        //when
+        var response = handler.handleRequest(input, null);
+        //then
+        assertEquals(202, response.getStatusCode());
+        verify(typingQueue).enqueue(new QueuedTypings("someSubject", List.of(new QueuedTypings.Typing("match-123", 2, 1))));
+        verify(matchesDao, never()).saveTypings(any());
+    }
+
     private Match prepareMatch(String primaryId) {
         Match match = new Match();
         match.setPrimaryId(primaryId);
-        match.setDate(LocalDate.now());
-        match.setStartTime(LocalTime.now().plusHours(1));
+        match.setDate(TODAY);
+        match.setStartTime(LocalTime.of(18, 0));
         return match;
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.mtjworldcup.posttypes.service;
+
+import com.mtjworldcup.dynamo.dao.MatchesDao;
+import com.mtjworldcup.dynamo.model.Match;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KickoffIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 14);
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+
+    private final MatchesDao mockMatchesDao = mock(MatchesDao.class);
+    private final Clock mockClock = mock(Clock.class);
+
+    @Test
+    void shouldReadDayOnce_WhenTodayMatchesRequestedWithinTtl() {
+        //given
+        givenNow("2024-06-14T10:00:00Z");
+        when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of(prepareMatch("1", TODAY, LocalTime.of(18, 0))));
+        KickoffIndex kickoffIndex = new KickoffIndex(mockMatchesDao, mockClock, Duration.ofMinutes(1));
+        //when
+        kickoffIndex.getOpenMatches(List.of("1"));
+        givenNow("2024-06-14T10:00:59Z");
+        List<Match> openMatches = kickoffIndex.getOpenMatches(List.of("1"));
+        //then
+        assertEquals(1, openMatches.size());
+        verify(mockMatchesDao, times(1)).getByDate(TODAY);
+        verify(mockMatchesDao, never()).getByIds(any());
+    }
+
+    @Test
+    void shouldRefreshIndex_WhenTtlPassed() {
+        //given
+        givenNow("2024-06-14T10:00:00Z");
+        when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of(prepareMatch("1", TODAY, LocalTime.of(18, 0))));
+        KickoffIndex kickoffIndex = new KickoffIndex(mockMatchesDao, mockClock, Duration.ofMinutes(1));
+        //when
+        kickoffIndex.getOpenMatches(List.of("1"));
+        givenNow("2024-06-14T10:01:00Z");
+        kickoffIndex.getOpenMatches(List.of("1"));
+        //then
+        verify(mockMatchesDao, times(2)).getByDate(TODAY);
+    }
+
+    @Test
+    void shouldCloseMatchAtKickoffInWarsawTime_WhenLambdaRunsInUtc() {
+        //given
+        // 18:00 in Warsaw, 16:00 UTC
+        givenNow("2024-06-14T16:00:00Z");
+        when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of(
+                prepareMatch("1", TODAY, LocalTime.of(18, 0)),
+                prepareMatch("2", TODAY, LocalTime.of(21, 0))));
+        KickoffIndex kickoffIndex = new KickoffIndex(mockMatchesDao, mockClock, Duration.ofMinutes(1));
+        //when
+        List<Match> openMatches = kickoffIndex.getOpenMatches(List.of("1", "2"));
+        //then
+        assertEquals(List.of("2"), openMatches.stream().map(Match::getPrimaryId).toList());
+    }
+
+    @Test
+    void shouldSkipUnknownIds_WhenMatchesOfOtherDaysRead() {
+        //given
+        givenNow("2024-06-14T10:00:00Z");
+        when(mockMatchesDao.getByDate(TODAY)).thenReturn(List.of());
+        when(mockMatchesDao.getByIds(List.of("2", "unknown")))
+                .thenReturn(Map.of("2", prepareMatch("2", TODAY.plusDays(1), LocalTime.of(15, 0))));
+        KickoffIndex kickoffIndex = new KickoffIndex(mockMatchesDao, mockClock, Duration.ofMinutes(1));
+        //when
+        List<Match> openMatches = kickoffIndex.getOpenMatches(List.of("2", "unknown"));
+        //then
+        assertEquals(List.of("2"), openMatches.stream().map(Match::getPrimaryId).toList());
+    }
+
+    private void givenNow(String instant) {
+        when(mockClock.instant()).thenReturn(Instant.parse(instant));
+        when(mockClock.getZone()).thenReturn(ZoneOffset.UTC);
+        when(mockClock.withZone(WARSAW)).thenReturn(Clock.fixed(Instant.parse(instant), WARSAW));
+    }
+
+    private static Match prepareMatch(String id, LocalDate date, LocalTime startTime) {
+        Match match = new Match();
+        match.setPrimaryId(id);
+        match.setSecondaryId(id);
+        match.setDate(date);
+        match.setStartTime(startTime);
+        return match;
+    }
+}
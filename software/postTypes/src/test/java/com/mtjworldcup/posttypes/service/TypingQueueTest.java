@@ -0,0 +1,72 @@
+package com.mtjworldcup.posttypes.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.model.QueuedTypings;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TypingQueueTest {
+
+    private static final String QUEUE_URL = "https://sqs.eu-central-1.amazonaws.com/123456789012/typings.fifo";
+
+    private final SqsClient mockSqsClient = mock(SqsClient.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldGroupMessagesByUser_WhenTypingsQueued() throws Exception {
+        //given
+        when(mockSqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("message-1").build());
+        TypingQueue typingQueue = new TypingQueue(mockSqsClient, objectMapper, QUEUE_URL);
+        QueuedTypings typings = new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 2, 1)));
+        ArgumentCaptor<SendMessageRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        //when
+        typingQueue.enqueue(typings);
+        //then
+        verify(mockSqsClient).sendMessage(requestCaptor.capture());
+        assertEquals(QUEUE_URL, requestCaptor.getValue().queueUrl());
+        assertEquals("user-1", requestCaptor.getValue().messageGroupId());
+        assertEquals(typings, objectMapper.readValue(requestCaptor.getValue().messageBody(), QueuedTypings.class));
+    }
+
+    @Test
+    void shouldSendSeparateMessages_WhenSameTypingsQueuedTwice() throws Exception {
+        //given
+        when(mockSqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("message-1").build());
+        TypingQueue typingQueue = new TypingQueue(mockSqsClient, objectMapper, QUEUE_URL);
+        QueuedTypings typings = new QueuedTypings("user-1", List.of(new QueuedTypings.Typing("match-1", 2, 1)));
+        ArgumentCaptor<SendMessageRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
+        //when
+        typingQueue.enqueue(typings);
+        typingQueue.enqueue(typings);
+        //then
+        verify(mockSqsClient, times(2)).sendMessage(requestCaptor.capture());
+        List<SendMessageRequest> requests = requestCaptor.getAllValues();
+        assertNotNull(requests.get(0).messageDeduplicationId());
+        assertNotEquals(requests.get(0).messageDeduplicationId(), requests.get(1).messageDeduplicationId());
+    }
+
+    @Test
+    void shouldBeDisabled_WhenNoQueueUrlConfigured() {
+        //given
+        TypingQueue typingQueue = new TypingQueue(mockSqsClient, objectMapper, null);
+        //when, then
+        assertFalse(typingQueue.isEnabled());
+    }
+}
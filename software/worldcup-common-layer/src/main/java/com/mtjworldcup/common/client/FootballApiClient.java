@@ -0,0 +1,113 @@
+package com.mtjworldcup.common.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtjworldcup.common.exception.HttpClientException;
+import com.mtjworldcup.common.exception.RequestBudgetExceededException;
+import okhttp3.ConnectionPool;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class FootballApiClient {
+
+    private static final Logger log = LoggerFactory.getLogger(FootballApiClient.class);
+
+    // Kept in a static field so a warm lambda container reuses open connections between invocations.
+    // OkHttp asks for gzip and unpacks it on its own as long as no Accept-Encoding header is set here.
+    private static final OkHttpClient SHARED_HTTP_CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(Duration.ofSeconds(5))
+            .readTimeout(Duration.ofSeconds(10))
+            .callTimeout(Duration.ofSeconds(20))
+            .build();
+    private static final ObjectMapper SHARED_OBJECT_MAPPER = new ObjectMapper();
+
+    private final OkHttpClient okHttpClient;
+    private final ObjectMapper objectMapper;
+    private final RequestBudget requestBudget;
+
+    public FootballApiClient() {
+        this(RequestBudget.unlimited());
+    }
+
+    public FootballApiClient(RequestBudget requestBudget) {
+        this(SHARED_HTTP_CLIENT, SHARED_OBJECT_MAPPER, requestBudget);
+    }
+
+    public FootballApiClient(OkHttpClient okHttpClient, ObjectMapper objectMapper, RequestBudget requestBudget) {
+        this.okHttpClient = okHttpClient;
+        this.objectMapper = objectMapper;
+        this.requestBudget = requestBudget;
+    }
+
+    // pathAndQuery starts with a slash, e.g. "/fixtures?ids=1-2"
+    public <T> T get(String pathAndQuery, Class<T> responseType, RequestPriority priority) {
+        final String rapidApiKey = System.getenv("RAPID_API_KEY");
+        final String rapidApiHost = System.getenv("RAPID_API_HOST");
+        final String baseUrl = System.getenv("BASE_API_URL");
+        Request request = new Request.Builder()
+                .url(baseUrl + pathAndQuery)
+                .get()
+                .addHeader("X-RapidAPI-Key", rapidApiKey)
+                .addHeader("X-RapidAPI-Host", rapidApiHost)
+                .build();
+        if (!requestBudget.tryAcquire(priority)) {
+            throw new RequestBudgetExceededException(String.format("No %s request budget left for: %s",
+                    priority, pathAndQuery));
+        }
+        log.debug("Calling football api: {}", pathAndQuery);
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            RateLimit rateLimit = rateLimit(response.headers());
+            if (!rateLimit.isEmpty()) {
+                requestBudget.sync(rateLimit);
+            }
+            if (!response.isSuccessful()) {
+                throw new HttpClientException(String.format("Football api responded with status: %d for: %s",
+                        response.code(), pathAndQuery));
+            }
+            ResponseBody body = response.body();
+            if (body == null) {
+                throw new HttpClientException("Response body is empty");
+            }
+            try (InputStream stream = body.byteStream()) {
+                return objectMapper.readValue(stream, responseType);
+            }
+        } catch (IOException e) {
+            throw new HttpClientException(String.format("Calling football api: %s failed. Cause: %s",
+                    pathAndQuery, e.getMessage()));
+        }
+    }
+
+    private static RateLimit rateLimit(Headers headers) {
+        return new RateLimit(
+                header(headers, "x-ratelimit-requests-limit"),
+                header(headers, "x-ratelimit-requests-remaining"),
+                header(headers, "x-ratelimit-limit"),
+                header(headers, "x-ratelimit-remaining"));
+    }
+
+    private static Integer header(Headers headers, String name) {
+        String value = headers.get(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Unexpected value: {} of header: {}", value, name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.mtjworldcup.common.client;
+
+// Quota left after a call as reported by RapidAPI, null when the header was missing.
+public record RateLimit(Integer dailyLimit, Integer dailyRemaining, Integer minuteLimit, Integer minuteRemaining) {
+
+    public boolean isEmpty() {
+        return dailyRemaining == null && minuteRemaining == null;
+    }
+}
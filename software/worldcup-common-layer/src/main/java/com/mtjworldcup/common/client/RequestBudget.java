@@ -0,0 +1,22 @@
+package com.mtjworldcup.common.client;
+
+public interface RequestBudget {
+
+    // Takes one request from the budget, false when the quota left is reserved for higher priorities.
+    boolean tryAcquire(RequestPriority priority);
+
+    void sync(RateLimit rateLimit);
+
+    static RequestBudget unlimited() {
+        return new RequestBudget() {
+            @Override
+            public boolean tryAcquire(RequestPriority priority) {
+                return true;
+            }
+
+            @Override
+            public void sync(RateLimit rateLimit) {
+            }
+        };
+    }
+}
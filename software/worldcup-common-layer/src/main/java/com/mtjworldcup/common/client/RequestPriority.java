@@ -0,0 +1,8 @@
+package com.mtjworldcup.common.client;
+
+public enum RequestPriority {
+    // live score polling, may use the quota down to the last request
+    LIVE,
+    // fixture import, stops early to leave quota for live polling
+    FIXTURES
+}
@@ -0,0 +1,8 @@
+package com.mtjworldcup.common.exception;
+
+public class RequestBudgetExceededException extends HttpClientException {
+
+    public RequestBudgetExceededException(String message) {
+        super(message);
+    }
+}
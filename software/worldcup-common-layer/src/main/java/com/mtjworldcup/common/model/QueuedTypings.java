@@ -0,0 +1,9 @@
+package com.mtjworldcup.common.model;
+
+import java.util.List;
+
+// One typing submission of a user sent from postTypes to applyTypings through the typings queue.
+public record QueuedTypings(String userId, List<Typing> typings) {
+
+    public record Typing(String matchId, int homeScore, int awayScore) {}
+}
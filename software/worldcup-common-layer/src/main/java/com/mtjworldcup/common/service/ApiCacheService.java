@@ -0,0 +1,47 @@
+package com.mtjworldcup.common.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.apigateway.ApiGatewayClient;
+import software.amazon.awssdk.services.apigateway.model.FlushStageCacheRequest;
+
+public class ApiCacheService {
+
+  private static final Logger log = LoggerFactory.getLogger(ApiCacheService.class);
+
+  private ApiGatewayClient apiGatewayClient;
+
+  public ApiCacheService() {}
+
+  public ApiCacheService(ApiGatewayClient apiGatewayClient) {
+    this.apiGatewayClient = apiGatewayClient;
+  }
+
+  public void flushStageCache() {
+    String restApiId = System.getenv("REST_API_ID");
+    String stageName = System.getenv("REST_API_STAGE_NAME");
+    if (restApiId == null || stageName == null) {
+      log.info("Rest api id or stage name not set, skipping cache flush");
+      return;
+    }
+    try {
+      getClient()
+          .flushStageCache(
+              FlushStageCacheRequest.builder().restApiId(restApiId).stageName(stageName).build());
+      log.info("Stage cache flushed for api: {}, stage: {}", restApiId, stageName);
+    } catch (Exception e) {
+      log.warn(
+          "Flushing stage cache for api: {}, stage: {} failed. Cause: {}",
+          restApiId,
+          stageName,
+          e.getMessage());
+    }
+  }
+
+  private ApiGatewayClient getClient() {
+    if (apiGatewayClient == null) {
+      apiGatewayClient = ApiGatewayClient.create();
+    }
+    return apiGatewayClient;
+  }
+}
@@ -0,0 +1,159 @@
+package com.mtjworldcup.common.client;
+
+import com.mtjworldcup.common.exception.HttpClientException;
+import com.mtjworldcup.common.exception.RequestBudgetExceededException;
+import com.mtjworldcup.common.model.MatchApiResponse;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SystemStubsExtension.class)
+class FootballApiClientTest {
+
+    private static final String FIXTURE_RESPONSE =
+            "{\"response\":[{\"fixture\":{\"id\":1035522},\"goals\":{\"home\":1,\"away\":0}}]}";
+
+    @SystemStub
+    private EnvironmentVariables environmentVariables;
+
+    private MockWebServer mockWebServer;
+    private final FootballApiClient footballApiClient = new FootballApiClient();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        environmentVariables.set("RAPID_API_KEY", "key");
+        environmentVariables.set("RAPID_API_HOST", "host");
+        environmentVariables.set("BASE_API_URL", mockWebServer.url("").toString().replaceAll("/$", ""));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    void shouldSendRapidApiHeaders_WhenCallingApi() throws Exception {
+        //given
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(FIXTURE_RESPONSE));
+        //when
+        MatchApiResponse response =
+                footballApiClient.get("/fixtures?ids=1035522", MatchApiResponse.class, RequestPriority.LIVE);
+        //then
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertEquals("/fixtures?ids=1035522", request.getPath());
+        assertEquals("key", request.getHeader("X-RapidAPI-Key"));
+        assertEquals("host", request.getHeader("X-RapidAPI-Host"));
+        assertEquals(1035522L, response.getResponse().get(0).getFixture().getId());
+    }
+
+    @Test
+    void shouldParseResponse_WhenBodyIsGzipped() throws Exception {
+        //given
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(gzip(FIXTURE_RESPONSE))));
+        //when
+        MatchApiResponse response =
+                footballApiClient.get("/fixtures?ids=1035522", MatchApiResponse.class, RequestPriority.LIVE);
+        //then
+        assertEquals("gzip", mockWebServer.takeRequest().getHeader("Accept-Encoding"));
+        assertEquals(1, response.getResponse().size());
+    }
+
+    @Test
+    void shouldReuseConnection_WhenCalledTwice() throws Exception {
+        //given
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(FIXTURE_RESPONSE));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody(FIXTURE_RESPONSE));
+        //when
+        footballApiClient.get("/fixtures?ids=1", MatchApiResponse.class, RequestPriority.LIVE);
+        new FootballApiClient().get("/fixtures?ids=2", MatchApiResponse.class, RequestPriority.LIVE);
+        //then
+        assertEquals(0, mockWebServer.takeRequest().getSequenceNumber());
+        assertEquals(1, mockWebServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void shouldThrowHttpClientException_WhenApiRespondsWithError() {
+        //given
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429));
+        //when, then
+        assertThrows(HttpClientException.class,
+                () -> footballApiClient.get("/fixtures?ids=1", MatchApiResponse.class, RequestPriority.LIVE));
+    }
+
+    @Test
+    void shouldNotCallApi_WhenNoBudgetLeft() {
+        //given
+        RecordingBudget budget = new RecordingBudget(false);
+        FootballApiClient client = new FootballApiClient(budget);
+        //when, then
+        assertThrows(RequestBudgetExceededException.class,
+                () -> client.get("/fixtures?ids=1", MatchApiResponse.class, RequestPriority.FIXTURES));
+        assertEquals(0, mockWebServer.getRequestCount());
+        assertEquals(RequestPriority.FIXTURES, budget.priority);
+    }
+
+    @Test
+    void shouldSyncBudget_WhenRateLimitHeadersReturned() {
+        //given
+        RecordingBudget budget = new RecordingBudget(true);
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .addHeader("x-ratelimit-requests-limit", "100")
+                .addHeader("x-ratelimit-requests-remaining", "42")
+                .addHeader("X-RateLimit-Limit", "10")
+                .addHeader("X-RateLimit-Remaining", "9")
+                .setBody(FIXTURE_RESPONSE));
+        //when
+        new FootballApiClient(budget).get("/fixtures?ids=1", MatchApiResponse.class, RequestPriority.LIVE);
+        //then
+        assertEquals(new RateLimit(100, 42, 10, 9), budget.rateLimit);
+    }
+
+    private static class RecordingBudget implements RequestBudget {
+        private final boolean available;
+        private RequestPriority priority;
+        private RateLimit rateLimit;
+
+        RecordingBudget(boolean available) {
+            this.available = available;
+        }
+
+        @Override
+        public boolean tryAcquire(RequestPriority priority) {
+            this.priority = priority;
+            return available;
+        }
+
+        @Override
+        public void sync(RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+        }
+    }
+
+    private static byte[] gzip(String body) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}